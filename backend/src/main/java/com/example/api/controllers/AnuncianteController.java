@@ -1,8 +1,9 @@
 package com.example.api.controllers;
 
 import com.example.api.entities.Anunciante;
-import com.example.api.entities.Credito;
 import com.example.api.services.AnuncianteService;
+import com.example.api.services.CreditoService;
+import com.example.api.services.SaldoCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,11 +23,14 @@ public class AnuncianteController {
     @Autowired
     private AnuncianteService anuncianteService;
 
+    @Autowired
+    private CreditoService creditoService;
+
     @GetMapping("/{id}")
     @Operation(summary = "ℹ️ Ver informações do anunciante", description = "Visualiza informações básicas de um anunciante")
     public ResponseEntity<?> visualizarAnunciante(@PathVariable Long id) {
         try {
-            Anunciante anunciante = anuncianteService.buscarPorId(id);
+            Anunciante anunciante = anuncianteService.consultarPorId(id);
             return ResponseEntity.ok(anunciante);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -59,8 +63,8 @@ public class AnuncianteController {
     @Operation(summary = "💰 Ver créditos do anunciante", description = "Exibe o saldo de créditos do anunciante")
     public ResponseEntity<?> visualizarCreditos(@PathVariable Long idAnunciante) {
         try {
-            Credito credito = anuncianteService.buscarCreditosPorAnunciante(idAnunciante);
-            return ResponseEntity.ok(Map.of("informacoes_creditos", Map.of("saldo_atual", credito.getSaldo())));
+            SaldoCacheService.Saldo saldo = creditoService.consultarSaldo(idAnunciante);
+            return ResponseEntity.ok(Map.of("informacoes_creditos", Map.of("saldo_atual", saldo.saldo())));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -1,12 +1,22 @@
 package com.example.api.controllers;
 
+import com.example.api.dtos.ImovelFiltroDTO;
 import com.example.api.entities.Anuncio;
+import com.example.api.services.AnuncioExpiracaoService;
 import com.example.api.services.AnuncioService;
+import com.example.api.services.AnuncioStreamService;
+import com.example.api.services.AnuncioTendenciaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +28,12 @@ public class AnuncioController {
     @Autowired
     private AnuncioService anuncioService;
 
+    @Autowired
+    private AnuncioStreamService anuncioStreamService;
+
+    @Autowired
+    private AnuncioTendenciaService anuncioTendenciaService;
+
     @PostMapping("/criar")
     @Operation(summary = "Criar e publicar anúncio", description = "Cria anúncio JÁ PUBLICADO com +30 dias de expiração e debita 50 créditos automaticamente")
     public ResponseEntity<?> criarAnuncio(@RequestParam("idImovel") Long idImovel) {
@@ -37,9 +53,13 @@ public class AnuncioController {
 
     @PostMapping("/visualizar/{id}")
     @Operation(summary = "Incrementar visualização", description = "Incrementa contador de visualizações")
-    public ResponseEntity<?> incrementarVisualizacao(@PathVariable Long id) {
+    public ResponseEntity<?> incrementarVisualizacao(
+            @PathVariable Long id,
+            @RequestParam(value = "idVisitante", required = false) Long idVisitante,
+            @RequestHeader(value = "X-Client-Fingerprint", required = false) String fingerprint,
+            HttpServletRequest request) {
         try {
-            anuncioService.incrementarVisualizacao(id);
+            anuncioService.incrementarVisualizacao(id, chaveVisitante(idVisitante, fingerprint, request));
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Visualização registrada"));
@@ -50,6 +70,44 @@ public class AnuncioController {
         }
     }
 
+    @GetMapping("/em-alta")
+    @Operation(summary = "Anúncios em alta", description = "Anúncios publicados ordenados por popularidade recente " +
+            "(visualizações, favoritos e marcações de visita, com decaimento exponencial)")
+    public ResponseEntity<?> emAlta(@RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "anuncios", anuncioTendenciaService.listarEmAlta(limite)));
+    }
+
+    @GetMapping("/{id}/visitantes-unicos")
+    @Operation(summary = "Visitantes únicos", description = "Estimativa (HyperLogLog, erro ~1%) de visitantes distintos hoje e nos últimos 7 e 30 dias")
+    public ResponseEntity<?> visitantesUnicos(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "visitantes", anuncioService.visitantesUnicos(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/estatisticas")
+    @Operation(summary = "Estatísticas de visualizações", description = "Visualizações do anúncio por hora (últimas 48) e por dia (últimos 90), " +
+            "em séries prontas para sparkline")
+    public ResponseEntity<?> estatisticas(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "estatisticas", anuncioService.estatisticas(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/excluir/{id}")
     @Operation(summary = "Excluir anúncio", description = "Exclui anúncio do sistema")
     public ResponseEntity<?> excluirAnuncio(@PathVariable Long id) {
@@ -66,13 +124,51 @@ public class AnuncioController {
     }
 
     @PutMapping("/expirar-anuncios")
-    @Operation(summary = "Expirar anúncios", description = "Scanea anúncios expirados e marca como EXPIRADO")
+    @Operation(summary = "Expirar anúncios", description = "Processa já a fila de anúncios vencidos (também corre automaticamente): " +
+            "renova os que o anunciante consegue pagar e marca os restantes como EXPIRADO")
     public ResponseEntity<?> expirarAnuncios() {
         try {
-            anuncioService.expirarAnuncios();
+            AnuncioExpiracaoService.Resumo resumo = anuncioService.expirarAnuncios();
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "message", "Anúncios vencidos foram expirados",
+                    "renovados", resumo.renovados(),
+                    "expirados", resumo.expirados()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/expiracao/estatisticas")
+    @Operation(summary = "Estatísticas da expiração", description = "Totais de anúncios renovados e expirados, atraso atual da fila " +
+            "de vencidos e duração e débito da última execução")
+    public ResponseEntity<?> estatisticasExpiracao() {
+        try {
             return ResponseEntity.ok(Map.of(
                     "success", true,
-                    "message", "Anúncios vencidos foram expirados"));
+                    "expiracao", anuncioService.estatisticasExpiracao()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/pagina")
+    @Operation(summary = "Listar anúncios (paginado)", description = "Anúncios do mais recente para o mais antigo, paginados por cursor. " +
+            "Filtro de estado opcional; include=imovel acrescenta os dados do imóvel a cada anúncio")
+    public ResponseEntity<?> listarPagina(
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite,
+            @RequestParam(value = "include", required = false) String include) {
+        try {
+            boolean incluirImovel = include != null && List.of(include.split(",")).contains("imovel");
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "anuncios", anuncioService.listarPagina(status, cursor, limite, incluirImovel)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
                     "success", false,
@@ -100,4 +196,36 @@ public class AnuncioController {
         List<Anuncio> anunciosPublicados = anuncioService.buscarAnunciosPublicados();
         return ResponseEntity.ok(anunciosPublicados);
     }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream de novos anúncios", description = "Server-Sent Events: envia um evento 'anuncio' (cartão do imóvel) sempre que é " +
+            "publicado um anúncio que corresponde aos filtros. Todos os filtros são opcionais")
+    public SseEmitter stream(
+            @RequestParam(value = "categoria", required = false) String categoria,
+            @RequestParam(value = "finalidade", required = false) String finalidade,
+            @RequestParam(value = "provincia", required = false) String provincia,
+            @RequestParam(value = "cidade", required = false) String cidade,
+            @RequestParam(value = "precoMin", required = false) BigDecimal precoMin,
+            @RequestParam(value = "precoMax", required = false) BigDecimal precoMax) {
+        ImovelFiltroDTO filtro = new ImovelFiltroDTO(precoMin, precoMax, null, null,
+                categoria, finalidade, provincia, cidade, null);
+        try {
+            return anuncioStreamService.subscrever(filtro);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    // Identifica o visitante para a contagem de únicos: conta, impressão digital do cliente ou IP + User-Agent
+    private static String chaveVisitante(Long idVisitante, String fingerprint, HttpServletRequest request) {
+        if (idVisitante != null) {
+            return "v:" + idVisitante;
+        }
+        if (fingerprint != null && !fingerprint.isBlank()) {
+            return "f:" + fingerprint.trim();
+        }
+        // Não lê X-Forwarded-For diretamente: o cliente controla-o. Atrás de um proxy de confiança,
+        // server.forward-headers-strategy faz o contentor refletir o IP real em getRemoteAddr()
+        return "a:" + request.getRemoteAddr() + "|" + request.getHeader("User-Agent");
+    }
 }
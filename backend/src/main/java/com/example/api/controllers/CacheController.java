@@ -0,0 +1,36 @@
+package com.example.api.controllers;
+
+import com.example.api.services.EntidadeCacheService;
+import com.example.api.services.SaldoCacheService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+@Tag(name = "Cache", description = "Estado das caches locais de entidades")
+public class CacheController {
+
+    @Autowired
+    private EntidadeCacheService entidadeCacheService;
+
+    @Autowired
+    private SaldoCacheService saldoCacheService;
+
+    @GetMapping("/estatisticas")
+    @Operation(summary = "Estatísticas das caches", description = "Entradas, acertos, falhas, taxa de acerto e remoções por cache (imóveis, localizações, anunciantes, saldos)")
+    public ResponseEntity<?> estatisticas() {
+        Map<String, Map<String, Object>> caches = new LinkedHashMap<>(entidadeCacheService.estatisticas());
+        caches.put("saldos", saldoCacheService.estatisticas());
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "caches", caches
+        ));
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.api.controllers;
-import com.example.api.entities.Credito;
 import com.example.api.services.AnuncianteService;
+import com.example.api.services.CreditoService;
+import com.example.api.services.IdempotenciaService;
+import com.example.api.services.SaldoCacheService;
 import com.example.api.services.VisitanteService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.math.BigDecimal;
 import java.util.Map;
 @RestController
@@ -18,30 +24,73 @@ public class CreditoController {
     private AnuncianteService anuncianteService;
     @Autowired
     private VisitanteService visitanteService;
+    @Autowired
+    private CreditoService creditoService;
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+    @Autowired
+    private ObjectMapper objectMapper;
     @GetMapping("/anunciante/{idAnunciante}")
     @Operation(summary = "Ver créditos", description = "Visualiza saldo de créditos")
     public ResponseEntity<?> visualizarCreditosAnunciante(@PathVariable Long idAnunciante) {
         try {
-            Credito credito = anuncianteService.buscarCreditosPorAnunciante(idAnunciante);
+            SaldoCacheService.Saldo saldo = creditoService.consultarSaldo(idAnunciante);
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "anunciante_id", idAnunciante,
-                "saldo_creditos", credito.getSaldo(),
-                "ultima_atualizacao", credito.getDataAtualizacao()
+                "saldo_creditos", saldo.saldo(),
+                "ultima_atualizacao", saldo.dataAtualizacao()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "error", e.getMessage()));
+        }
+    }
+    @GetMapping("/anunciante/{idAnunciante}/extrato")
+    @Operation(summary = "Extrato de créditos", description = "Movimentos do saldo (compras, pagamentos, anúncios e renovações), " +
+            "do mais recente para o mais antigo, com o saldo após cada movimento. Paginado por cursor")
+    public ResponseEntity<?> extrato(
+            @PathVariable Long idAnunciante,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "extrato", creditoService.extrato(idAnunciante, cursor, limite)
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("success", false, "error", e.getMessage()));
         }
     }
     @GetMapping("/todos")
-    @Operation(summary = "Listar saldos", description = "Lista saldos de todos anunciantes")
-    public ResponseEntity<?> listarTodosCreditos() {
+    @Operation(summary = "Listar saldos", description = "Lista saldos de todos anunciantes, transmitidos à medida que são lidos. " +
+            "ordenar=anunciante|saldo, direcao=asc|desc")
+    public ResponseEntity<StreamingResponseBody> listarTodosCreditos(
+            @RequestParam(value = "ordenar", required = false) String ordenar,
+            @RequestParam(value = "direcao", required = false) String direcao) {
+        try {
+            // Valida os parâmetros antes de começar a escrever a resposta
+            creditoService.validarOrdem(ordenar, direcao);
+        } catch (Exception e) {
+            String erro = e.getMessage();
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(saida ->
+                objectMapper.writeValue(saida, Map.of("success", false, "error", erro)));
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(saida ->
+            creditoService.transmitirSaldos(saida, ordenar, direcao));
+    }
+
+    @GetMapping("/todos/pagina")
+    @Operation(summary = "Listar saldos (paginado)", description = "Saldos de todos anunciantes paginados por cursor. " +
+            "ordenar=anunciante|saldo, direcao=asc|desc")
+    public ResponseEntity<?> listarSaldosPaginados(
+            @RequestParam(value = "ordenar", required = false) String ordenar,
+            @RequestParam(value = "direcao", required = false) String direcao,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
         try {
-            var creditos = anuncianteService.listarTodosCreditos();
             return ResponseEntity.ok(Map.of(
                 "success", true,
-                "creditos", creditos.isEmpty() ? "Nenhum crédito encontrado" : creditos,
-                "total_registros", creditos.size()
+                "creditos", creditoService.listarSaldos(ordenar, direcao, cursor, limite)
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("success", false, "error", e.getMessage()));
@@ -49,12 +98,20 @@ public class CreditoController {
     }
 
     @PostMapping("/comprar/anunciante/{idAnunciante}")
-    @Operation(summary = "Comprar créditos", description = "Compra créditos usando MPESA ou EMOLA (1 MZN = 1 crédito)")
+    @Operation(summary = "Comprar créditos", description = "Compra créditos usando MPESA ou EMOLA (1 MZN = 1 crédito). " +
+            "Com o cabeçalho Idempotency-Key, repetições do mesmo pedido devolvem a resposta original sem creditar de novo")
     public ResponseEntity<?> comprarCreditos(
             @PathVariable Long idAnunciante,
             @RequestParam Long idVisitante,
             @RequestParam String metodoPagamento,
-            @RequestParam BigDecimal valorPago) {
+            @RequestParam BigDecimal valorPago,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar("creditos/comprar", chaveIdempotencia,
+                () -> comprar(idAnunciante, idVisitante, metodoPagamento, valorPago),
+                idAnunciante, idVisitante, metodoPagamento, valorPago);
+    }
+
+    private ResponseEntity<?> comprar(Long idAnunciante, Long idVisitante, String metodoPagamento, BigDecimal valorPago) {
         try {
             if (!metodoPagamento.equals("MPESA") && !metodoPagamento.equals("EMOLA")) {
                 throw new RuntimeException("Método inválido. Use MPESA ou EMOLA");
@@ -64,6 +121,15 @@ public class CreditoController {
             }
             BigDecimal creditosComprados = valorPago;
             Map<String, Object> resultado = anuncianteService.comprarCreditosComRegistro(idAnunciante, creditosComprados, metodoPagamento, valorPago);
+            if (Boolean.TRUE.equals(resultado.get("retido"))) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                    "success", true,
+                    "message", "Compra retida para revisão; os créditos são adicionados se for aprovada",
+                    "anunciante_id", idAnunciante,
+                    "referencia", resultado.get("referencia"),
+                    "alerta_velocidade", resultado.get("alerta_velocidade")
+                ));
+            }
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Compra realizada (1 MZN = 1 crédito)",
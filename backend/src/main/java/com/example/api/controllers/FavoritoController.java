@@ -2,6 +2,8 @@
 package com.example.api.controllers;
 
 import com.example.api.dtos.FavoritoDTO;
+import com.example.api.dtos.FavoritoImovelDTO;
+import com.example.api.dtos.PaginaDTO;
 import com.example.api.services.FavoritoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -62,6 +64,23 @@ public class FavoritoController {
         return ResponseEntity.ok(favoritoService.getFavoritosByVisitante(idVisitante));
     }
 
+    @GetMapping("/visitante/{idVisitante}/imoveis")
+    @Operation(summary = "🏠 Listar imóveis favoritos", description = "Lista os favoritos de um visitante já com imóvel e localização, " +
+            "mais recentes primeiro. Devolve uma página {itens, proximoCursor, hasMore}")
+    public ResponseEntity<?> listarImoveisFavoritos(
+            @PathVariable Long idVisitante,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            PaginaDTO<FavoritoImovelDTO> pagina = favoritoService.listarImoveisFavoritos(idVisitante, cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/verificar")
     @Operation(summary = "✅ Verificar favorito", description = "Verifica se um imóvel está nos favoritos")
     public ResponseEntity<?> verificarFavorito(
@@ -1,15 +1,29 @@
 package com.example.api.controllers;
 
+import com.example.api.dtos.BuscarImoveisLoteDTO;
 import com.example.api.dtos.ImovelDTO;
+import com.example.api.dtos.ImovelFiltroDTO;
+import com.example.api.dtos.ImovelPesquisaDTO;
+import com.example.api.dtos.MapaPontoDTO;
+import com.example.api.dtos.PaginaDTO;
 import com.example.api.entities.Imovel;import com.example.api.entities.Anunciante;
+import com.example.api.entities.ImovelCard;
 import com.example.api.entities.ImovelImagem;
+import com.example.api.services.CatalogoVersaoService;
+import com.example.api.services.GeradorIdService;
+import com.example.api.services.ImovelBuscaTextoService;
+import com.example.api.services.ImovelCardService;
+import com.example.api.services.ImovelFacetaService;
 import com.example.api.services.ImovelService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
@@ -17,10 +31,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 import com.example.api.repositories.AnuncianteRepository;
@@ -44,9 +58,24 @@ public class ImovelController {
     @Autowired
     private ImovelService imovelService;
 
+    @Autowired
+    private GeradorIdService geradorIdService;
+
     @Autowired
     private AnuncianteRepository anuncianteRepository;
 
+    @Autowired
+    private ImovelBuscaTextoService imovelBuscaTextoService;
+
+    @Autowired
+    private ImovelFacetaService imovelFacetaService;
+
+    @Autowired
+    private ImovelCardService imovelCardService;
+
+    @Autowired
+    private CatalogoVersaoService catalogoVersaoService;
+
 
 
     @PostMapping(value = "/criar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -76,7 +105,7 @@ public class ImovelController {
                 Files.createDirectories(Paths.get(MAIN_IMAGES_DIR));
 
 
-                String fileName = UUID.randomUUID().toString() + "_main_" + imagemPrincipal.getOriginalFilename();
+                String fileName = geradorIdService.proximoNomeArquivo() + "_main_" + imagemPrincipal.getOriginalFilename();
                 Path filePath = Paths.get(MAIN_IMAGES_DIR + fileName);
                 Files.write(filePath, imagemPrincipal.getBytes());
                 mainImageUrl = "/uploads/properties/main/" + fileName;
@@ -113,13 +142,54 @@ public class ImovelController {
 
     @GetMapping("/buscar/{id}")
     @Operation(summary = "Buscar imóvel", description = "Consulta um registro na tabela imovel")
-    public ResponseEntity<?> buscarImovel(@PathVariable Long id) {
-        return imovelService.buscarImovel(id)
-                .map(imovel -> ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "imovel", imovel
-                )))
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> buscarImovel(@PathVariable Long id, WebRequest request) {
+        Optional<Imovel> imovelOpt = imovelService.consultarImovel(id);
+        if (imovelOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Imovel imovel = imovelOpt.get();
+        long ultimaModificacao = imovel.ultimaModificacao().toInstant().toEpochMilli();
+        if (request.checkNotModified("\"imovel-" + id + "-" + ultimaModificacao + "\"", ultimaModificacao)) {
+            return null;
+        }
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "imovel", imovel
+        ));
+    }
+
+    @GetMapping("/buscar")
+    @Operation(summary = "Buscar vários imóveis", description = "Consulta vários imóveis por id numa só consulta (máx. 200), pela ordem pedida. " +
+            "Ids inexistentes são devolvidos em 'nao_encontrados'")
+    public ResponseEntity<?> buscarImoveis(
+            @RequestParam("ids") List<Long> ids,
+            @RequestParam(value = "incluirLocalizacao", defaultValue = "false") boolean incluirLocalizacao,
+            @RequestParam(value = "incluirImagem", defaultValue = "false") boolean incluirImagem) {
+        return respostaLote(ids, incluirLocalizacao, incluirImagem);
+    }
+
+    @PostMapping("/buscar")
+    @Operation(summary = "Buscar vários imóveis (corpo)", description = "Igual a GET /buscar, com os ids no corpo do pedido para listas longas")
+    public ResponseEntity<?> buscarImoveisPorCorpo(@Valid @RequestBody BuscarImoveisLoteDTO pedido) {
+        return respostaLote(pedido.ids(),
+                Boolean.TRUE.equals(pedido.incluirLocalizacao()),
+                Boolean.TRUE.equals(pedido.incluirImagem()));
+    }
+
+    private ResponseEntity<?> respostaLote(List<Long> ids, boolean incluirLocalizacao, boolean incluirImagem) {
+        try {
+            ImovelService.ResultadoLote resultado = imovelService.buscarImoveisPorIds(ids, incluirLocalizacao, incluirImagem);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "imoveis", resultado.imoveis(),
+                "nao_encontrados", resultado.naoEncontrados()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
     }
 
     @PutMapping(value = "/atualizar/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -157,7 +227,7 @@ public class ImovelController {
 
 
                 Files.createDirectories(Paths.get(MAIN_IMAGES_DIR));
-                String fileName = UUID.randomUUID().toString() + "_main_" + imagemPrincipal.getOriginalFilename();
+                String fileName = geradorIdService.proximoNomeArquivo() + "_main_" + imagemPrincipal.getOriginalFilename();
                 Path filePath = Paths.get(MAIN_IMAGES_DIR + fileName);
                 Files.write(filePath, imagemPrincipal.getBytes());
                 newMainImageUrl = "/uploads/properties/main/" + fileName;
@@ -206,10 +276,162 @@ public class ImovelController {
 
 
     @GetMapping("/listar")
-    @Operation(summary = "Listar imóveis", description = "Lista todos registros de imóveis disponíveis")
-    public ResponseEntity<List<Imovel>> listarImoveis() {
-        List<Imovel> imoveis = imovelService.listarImoveis();
-        return ResponseEntity.ok(imoveis);
+    @Operation(summary = "Listar imóveis", description = "Lista imóveis disponíveis, mais recentes primeiro. " +
+            "Com 'limite' e/ou 'cursor' devolve uma página {itens, proximoCursor, hasMore}; sem parâmetros devolve a lista completa (legado)")
+    public ResponseEntity<?> listarImoveis(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite,
+            WebRequest request) {
+        // O ETag vem da geração partilhada do catálogo: um 304 só lê essa linha, sem consultar os imóveis
+        CatalogoVersaoService.Versao versao = catalogoVersaoService.versaoImoveis();
+        if (request.checkNotModified(versao.etag(), versao.ultimaAlteracaoMs())) {
+            return null;
+        }
+        if (cursor == null && limite == null) {
+            List<Imovel> imoveis = imovelService.listarImoveis();
+            return ResponseEntity.ok(imoveis);
+        }
+        try {
+            PaginaDTO<Imovel> pagina = imovelService.listarImoveisPaginado(cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/cards")
+    @Operation(summary = "Listar cartões de imóveis", description = "Lista imóveis disponíveis já com imagem de capa, localização e anúncio, " +
+            "lidos de uma única tabela. Devolve uma página {itens, proximoCursor, hasMore}")
+    public ResponseEntity<?> listarCards(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            PaginaDTO<ImovelCard> pagina = imovelCardService.listarDisponiveis(cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/cards/anunciante/{idAnunciante}")
+    @Operation(summary = "Listar cartões por anunciante", description = "Lista os cartões dos imóveis de um anunciante, mais recentes primeiro")
+    public ResponseEntity<?> listarCardsPorAnunciante(
+            @PathVariable Long idAnunciante,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            PaginaDTO<ImovelCard> pagina = imovelCardService.listarPorAnunciante(idAnunciante, cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/pesquisar")
+    @Operation(summary = "Pesquisar imóveis", description = "Pesquisa imóveis disponíveis por preço, área, categoria, finalidade e localização numa única consulta paginada. " +
+            "ordenar: recentes (padrão), preco_asc, preco_desc, area_asc, area_desc")
+    public ResponseEntity<?> pesquisarImoveis(
+            @RequestParam(value = "precoMin", required = false) BigDecimal precoMin,
+            @RequestParam(value = "precoMax", required = false) BigDecimal precoMax,
+            @RequestParam(value = "areaMin", required = false) BigDecimal areaMin,
+            @RequestParam(value = "areaMax", required = false) BigDecimal areaMax,
+            @RequestParam(value = "categoria", required = false) String categoria,
+            @RequestParam(value = "finalidade", required = false) String finalidade,
+            @RequestParam(value = "provincia", required = false) String provincia,
+            @RequestParam(value = "cidade", required = false) String cidade,
+            @RequestParam(value = "bairro", required = false) String bairro,
+            @RequestParam(value = "ordenar", required = false) String ordenar,
+            @RequestParam(value = "pagina", defaultValue = "0") int pagina,
+            @RequestParam(value = "tamanho", defaultValue = "20") int tamanho) {
+        try {
+            ImovelFiltroDTO filtro = new ImovelFiltroDTO(precoMin, precoMax, areaMin, areaMax,
+                    categoria, finalidade, provincia, cidade, bairro);
+            Page<ImovelPesquisaDTO> resultado = imovelService.pesquisarImoveis(filtro, ordenar, pagina, tamanho);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "imoveis", resultado.getContent(),
+                "pagina", resultado.getNumber(),
+                "tamanho", resultado.getSize(),
+                "total_elementos", resultado.getTotalElements(),
+                "total_paginas", resultado.getTotalPages()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/busca")
+    @Operation(summary = "Pesquisa de texto", description = "Pesquisa por palavras no título e descrição dos imóveis disponíveis (sem acentos, com plurais). " +
+            "Use aspas para frases exatas, ex: \"vista para o mar\"")
+    public ResponseEntity<?> buscarTexto(
+            @RequestParam("q") String q,
+            @RequestParam(value = "limite", defaultValue = "20") int limite) {
+        List<ImovelBuscaTextoService.ResultadoBusca> resultados =
+                imovelBuscaTextoService.pesquisar(q, Math.min(Math.max(limite, 1), 100));
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "resultados", resultados,
+            "total", resultados.size()
+        ));
+    }
+
+    @GetMapping("/facetas")
+    @Operation(summary = "Contagens por faceta", description = "Devolve contagens de imóveis por categoria, finalidade, statusImovel, provincia, cidade e faixaPreco, " +
+            "considerando os filtros ativos")
+    public ResponseEntity<?> contarFacetas(
+            @RequestParam(value = "categoria", required = false) String categoria,
+            @RequestParam(value = "finalidade", required = false) String finalidade,
+            @RequestParam(value = "statusImovel", required = false) String statusImovel,
+            @RequestParam(value = "provincia", required = false) String provincia,
+            @RequestParam(value = "cidade", required = false) String cidade,
+            @RequestParam(value = "faixaPreco", required = false) String faixaPreco) {
+        Map<String, String> filtros = new HashMap<>();
+        if (categoria != null) filtros.put(ImovelFacetaService.CATEGORIA, categoria);
+        if (finalidade != null) filtros.put(ImovelFacetaService.FINALIDADE, finalidade);
+        if (statusImovel != null) filtros.put(ImovelFacetaService.STATUS, statusImovel);
+        if (provincia != null) filtros.put(ImovelFacetaService.PROVINCIA, provincia);
+        if (cidade != null) filtros.put(ImovelFacetaService.CIDADE, cidade);
+        if (faixaPreco != null) filtros.put(ImovelFacetaService.FAIXA_PRECO, faixaPreco);
+
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "facetas", imovelFacetaService.contar(filtros)
+        ));
+    }
+
+    @GetMapping("/mapa")
+    @Operation(summary = "Imóveis no mapa", description = "Lista imóveis disponíveis com coordenadas dentro do retângulo visível do mapa")
+    public ResponseEntity<?> listarParaMapa(
+            @RequestParam("latMin") double latMin,
+            @RequestParam("latMax") double latMax,
+            @RequestParam("lngMin") double lngMin,
+            @RequestParam("lngMax") double lngMax,
+            @RequestParam(value = "limite", defaultValue = "500") int limite) {
+        try {
+            List<MapaPontoDTO> pontos = imovelService.listarParaMapa(latMin, latMax, lngMin, lngMax, limite);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "imoveis", pontos,
+                "total", pontos.size()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
     }
 
     @GetMapping("/anunciante/{idAnunciante}")
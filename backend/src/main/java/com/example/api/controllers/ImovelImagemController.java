@@ -1,11 +1,14 @@
 package com.example.api.controllers;
 import com.example.api.dtos.ImovelImagemDTO;
 import com.example.api.entities.ImovelImagem;
+import com.example.api.events.ImovelImagemAlteradaEvent;
 import com.example.api.repositories.ImovelImagemRepository;
+import com.example.api.services.GeradorIdService;
 import com.example.api.services.ImovelService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,7 +21,6 @@ import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/imovel_imagem")
@@ -32,7 +34,11 @@ public class ImovelImagemController {
     @Autowired
     private ImovelService imovelService;
     @Autowired
+    private GeradorIdService geradorIdService;
+    @Autowired
     private ImovelImagemRepository imagemRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     @PostMapping(value = "/adicionar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Adicionar imagem", description = "Sistema calcula ordem automaticamente")
     public ResponseEntity<?> adicionarImagem(
@@ -43,7 +49,7 @@ public class ImovelImagemController {
             Files.createDirectories(Paths.get(GALLERY_IMAGES_DIR));
             long currentCount = imagemRepository.countByImovel(idImovel);
             int ordemAutomatica = (int)currentCount;
-            String fileName = UUID.randomUUID().toString() + "_gallery_" + imagem.getOriginalFilename();
+            String fileName = geradorIdService.proximoNomeArquivo() + "_gallery_" + imagem.getOriginalFilename();
             Path filePath = Paths.get(GALLERY_IMAGES_DIR + fileName);
             Files.write(filePath, imagem.getBytes());
             ImovelImagem imagemGaleria = new ImovelImagem();
@@ -52,6 +58,7 @@ public class ImovelImagemController {
             imagemGaleria.setOrdem(ordemAutomatica);
             imagemGaleria.setDataCriacao(OffsetDateTime.now());
             ImovelImagem salva = imagemRepository.save(imagemGaleria);
+            eventPublisher.publishEvent(new ImovelImagemAlteradaEvent(idImovel));
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Imagem adicionada com sucesso",
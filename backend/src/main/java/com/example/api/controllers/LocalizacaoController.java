@@ -1,12 +1,15 @@
 package com.example.api.controllers;
 import com.example.api.entities.Localizacao;
 import com.example.api.dtos.LocalizacaoDTO;
+import com.example.api.services.CatalogoVersaoService;
+import com.example.api.services.LocalizacaoGeoService;
 import com.example.api.services.LocalizacaoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -17,6 +20,10 @@ import java.util.stream.Collectors;
 public class LocalizacaoController {
     @Autowired
     private LocalizacaoService localizacaoService;
+    @Autowired
+    private LocalizacaoGeoService localizacaoGeoService;
+    @Autowired
+    private CatalogoVersaoService catalogoVersaoService;
     @PostMapping("/criar")
     @Operation(summary = "Criar localizacao", description = "Cria nova localizacao")
     public ResponseEntity<?> criar(@RequestBody LocalizacaoDTO dto) {
@@ -27,6 +34,8 @@ public class LocalizacaoController {
             localizacao.setCidade(dto.getCidade());
             localizacao.setBairro(dto.getBairro());
             localizacao.setIdImovel(dto.getIdImovel());
+            localizacao.setLatitude(dto.getLatitude());
+            localizacao.setLongitude(dto.getLongitude());
             Localizacao salva = localizacaoService.salvar(localizacao);
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -38,6 +47,17 @@ public class LocalizacaoController {
         }
     }
 
+    @GetMapping("/imovel/{idImovel}")
+    @Operation(summary = "Buscar por imovel", description = "Devolve a localizacao de um imovel")
+    public ResponseEntity<?> buscarPorImovel(@PathVariable Long idImovel) {
+        return localizacaoService.buscarPorImovel(idImovel)
+                .map(localizacao -> ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "localizacao", new LocalizacaoDTO(localizacao)
+                )))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/provincia/{provincia}")
     @Operation(summary = "Buscar por provincia", description = "Lista localizacoes por provincia")
     public ResponseEntity<List<LocalizacaoDTO>> buscarPorProvincia(@PathVariable String provincia) {
@@ -53,9 +73,35 @@ public class LocalizacaoController {
         return ResponseEntity.ok(localizacoes);
     }
 
+    @GetMapping("/proximos")
+    @Operation(summary = "Imoveis proximos", description = "Com raioKm lista as localizacoes dentro do raio ordenadas por distancia; " +
+            "sem raioKm devolve as 'limite' localizacoes mais proximas")
+    public ResponseEntity<?> buscarProximos(
+            @RequestParam("lat") double lat,
+            @RequestParam("lng") double lng,
+            @RequestParam(value = "raioKm", required = false) Double raioKm,
+            @RequestParam(value = "limite", defaultValue = "20") int limite) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "error", "Coordenadas inválidas"));
+        }
+        int limiteEfetivo = Math.min(Math.max(limite, 1), 200);
+        List<LocalizacaoGeoService.PontoDistancia> proximos = raioKm != null
+            ? localizacaoGeoService.buscarNoRaio(lat, lng, Math.min(Math.max(raioKm, 0), 500), limiteEfetivo)
+            : localizacaoGeoService.buscarMaisProximos(lat, lng, limiteEfetivo);
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "localizacoes", proximos,
+            "total", proximos.size()
+        ));
+    }
+
     @GetMapping("/listar")
     @Operation(summary = "Listar todas", description = "Lista todas as localizacoes")
-    public ResponseEntity<List<LocalizacaoDTO>> listarTodos() {
+    public ResponseEntity<List<LocalizacaoDTO>> listarTodos(WebRequest request) {
+        CatalogoVersaoService.Versao versao = catalogoVersaoService.versaoLocalizacoes();
+        if (request.checkNotModified(versao.etag(), versao.ultimaAlteracaoMs())) {
+            return null;
+        }
         List<LocalizacaoDTO> localizacoes = localizacaoService.listarTodos()
             .stream().map(LocalizacaoDTO::new).collect(Collectors.toList());
         return ResponseEntity.ok(localizacoes);
@@ -70,6 +116,14 @@ public class LocalizacaoController {
                 existing.setCidade(dto.getCidade());
                 existing.setBairro(dto.getBairro());
                 if (dto.getIdImovel() != null) existing.setIdImovel(dto.getIdImovel());
+                // Coordenadas só mudam em par: uma sem a outra deixaria o ponto (e o índice) inconsistente
+                if ((dto.getLatitude() == null) != (dto.getLongitude() == null)) {
+                    throw new RuntimeException("Latitude e longitude devem ser enviadas juntas");
+                }
+                if (dto.getLatitude() != null) {
+                    existing.setLatitude(dto.getLatitude());
+                    existing.setLongitude(dto.getLongitude());
+                }
                 Localizacao salva = localizacaoService.salvar(existing);
                 return ResponseEntity.ok(Map.of(
                     "success", true,
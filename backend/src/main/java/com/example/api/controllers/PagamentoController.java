@@ -2,18 +2,25 @@ package com.example.api.controllers;
 
 import com.example.api.dtos.*;
 import com.example.api.entities.Anunciante;
-import com.example.api.entities.Credito;
 import com.example.api.entities.Pagamento;
 import com.example.api.repositories.AnuncianteRepository;
-import com.example.api.repositories.CreditoRepository;
+import com.example.api.services.IdempotenciaService;
+import com.example.api.services.SaldoCacheService;
+import com.example.api.services.VelocidadeCompraService;
+import com.example.api.services.PagamentoConfirmacaoService;
+import com.example.api.services.PagamentoPipelineService;
 import com.example.api.services.PagamentoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -32,11 +39,34 @@ public class PagamentoController {
     private AnuncianteRepository anuncianteRepository;
 
     @Autowired
-    private CreditoRepository creditoRepository;
+    private SaldoCacheService saldoCacheService;
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private PagamentoConfirmacaoService pagamentoConfirmacaoService;
+
+    @Autowired
+    private PagamentoPipelineService pagamentoPipelineService;
+
+    @Autowired
+    private VelocidadeCompraService velocidadeCompraService;
+
+    @Value("${app.pagamentos.callback-token:}")
+    private String tokenCallback;
 
     @PostMapping("/processar")
-    @Operation(summary = "Processar pagamento", description = "Processa um pagamento e automaticamente converte visitante em anunciante se necessário")
-    public ResponseEntity<?> processarPagamento(@Valid @RequestBody ProcessarPagamentoDTO request) {
+    @Operation(summary = "Processar pagamento", description = "Processa um pagamento e automaticamente converte visitante em anunciante se necessário. " +
+            "Com o cabeçalho Idempotency-Key, repetições do mesmo pedido devolvem a resposta original sem novo pagamento")
+    public ResponseEntity<?> processarPagamento(
+            @Valid @RequestBody ProcessarPagamentoDTO request,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar("pagamentos/processar", chaveIdempotencia, () -> processar(request),
+                request.visitanteId(), request.valor(), request.metodoPagamento());
+    }
+
+    private ResponseEntity<?> processar(ProcessarPagamentoDTO request) {
         try {
             Pagamento pagamento = pagamentoService.processarPagamento(
                 request.visitanteId(),
@@ -46,13 +76,16 @@ public class PagamentoController {
             );
 
             Anunciante anunciante = pagamento.getAnunciante();
-            Optional<Credito> creditoOpt = creditoRepository.findByAnunciante(anunciante);
+            Optional<CreditoDTO> credito = saldoCacheService.consultar(anunciante.getId())
+                .map(saldo -> new CreditoDTO(saldo.idCredito(), anunciante.getId(), saldo.saldo(), saldo.dataAtualizacao()));
 
             PagamentoResponseDTO response = new PagamentoResponseDTO(
                 new PagamentoDTO(pagamento),
                 new AnuncianteDTO(anunciante),
-                creditoOpt.map(CreditoDTO::new).orElse(null),
-                "Pagamento processado com sucesso. Visitante convertido em anunciante."
+                credito.orElse(null),
+                "RETIDO".equals(pagamento.getStatusPagamento())
+                    ? "Pagamento retido para revisão. Os créditos são adicionados se for aprovado e confirmado."
+                    : "Pagamento registado e enviado para confirmação. Os créditos são adicionados quando o pagamento for confirmado."
             );
 
             return ResponseEntity.ok(response);
@@ -64,6 +97,93 @@ public class PagamentoController {
         }
     }
 
+    @PostMapping("/callback")
+    @Operation(summary = "Callback do gateway", description = "Resultado assíncrono de um pagamento (MPESA/EMOLA). Confirma e credita o saldo " +
+            "uma única vez, mesmo que o gateway repita o callback")
+    public ResponseEntity<?> callback(
+            @Valid @RequestBody CallbackPagamentoDTO request,
+            @RequestHeader(value = "X-Gateway-Token", required = false) String token) {
+        // Sem token configurado o callback HTTP fica desativado: o simulador confirma sem passar por aqui
+        if (tokenCallback.isBlank()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of(
+                "success", false,
+                "error", "Callback do gateway desativado: app.pagamentos.callback-token não configurado"
+            ));
+        }
+        if (token == null || !MessageDigest.isEqual(
+                tokenCallback.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                "success", false,
+                "error", "Token do gateway inválido"
+            ));
+        }
+        try {
+            PagamentoConfirmacaoService.Resultado resultado = pagamentoConfirmacaoService.registrarResultado(
+                request.referencia(), "CONFIRMADO".equals(request.status()), request.transacaoGateway());
+            if (resultado == PagamentoConfirmacaoService.Resultado.NAO_ENCONTRADO) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "success", false,
+                    "error", "Pagamento não encontrado"
+                ));
+            }
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "resultado", resultado
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/pipeline/estatisticas")
+    @Operation(summary = "Estatísticas do pipeline", description = "Profundidade da fila, workers ativos, pagamentos submetidos, confirmados e " +
+            "falhados, e latências do gateway e da confirmação")
+    public ResponseEntity<?> estatisticasPipeline() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "pipeline", pagamentoPipelineService.estatisticas()
+        ));
+    }
+
+    @PutMapping("/{idPagamento}/liberar")
+    @Operation(summary = "Libertar pagamento retido", description = "Envia ao gateway um pagamento retido pelas regras de velocidade")
+    public ResponseEntity<?> liberarPagamento(@PathVariable Long idPagamento) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "pagamento", new PagamentoDTO(pagamentoService.liberarPagamento(idPagamento))
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{idPagamento}/recusar")
+    @Operation(summary = "Recusar pagamento retido", description = "Marca como FALHADO um pagamento retido pelas regras de velocidade")
+    public ResponseEntity<?> recusarPagamento(@PathVariable Long idPagamento) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "pagamento", new PagamentoDTO(pagamentoService.recusarPagamento(idPagamento))
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/velocidade/estatisticas")
+    @Operation(summary = "Estatísticas de velocidade", description = "Regras ativas, anunciantes com compras na janela e compras avaliadas, " +
+            "sinalizadas e retidas")
+    public ResponseEntity<?> estatisticasVelocidade() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "velocidade", velocidadeCompraService.estatisticas()
+        ));
+    }
+
     @GetMapping
     @Operation(summary = "Listar pagamentos", description = "Retorna todos os pagamentos ou pagamentos de um anunciante específico")
     public ResponseEntity<List<PagamentoDTO>> listarPagamentos(@RequestParam(required = false) Long anuncianteId) {
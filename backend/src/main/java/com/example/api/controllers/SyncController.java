@@ -0,0 +1,39 @@
+package com.example.api.controllers;
+
+import com.example.api.dtos.SincronizacaoDTO;
+import com.example.api.services.SincronizacaoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sync")
+@CrossOrigin(origins = "*")
+@Tag(name = "Sincronização", description = "Sincronização incremental do catálogo para a app móvel")
+public class SyncController {
+
+    @Autowired
+    private SincronizacaoService sincronizacaoService;
+
+    @GetMapping("/imoveis")
+    @Operation(summary = "Alterações do catálogo", description = "Devolve imóveis, localizações e galerias alterados desde o token 'since', " +
+            "com tombstones para os removidos. Sem 'since' devolve o catálogo completo, em páginas. Repetir com o novo token enquanto hasMore = true; " +
+            "se resyncCompleto = true, apagar a cópia local e recomeçar sem 'since'")
+    public ResponseEntity<?> sincronizarImoveis(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            SincronizacaoDTO alteracoes = sincronizacaoService.sincronizar(since, limite);
+            return ResponseEntity.ok(alteracoes);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.api.controllers;
 import com.example.api.entities.Visitante;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.events.VisitanteAlteradoEvent;
 import com.example.api.repositories.VisitanteRepository;
 import com.example.api.services.VisitanteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
@@ -20,6 +23,8 @@ public class VisitanteController {
     private VisitanteRepository visitanteRepository;
     @Autowired
     private VisitanteService visitanteService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     @GetMapping("/buscar/{id}")
     @Operation(summary = "Buscar visitante", description = "Consulta registro")
     public ResponseEntity<?> buscarPorId(@PathVariable Long id) {
@@ -65,6 +70,7 @@ public class VisitanteController {
                     visitante.setSenhaHash(new org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder().encode(senha.trim()));
                 }
                 Visitante salvo = visitanteRepository.save(visitante);
+                eventPublisher.publishEvent(new VisitanteAlteradoEvent(salvo.getId(), TipoAlteracao.ATUALIZADO));
                 return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Atualizado com sucesso (todos os campos exceto código verificação)",
@@ -90,6 +96,7 @@ public class VisitanteController {
         try {
             if (visitanteRepository.existsById(id)) {
                 visitanteRepository.deleteById(id);
+                eventPublisher.publishEvent(new VisitanteAlteradoEvent(id, TipoAlteracao.REMOVIDO));
                 return ResponseEntity.ok(Map.of("success", true, "message", "Deletado"));
             } else {
                 return ResponseEntity.notFound().build();
@@ -0,0 +1,17 @@
+package com.example.api.dtos;
+
+import com.example.api.entities.ImovelCard;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Anúncio do feed 'em alta', com a pontuação de popularidade atual e o cartão do imóvel")
+public record AnuncioEmAltaDTO(
+    @Schema(description = "ID do anúncio", example = "12")
+    Long idAnuncio,
+
+    @Schema(description = "Pontuação com decaimento exponencial (visualizações, favoritos e marcações ponderados)", example = "37.5")
+    double pontuacao,
+
+    @Schema(description = "Cartão do imóvel anunciado")
+    ImovelCard imovel
+) {
+}
@@ -0,0 +1,48 @@
+package com.example.api.dtos;
+
+import com.example.api.entities.Imovel;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Schema(description = "Anúncio em listagens paginadas; o imóvel só é incluído quando pedido (include=imovel)")
+public record AnuncioResumoDTO(
+    @Schema(description = "ID do anúncio", example = "12")
+    Long idAnuncio,
+
+    @Schema(description = "ID do imóvel anunciado", example = "42")
+    Long idImovel,
+
+    @Schema(description = "Estado do anúncio", example = "PUBLICADO")
+    String statusAnuncio,
+
+    @Schema(description = "Data de publicação")
+    LocalDateTime dataPublicacao,
+
+    @Schema(description = "Data de expiração")
+    LocalDateTime dataExpiracao,
+
+    @Schema(description = "Total de visualizações", example = "137")
+    Integer visualizacoes,
+
+    @Schema(description = "Custo do anúncio em créditos", example = "50")
+    BigDecimal custoCredito,
+
+    @Schema(description = "Dados do imóvel (null se não pedido)")
+    Imovel imovel
+) {
+    // Usado pela projeção JPQL sem o imóvel em AnuncioRepository
+    public AnuncioResumoDTO(Long idAnuncio, Long idImovel, String statusAnuncio, LocalDateTime dataPublicacao,
+                            LocalDateTime dataExpiracao, Integer visualizacoes, BigDecimal custoCredito) {
+        this(idAnuncio, idImovel, statusAnuncio, dataPublicacao, dataExpiracao, visualizacoes, custoCredito, null);
+    }
+
+    public AnuncioResumoDTO comVisualizacoesPendentes(long pendentes) {
+        if (pendentes == 0) {
+            return this;
+        }
+        int total = (int) Math.min(Integer.MAX_VALUE, (visualizacoes != null ? visualizacoes : 0) + pendentes);
+        return new AnuncioResumoDTO(idAnuncio, idImovel, statusAnuncio, dataPublicacao, dataExpiracao, total, custoCredito, imovel);
+    }
+}
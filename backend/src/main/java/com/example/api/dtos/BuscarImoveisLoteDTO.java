@@ -0,0 +1,20 @@
+package com.example.api.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+@Schema(description = "Pedido de pesquisa de vários imóveis por id")
+public record BuscarImoveisLoteDTO(
+    @Schema(description = "IDs dos imóveis, pela ordem em que devem ser devolvidos", example = "[12, 7, 31]", required = true)
+    @NotEmpty(message = "A lista de ids é obrigatória")
+    List<Long> ids,
+
+    @Schema(description = "Incluir a localização de cada imóvel", example = "true")
+    Boolean incluirLocalizacao,
+
+    @Schema(description = "Incluir a primeira imagem da galeria de cada imóvel", example = "true")
+    Boolean incluirImagem
+) {
+}
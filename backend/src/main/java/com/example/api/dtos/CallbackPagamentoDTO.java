@@ -0,0 +1,21 @@
+package com.example.api.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+@Schema(description = "Resultado de um pagamento enviado pelo gateway (MPESA/EMOLA)")
+public record CallbackPagamentoDTO(
+    @Schema(description = "Referência do pagamento", example = "MZMPA1B2C3D4", required = true)
+    @NotBlank(message = "Referência é obrigatória")
+    String referencia,
+
+    @Schema(description = "Resultado da cobrança", example = "CONFIRMADO", allowableValues = {"CONFIRMADO", "FALHADO"}, required = true)
+    @NotBlank(message = "Status é obrigatório")
+    @Pattern(regexp = "CONFIRMADO|FALHADO", message = "Status deve ser CONFIRMADO ou FALHADO")
+    String status,
+
+    @Schema(description = "Identificador da transação no gateway", example = "MP240101.1234.A12345")
+    String transacaoGateway
+) {
+}
@@ -0,0 +1,28 @@
+package com.example.api.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Mesmas chaves que a listagem /api/creditos/todos sempre devolveu
+@Schema(description = "Saldo de créditos de um anunciante")
+public record CreditoSaldoDTO(
+    @JsonProperty("anunciante_id")
+    @Schema(description = "ID do anunciante", example = "7")
+    Long anuncianteId,
+
+    @JsonProperty("anunciante_nome")
+    @Schema(description = "Nome do anunciante", example = "Ana Machava")
+    String anuncianteNome,
+
+    @JsonProperty("saldo_creditos")
+    @Schema(description = "Saldo atual em créditos", example = "150")
+    BigDecimal saldoCreditos,
+
+    @JsonProperty("data_atualizacao")
+    @Schema(description = "Última alteração do saldo")
+    LocalDateTime dataAtualizacao
+) {
+}
@@ -0,0 +1,27 @@
+package com.example.api.dtos;
+
+import com.example.api.entities.Imovel;
+import com.example.api.entities.Localizacao;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "Favorito de um visitante com o imóvel e a localização já preenchidos")
+public record FavoritoImovelDTO(
+    @Schema(description = "ID do favorito")
+    Long idFavorito,
+
+    @Schema(description = "Data em que o imóvel foi adicionado aos favoritos")
+    LocalDateTime dataRegistro,
+
+    @Schema(description = "Dados do imóvel")
+    Imovel imovel,
+
+    @Schema(description = "Localização do imóvel (null se ainda não registada)")
+    LocalizacaoDTO localizacao
+) {
+    // Usado pela projeção JPQL em FavoritoRepository
+    public FavoritoImovelDTO(Long idFavorito, LocalDateTime dataRegistro, Imovel imovel, Localizacao localizacao) {
+        this(idFavorito, dataRegistro, imovel, localizacao != null ? new LocalizacaoDTO(localizacao) : null);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.api.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Filtros de pesquisa de imóveis (todos opcionais)")
+public record ImovelFiltroDTO(
+    @Schema(description = "Preço mínimo em MZN", example = "1000000")
+    BigDecimal precoMin,
+
+    @Schema(description = "Preço máximo em MZN", example = "5000000")
+    BigDecimal precoMax,
+
+    @Schema(description = "Área mínima em m²", example = "80")
+    BigDecimal areaMin,
+
+    @Schema(description = "Área máxima em m²", example = "300")
+    BigDecimal areaMax,
+
+    @Schema(description = "Categoria", example = "Casa")
+    String categoria,
+
+    @Schema(description = "Finalidade", example = "VENDA")
+    String finalidade,
+
+    @Schema(description = "Província", example = "Maputo")
+    String provincia,
+
+    @Schema(description = "Cidade", example = "Maputo")
+    String cidade,
+
+    @Schema(description = "Bairro", example = "Sommerschield")
+    String bairro
+) {
+    public boolean temFiltroLocalizacao() {
+        return provincia != null || cidade != null || bairro != null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.api.dtos;
+
+import com.example.api.entities.Imovel;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Imóvel devolvido pela pesquisa em lote, com localização e primeira imagem da galeria opcionais")
+public record ImovelLoteDTO(
+    @Schema(description = "Dados do imóvel")
+    Imovel imovel,
+
+    @Schema(description = "Localização do imóvel (null se não pedida ou não registada)")
+    LocalizacaoDTO localizacao,
+
+    @Schema(description = "URL da primeira imagem da galeria (null se não pedida ou sem galeria)")
+    String imagemUrl
+) {
+}
@@ -0,0 +1,14 @@
+package com.example.api.dtos;
+
+import com.example.api.entities.Imovel;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Imóvel com a respetiva localização")
+public record ImovelPesquisaDTO(
+    @Schema(description = "Dados do imóvel")
+    Imovel imovel,
+
+    @Schema(description = "Localização do imóvel (null se ainda não registada)")
+    LocalizacaoDTO localizacao
+) {
+}
@@ -7,6 +7,8 @@ public class LocalizacaoDTO {
     private String cidade;
     private String bairro;
     private Long idImovel;
+    private Double latitude;
+    private Double longitude;
 
     public LocalizacaoDTO() {}
 
@@ -16,6 +18,8 @@ public class LocalizacaoDTO {
         this.cidade = localizacao.getCidade();
         this.bairro = localizacao.getBairro();
         this.idImovel = localizacao.getIdImovel();
+        this.latitude = localizacao.getLatitude();
+        this.longitude = localizacao.getLongitude();
     }
 
     public String getPais() {
@@ -57,4 +61,20 @@ public class LocalizacaoDTO {
     public void setIdImovel(Long idImovel) {
         this.idImovel = idImovel;
     }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
 }
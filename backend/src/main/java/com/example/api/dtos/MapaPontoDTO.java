@@ -0,0 +1,33 @@
+package com.example.api.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Marcador de imóvel no mapa")
+public record MapaPontoDTO(
+    @Schema(description = "ID do imóvel", example = "1")
+    Long idImovel,
+
+    @Schema(description = "Latitude", example = "-25.9692")
+    double latitude,
+
+    @Schema(description = "Longitude", example = "32.5732")
+    double longitude,
+
+    @Schema(description = "Título do imóvel", example = "Casa Moderna Centro Maputo")
+    String titulo,
+
+    @Schema(description = "Preço em MZN", example = "5000000.00")
+    BigDecimal precoMzn,
+
+    @Schema(description = "Categoria", example = "Casa")
+    String categoria,
+
+    @Schema(description = "Finalidade", example = "VENDA")
+    String finalidade,
+
+    @Schema(description = "URL da imagem principal", example = "/uploads/properties/main_123.jpg")
+    String imagemPrincipalUrl
+) {
+}
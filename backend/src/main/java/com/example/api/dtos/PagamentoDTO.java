@@ -14,7 +14,10 @@ public record PagamentoDTO(
         String referencia,
         LocalDateTime dataPagamento,
         String statusPagamento,
-        String comprovanteUrl
+        String comprovanteUrl,
+        LocalDateTime dataConfirmacao,
+        String alertaVelocidade,
+        LocalDateTime dataLiberacao
 ) {
     public PagamentoDTO(Pagamento pagamento) {
         this(
@@ -26,7 +29,10 @@ public record PagamentoDTO(
                 pagamento.getReferencia(),
                 pagamento.getDataPagamento(),
                 pagamento.getStatusPagamento(),
-                pagamento.getComprovanteUrl()
+                pagamento.getComprovanteUrl(),
+                pagamento.getDataConfirmacao(),
+                pagamento.getAlertaVelocidade(),
+                pagamento.getDataLiberacao()
         );
     }
 }
@@ -0,0 +1,18 @@
+package com.example.api.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Página de resultados paginada por cursor")
+public record PaginaDTO<T>(
+    @Schema(description = "Itens da página")
+    List<T> itens,
+
+    @Schema(description = "Cursor opaco para pedir a página seguinte (null quando não há mais)", example = "MjAyNS0xMS0xNlQxNTozMDowMFp8NDI")
+    String proximoCursor,
+
+    @Schema(description = "Indica se existem mais itens depois desta página", example = "true")
+    boolean hasMore
+) {
+}
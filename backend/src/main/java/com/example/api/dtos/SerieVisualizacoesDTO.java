@@ -0,0 +1,21 @@
+package com.example.api.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.OffsetDateTime;
+
+@Schema(description = "Série temporal de visualizações, pronta para sparkline")
+public record SerieVisualizacoesDTO(
+    @Schema(description = "Intervalo de cada ponto: HORA ou DIA", example = "HORA")
+    String intervalo,
+
+    @Schema(description = "Início do primeiro ponto da série")
+    OffsetDateTime inicio,
+
+    @Schema(description = "Visualizações por intervalo, do mais antigo para o mais recente")
+    int[] valores,
+
+    @Schema(description = "Soma dos valores da série", example = "1250")
+    long total
+) {
+}
@@ -0,0 +1,35 @@
+package com.example.api.dtos;
+
+import com.example.api.entities.Imovel;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Map;
+
+@Schema(description = "Alterações do catálogo desde o último token do cliente")
+public record SincronizacaoDTO(
+    @Schema(description = "Token a enviar no próximo pedido (parâmetro since)")
+    String token,
+
+    @Schema(description = "Existem mais alterações; repetir o pedido com o novo token")
+    boolean hasMore,
+
+    @Schema(description = "O token expirou: o cliente deve apagar a cópia local e sincronizar sem since")
+    boolean resyncCompleto,
+
+    @Schema(description = "Imóveis disponíveis criados ou alterados (estado atual completo)")
+    List<Imovel> imoveis,
+
+    @Schema(description = "Localizações criadas ou alteradas")
+    List<LocalizacaoDTO> localizacoes,
+
+    @Schema(description = "Galerias alteradas, por id de imóvel; cada lista substitui a galeria inteira")
+    Map<Long, List<ImovelImagemDTO>> galerias,
+
+    @Schema(description = "Imóveis a remover da cópia local (apagados ou já não disponíveis), com a localização e a galeria")
+    List<Long> imoveisRemovidos,
+
+    @Schema(description = "Ids de imóvel cuja localização foi apagada")
+    List<Long> localizacoesRemovidas
+) {
+}
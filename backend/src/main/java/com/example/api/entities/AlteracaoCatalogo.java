@@ -0,0 +1,61 @@
+package com.example.api.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Registo de alterações do catálogo usado pela sincronização incremental. A chave
+ * primária é a sequência monotónica que serve de token aos clientes. Cada escrita
+ * apaga o registo anterior da mesma entidade, pelo que o registo guarda no máximo uma
+ * linha (a mais recente) por imóvel, localização ou galeria.
+ *
+ * id_transacao é o txid da transação que escreveu a linha (preenchido pela base de dados): a
+ * sincronização só entrega linhas de transações já terminadas, pela ordem (id_transacao, id_alteracao).
+ */
+@Entity
+@Table(name = "alteracao_catalogo", indexes = {
+        @Index(name = "idx_alteracao_catalogo_entidade_imovel", columnList = "entidade, id_imovel"),
+        @Index(name = "idx_alteracao_catalogo_tipo_data", columnList = "tipo, data_registro"),
+        @Index(name = "idx_alteracao_catalogo_transacao", columnList = "id_transacao, id_alteracao")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class AlteracaoCatalogo {
+
+    public static final String IMOVEL = "IMOVEL";
+    public static final String LOCALIZACAO = "LOCALIZACAO";
+    public static final String GALERIA = "GALERIA";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_alteracao")
+    private Long idAlteracao;
+
+    // IMOVEL, LOCALIZACAO ou GALERIA; todas identificadas pelo imóvel a que pertencem
+    @Column(name = "entidade", nullable = false, length = 20)
+    private String entidade;
+
+    @Column(name = "id_imovel", nullable = false)
+    private Long idImovel;
+
+    @Column(name = "tipo", nullable = false, length = 20)
+    private String tipo;
+
+    @Column(name = "id_transacao", insertable = false, updatable = false,
+            columnDefinition = "bigint NOT NULL DEFAULT txid_current()")
+    private Long idTransacao;
+
+    @Column(name = "data_registro", nullable = false)
+    private OffsetDateTime dataRegistro = OffsetDateTime.now();
+
+    public AlteracaoCatalogo(String entidade, Long idImovel, String tipo) {
+        this.entidade = entidade;
+        this.idImovel = idImovel;
+        this.tipo = tipo;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.api.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -9,7 +11,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "anuncio")
+@Table(name = "anuncio", indexes = {
+        @Index(name = "idx_anuncio_status_data_expiracao", columnList = "status_anuncio, data_expiracao"),
+        @Index(name = "idx_anuncio_status_data_publicacao_id", columnList = "status_anuncio, data_publicacao DESC, id_anuncio DESC")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,7 +29,9 @@ public class Anuncio {
     @Column(name = "id_imovel", nullable = false, insertable = false, updatable = false)
     private Long idImovel;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // LAZY: as listagens usam projeções ou um fetch join explícito (AnuncioRepository)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     @JoinColumn(name = "id_imovel", referencedColumnName = "id_imovel")
     private Imovel imovel;
 
@@ -37,9 +44,22 @@ public class Anuncio {
     @Column(name = "visualizacoes")
     private Integer visualizacoes = 0;
 
+    // Visualizações registadas em memória e ainda não gravadas (AnuncioVisualizacaoService)
+    @Transient
+    @JsonIgnore
+    private long visualizacoesPendentes;
+
     @Column(name = "data_expiracao")
     private LocalDateTime dataExpiracao;
 
     @Column(name = "custo_credito", nullable = false)
     private BigDecimal custoCredito = new BigDecimal("50");
+
+    // O JPA usa acesso por campo; o getter devolve o total visível, com as pendentes
+    public Integer getVisualizacoes() {
+        if (visualizacoes == null) {
+            return visualizacoesPendentes > 0 ? (int) visualizacoesPendentes : null;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, visualizacoes + visualizacoesPendentes);
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.api.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Esboço HyperLogLog dos visitantes de um anúncio num dia (ver services.HyperLogLog).
+ * Os esboços diários são fundidos para obter visitantes únicos em 7 ou 30 dias.
+ */
+@Entity
+@Table(name = "anuncio_visitantes_sketch", indexes = {
+        @Index(name = "idx_anuncio_visitantes_sketch_dia", columnList = "dia")
+})
+@IdClass(AnuncioVisitantesSketch.Chave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class AnuncioVisitantesSketch {
+
+    @Id
+    @Column(name = "id_anuncio")
+    private Long idAnuncio;
+
+    @Id
+    @Column(name = "dia")
+    private LocalDate dia;
+
+    @Column(name = "registros", nullable = false, columnDefinition = "bytea")
+    private byte[] registros;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Chave implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long idAnuncio;
+        private LocalDate dia;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.api.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Visualizações agregadas por anúncio e intervalo (hora ou dia). Escrito em lote pelo
+ * AnuncioEstatisticaService com upserts aditivos; nunca uma linha por visualização.
+ */
+@Entity
+@Table(name = "anuncio_visualizacao_rollup", indexes = {
+        @Index(name = "idx_anuncio_visualizacao_rollup_granularidade_inicio", columnList = "granularidade, inicio")
+})
+@IdClass(AnuncioVisualizacaoRollup.Chave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class AnuncioVisualizacaoRollup {
+
+    public static final String HORA = "H";
+    public static final String DIA = "D";
+
+    @Id
+    @Column(name = "id_anuncio")
+    private Long idAnuncio;
+
+    @Id
+    @Column(name = "granularidade", length = 1)
+    private String granularidade;
+
+    @Id
+    @Column(name = "inicio")
+    private OffsetDateTime inicio;
+
+    @Column(name = "visualizacoes", nullable = false)
+    private Integer visualizacoes = 0;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Chave implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long idAnuncio;
+        private String granularidade;
+        private OffsetDateTime inicio;
+    }
+}
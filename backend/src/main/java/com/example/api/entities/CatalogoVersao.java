@@ -0,0 +1,31 @@
+package com.example.api.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Geração partilhada de cada listagem do catálogo (imoveis, localizacoes), usada como ETag e
+ * Last-Modified. Incrementada pelo CatalogoVersaoService depois do commit de cada escrita, em
+ * qualquer instância.
+ */
+@Entity
+@Table(name = "catalogo_versao")
+@Getter
+@Setter
+@NoArgsConstructor
+public class CatalogoVersao {
+
+    @Id
+    @Column(name = "nome", length = 40)
+    private String nome;
+
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
+    @Column(name = "data_alteracao", nullable = false)
+    private OffsetDateTime dataAlteracao;
+}
@@ -0,0 +1,50 @@
+package com.example.api.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Resposta guardada para um cabeçalho Idempotency-Key. A linha é reclamada (EM_CURSO) antes
+ * de executar o pedido e passa a CONCLUIDO com a resposta serializada; repetições do mesmo
+ * pedido recebem essa resposta sem voltar a executar. Escrito e lido pelo IdempotenciaService.
+ */
+@Entity
+@Table(name = "chave_idempotencia", indexes = {
+        @Index(name = "idx_chave_idempotencia_expira_em", columnList = "expira_em")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ChaveIdempotencia {
+
+    public static final String EM_CURSO = "EM_CURSO";
+    public static final String CONCLUIDO = "CONCLUIDO";
+
+    // Operação e chave do cliente, p. ex. "pagamentos/processar:3f2a..."
+    @Id
+    @Column(name = "chave", length = 200)
+    private String chave;
+
+    // SHA-256 dos parâmetros do pedido, para recusar a mesma chave com outro pedido
+    @Column(name = "hash_pedido", nullable = false, length = 64)
+    private String hashPedido;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado;
+
+    @Column(name = "status_http")
+    private Integer statusHttp;
+
+    @Column(name = "corpo", columnDefinition = "text")
+    private String corpo;
+
+    @Column(name = "data_criacao", nullable = false)
+    private OffsetDateTime dataCriacao;
+
+    @Column(name = "expira_em", nullable = false)
+    private OffsetDateTime expiraEm;
+}
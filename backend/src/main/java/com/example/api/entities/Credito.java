@@ -10,7 +10,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "credito")
+@Table(name = "credito", indexes = {
+        @Index(name = "idx_credito_saldo_anunciante", columnList = "saldo, id_anunciante")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -31,4 +33,8 @@ public class Credito {
 
     @Column(name = "data_atualizacao", nullable = false)
     private LocalDateTime dataAtualizacao = LocalDateTime.now();
+
+    // Incrementada a cada escrita no saldo; ordena as atualizações da cache de saldos
+    @Column(name = "versao")
+    private Long versao = 0L;
 }
@@ -0,0 +1,53 @@
+package com.example.api.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Movimento do saldo de créditos de um anunciante. O registo é só de acréscimo: cada débito
+ * ou crédito insere uma linha com o valor (negativo nos débitos) e o saldo resultante, escritos
+ * pelo CreditoService na mesma transação que altera credito.saldo.
+ */
+@Entity
+@Immutable
+@Table(name = "credito_movimento", indexes = {
+        @Index(name = "idx_credito_movimento_anunciante_id", columnList = "id_anunciante, id_movimento DESC")
+})
+@Getter
+@NoArgsConstructor
+public class CreditoMovimento {
+
+    public static final String COMPRA = "COMPRA";
+    public static final String PAGAMENTO = "PAGAMENTO";
+    public static final String ANUNCIO = "ANUNCIO";
+    public static final String RENOVACAO = "RENOVACAO";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_movimento")
+    private Long idMovimento;
+
+    @Column(name = "id_anunciante", nullable = false)
+    private Long idAnunciante;
+
+    @Column(name = "tipo", nullable = false, length = 20)
+    private String tipo;
+
+    @Column(name = "valor", nullable = false)
+    private BigDecimal valor;
+
+    @Column(name = "saldo_apos", nullable = false)
+    private BigDecimal saldoApos;
+
+    // Referência do pagamento ou id do anúncio que originou o movimento
+    @Column(name = "referencia", length = 100)
+    private String referencia;
+
+    @Column(name = "data_movimento", nullable = false)
+    private LocalDateTime dataMovimento;
+}
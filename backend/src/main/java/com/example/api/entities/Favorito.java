@@ -2,7 +2,9 @@ package com.example.api.entities;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 @Entity
-@Table(name = "favorito")
+@Table(name = "favorito", indexes = {
+        @Index(name = "idx_favorito_visitante_data_registro_id", columnList = "id_visitante, data_registro DESC, id_favorito DESC")
+})
 public class Favorito {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
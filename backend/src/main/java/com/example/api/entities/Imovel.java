@@ -10,7 +10,11 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "imovel")
+@Table(name = "imovel", indexes = {
+        @Index(name = "idx_imovel_status_data_criacao_id", columnList = "status_imovel, data_criacao DESC, id_imovel DESC"),
+        @Index(name = "idx_imovel_status_categoria_finalidade", columnList = "status_imovel, categoria, finalidade"),
+        @Index(name = "idx_imovel_status_preco", columnList = "status_imovel, preco_mzn")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -51,4 +55,18 @@ public class Imovel {
 
     @Column(name = "categoria", nullable = false)
     private String categoria = "Casa";
+
+    // Base do ETag/Last-Modified do detalhe; null em registos anteriores à coluna
+    @Column(name = "data_atualizacao")
+    private OffsetDateTime dataAtualizacao;
+
+    @PrePersist
+    @PreUpdate
+    void marcarAtualizacao() {
+        dataAtualizacao = OffsetDateTime.now();
+    }
+
+    public OffsetDateTime ultimaModificacao() {
+        return dataAtualizacao != null ? dataAtualizacao : dataCriacao;
+    }
 }
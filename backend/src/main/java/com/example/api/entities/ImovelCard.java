@@ -0,0 +1,87 @@
+package com.example.api.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Modelo de leitura desnormalizado: uma linha por imóvel com tudo o que o cartão da listagem
+ * precisa (imóvel, localização, imagem principal e anúncio). É escrito apenas pelo
+ * ImovelCardService através de upserts nativos, nunca por save().
+ */
+@Entity
+@Immutable
+@Table(name = "imovel_card", indexes = {
+        @Index(name = "idx_imovel_card_status_data_criacao_id", columnList = "status_imovel, data_criacao DESC, id_imovel DESC"),
+        @Index(name = "idx_imovel_card_anunciante_data_criacao_id", columnList = "id_anunciante, data_criacao DESC, id_imovel DESC"),
+        @Index(name = "idx_imovel_card_anuncio", columnList = "id_anuncio")
+})
+@Getter
+@NoArgsConstructor
+public class ImovelCard {
+
+    @Id
+    @Column(name = "id_imovel")
+    private Long idImovel;
+
+    @Column(name = "titulo", nullable = false)
+    private String titulo;
+
+    @Column(name = "preco_mzn", nullable = false)
+    private BigDecimal precoMzn;
+
+    @Column(name = "area")
+    private BigDecimal area;
+
+    @Column(name = "finalidade", nullable = false)
+    private String finalidade;
+
+    @Column(name = "categoria", nullable = false)
+    private String categoria;
+
+    @Column(name = "status_imovel", nullable = false)
+    private String statusImovel;
+
+    @Column(name = "imagem_url")
+    private String imagemUrl;
+
+    @Column(name = "total_imagens", nullable = false)
+    private Integer totalImagens;
+
+    @Column(name = "data_criacao", nullable = false)
+    private OffsetDateTime dataCriacao;
+
+    @Column(name = "id_anunciante", nullable = false)
+    private Long idAnunciante;
+
+    @Column(name = "provincia")
+    private String provincia;
+
+    @Column(name = "cidade")
+    private String cidade;
+
+    @Column(name = "bairro")
+    private String bairro;
+
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    @Column(name = "id_anuncio")
+    private Long idAnuncio;
+
+    @Column(name = "status_anuncio")
+    private String statusAnuncio;
+
+    @Column(name = "visualizacoes")
+    private Integer visualizacoes;
+
+    @Column(name = "data_atualizacao", nullable = false)
+    private OffsetDateTime dataAtualizacao;
+}
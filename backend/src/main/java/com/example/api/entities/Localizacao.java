@@ -6,6 +6,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "localizacao", uniqueConstraints = {
         @UniqueConstraint(columnNames = "id_imovel", name = "uk_localizacao_imovel")
+}, indexes = {
+        @Index(name = "idx_localizacao_provincia_cidade_bairro", columnList = "provincia, cidade, bairro")
 })
 public class Localizacao {
     @Id
@@ -28,6 +30,12 @@ public class Localizacao {
     @Column(name = "id_imovel", nullable = false)
     private Long idImovel;
 
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
     public Long getIdLocalizacao() {
         return idLocalizacao;
     }
@@ -75,4 +83,20 @@ public class Localizacao {
     public void setIdImovel(Long idImovel) {
         this.idImovel = idImovel;
     }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.api.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Concessão de um id de nó do gerador de ids a uma instância em execução. Cada instância
+ * reclama um nó livre (ou com a concessão expirada) no arranque e renova-a periodicamente,
+ * para que duas instâncias nunca gerem ids com o mesmo nó. Escrito e lido pelo GeradorIdService.
+ */
+@Entity
+@Table(name = "gerador_id_no")
+@Getter
+@Setter
+@NoArgsConstructor
+public class NoGeradorId {
+
+    @Id
+    @Column(name = "id_no")
+    private Integer idNo;
+
+    // Host, processo e momento de arranque da instância que detém o nó
+    @Column(name = "instancia", nullable = false, length = 200)
+    private String instancia;
+
+    @Column(name = "expira_em", nullable = false)
+    private OffsetDateTime expiraEm;
+}
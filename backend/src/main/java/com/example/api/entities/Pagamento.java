@@ -10,7 +10,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "pagamento")
+@Table(name = "pagamento", indexes = {
+        @Index(name = "idx_pagamento_status_data", columnList = "status_pagamento, data_pagamento")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -46,4 +48,22 @@ public class Pagamento {
 
     @Column(name = "comprovante_url")
     private String comprovanteUrl;
+
+    // Preenchidos pelo pipeline de pagamentos: id da transação no gateway, momento do envio e da confirmação
+    @Column(name = "transacao_gateway", length = 100)
+    private String transacaoGateway;
+
+    @Column(name = "data_envio")
+    private LocalDateTime dataEnvio;
+
+    @Column(name = "data_confirmacao")
+    private LocalDateTime dataConfirmacao;
+
+    // Regras de velocidade excedidas na criação (p. ex. "CONTAGEM,VALOR"); null se nenhuma
+    @Column(name = "alerta_velocidade", length = 100)
+    private String alertaVelocidade;
+
+    // Momento em que um pagamento RETIDO foi libertado para o gateway
+    @Column(name = "data_liberacao")
+    private LocalDateTime dataLiberacao;
 }
@@ -0,0 +1,7 @@
+package com.example.api.events;
+
+/**
+ * Publicado quando a conta de um anunciante é criada ou removida.
+ */
+public record AnuncianteAlteradoEvent(Long idAnunciante, TipoAlteracao tipo) {
+}
@@ -0,0 +1,7 @@
+package com.example.api.events;
+
+/**
+ * Publicado pelo AnuncioService quando um anúncio é criado, muda de estado ou é removido.
+ */
+public record AnuncioAlteradoEvent(Long idAnuncio, Long idImovel, String statusAnuncio, TipoAlteracao tipo) {
+}
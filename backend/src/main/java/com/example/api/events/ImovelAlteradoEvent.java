@@ -0,0 +1,10 @@
+package com.example.api.events;
+
+import com.example.api.entities.Imovel;
+
+/**
+ * Publicado pelo ImovelService sempre que um imóvel é criado, alterado ou removido.
+ * Em REMOVIDO, {@code imovel} contém o último estado conhecido antes da remoção.
+ */
+public record ImovelAlteradoEvent(Long idImovel, Imovel imovel, TipoAlteracao tipo) {
+}
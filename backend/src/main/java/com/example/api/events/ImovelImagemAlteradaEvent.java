@@ -0,0 +1,7 @@
+package com.example.api.events;
+
+/**
+ * Publicado quando a galeria de um imóvel muda (imagem adicionada, removida ou reordenada).
+ */
+public record ImovelImagemAlteradaEvent(Long idImovel) {
+}
@@ -0,0 +1,9 @@
+package com.example.api.events;
+
+import com.example.api.entities.Localizacao;
+
+/**
+ * Publicado pelo LocalizacaoService quando a localização de um imóvel é gravada ou removida.
+ */
+public record LocalizacaoAlteradaEvent(Long idImovel, Localizacao localizacao, TipoAlteracao tipo) {
+}
@@ -0,0 +1,8 @@
+package com.example.api.events;
+
+/**
+ * Publicado pelo PagamentoService quando um pagamento é registado como PENDENTE; depois do
+ * commit, o PagamentoPipelineService envia-o ao gateway.
+ */
+public record PagamentoCriadoEvent(Long idPagamento) {
+}
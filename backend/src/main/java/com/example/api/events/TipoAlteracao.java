@@ -0,0 +1,7 @@
+package com.example.api.events;
+
+public enum TipoAlteracao {
+    CRIADO,
+    ATUALIZADO,
+    REMOVIDO
+}
@@ -0,0 +1,7 @@
+package com.example.api.events;
+
+/**
+ * Publicado quando os dados de um visitante são alterados ou o visitante é removido.
+ */
+public record VisitanteAlteradoEvent(Long idVisitante, TipoAlteracao tipo) {
+}
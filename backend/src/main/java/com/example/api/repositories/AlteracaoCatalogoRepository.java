@@ -0,0 +1,41 @@
+package com.example.api.repositories;
+
+import com.example.api.entities.AlteracaoCatalogo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface AlteracaoCatalogoRepository extends JpaRepository<AlteracaoCatalogo, Long> {
+
+    // Só transações anteriores ao xmin do snapshot, todas já terminadas: nenhuma linha pode ainda
+    // ficar visível atrás do token devolvido
+    @Query(value = "SELECT * FROM alteracao_catalogo " +
+            "WHERE (id_transacao, id_alteracao) > (:idTransacao, :idAlteracao) " +
+            "AND id_transacao < txid_snapshot_xmin(txid_current_snapshot()) " +
+            "ORDER BY id_transacao, id_alteracao LIMIT :limite", nativeQuery = true)
+    List<AlteracaoCatalogo> findTerminadasApos(@Param("idTransacao") long idTransacao,
+                                               @Param("idAlteracao") long idAlteracao,
+                                               @Param("limite") int limite);
+
+    @Modifying
+    @Query("DELETE FROM AlteracaoCatalogo a WHERE a.entidade = :entidade AND a.idImovel = :idImovel")
+    int removerAnteriores(@Param("entidade") String entidade, @Param("idImovel") Long idImovel);
+
+    @Modifying
+    @Query("DELETE FROM AlteracaoCatalogo a WHERE a.tipo = 'REMOVIDO' AND a.dataRegistro < :limite")
+    int removerTombstonesAntigos(@Param("limite") OffsetDateTime limite);
+
+    // Carga inicial: uma linha por entidade existente, para que since=0 devolva o catálogo completo
+    @Modifying
+    @Query(value = "INSERT INTO alteracao_catalogo (entidade, id_imovel, tipo, data_registro) " +
+            "SELECT 'IMOVEL', id_imovel, 'CRIADO', now() FROM imovel " +
+            "UNION ALL SELECT 'LOCALIZACAO', id_imovel, 'CRIADO', now() FROM localizacao " +
+            "UNION ALL SELECT DISTINCT 'GALERIA', id_imovel, 'CRIADO', now() FROM imovel_imagem", nativeQuery = true)
+    int registrarCatalogoExistente();
+}
@@ -1,41 +1,78 @@
 package com.example.api.repositories;
 
+import com.example.api.dtos.AnuncioResumoDTO;
 import com.example.api.entities.Anuncio;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AnuncioRepository extends JpaRepository<Anuncio, Long> {
 
-    @Query("SELECT a FROM Anuncio a WHERE a.imovel.id = :idImovel")
+    // As listagens que devolvem a entidade trazem o imóvel no mesmo select (Anuncio.imovel é LAZY)
+    @EntityGraph(attributePaths = "imovel")
+    @Query("SELECT a FROM Anuncio a WHERE a.idImovel = :idImovel")
     List<Anuncio> findByIdImovel(@Param("idImovel") Long idImovel);
 
+    @EntityGraph(attributePaths = "imovel")
+    @Query("SELECT a FROM Anuncio a")
+    List<Anuncio> findAllComImovel();
+
+    @EntityGraph(attributePaths = "imovel")
+    @Query("SELECT a FROM Anuncio a WHERE a.idAnuncio = :id")
+    Optional<Anuncio> findComImovel(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = "imovel")
     List<Anuncio> findByStatusAnuncio(String statusAnuncio);
 
+    @EntityGraph(attributePaths = "imovel")
     List<Anuncio> findByStatusAnuncioOrderByDataPublicacaoDesc(String statusAnuncio);
 
+    String SELECT_RESUMO = "SELECT new com.example.api.dtos.AnuncioResumoDTO(a.idAnuncio, a.idImovel, a.statusAnuncio, " +
+            "a.dataPublicacao, a.dataExpiracao, a.visualizacoes, a.custoCredito) FROM Anuncio a ";
+
+    // Variante com o imóvel: um único join, só quando o cliente pede include=imovel
+    String SELECT_RESUMO_COM_IMOVEL = "SELECT new com.example.api.dtos.AnuncioResumoDTO(a.idAnuncio, a.idImovel, a.statusAnuncio, " +
+            "a.dataPublicacao, a.dataExpiracao, a.visualizacoes, a.custoCredito, i) FROM Anuncio a JOIN a.imovel i ";
+
+    String FILTRO_STATUS = "WHERE (:status IS NULL OR a.statusAnuncio = :status) ";
+
+    String APOS_CURSOR = "AND (a.dataPublicacao < :dataPublicacao OR (a.dataPublicacao = :dataPublicacao AND a.idAnuncio < :id)) ";
+
+    String ORDEM_PAGINA = "ORDER BY a.dataPublicacao DESC, a.idAnuncio DESC";
 
-    @Modifying
-    @Query("UPDATE Anuncio a SET a.visualizacoes = a.visualizacoes + 1 WHERE a.id = :id")
-    void incrementarVisualizacoes(@Param("id") Long id);
+    @Query(SELECT_RESUMO + FILTRO_STATUS + ORDEM_PAGINA)
+    List<AnuncioResumoDTO> findResumosPrimeiraPagina(@Param("status") String status, Limit limite);
 
+    @Query(SELECT_RESUMO + FILTRO_STATUS + APOS_CURSOR + ORDEM_PAGINA)
+    List<AnuncioResumoDTO> findResumosApos(
+            @Param("status") String status,
+            @Param("dataPublicacao") LocalDateTime dataPublicacao,
+            @Param("id") Long id,
+            Limit limite);
 
-    @Modifying
-    @Query("UPDATE Anuncio a SET a.dataExpiracao = :dataExpiracao WHERE a.id = :id")
-    void setDataExpiracao(@Param("dataExpiracao") LocalDateTime dataExpiracao, @Param("id") Long id);
+    @Query(SELECT_RESUMO_COM_IMOVEL + FILTRO_STATUS + ORDEM_PAGINA)
+    List<AnuncioResumoDTO> findResumosComImovelPrimeiraPagina(@Param("status") String status, Limit limite);
 
+    @Query(SELECT_RESUMO_COM_IMOVEL + FILTRO_STATUS + APOS_CURSOR + ORDEM_PAGINA)
+    List<AnuncioResumoDTO> findResumosComImovelApos(
+            @Param("status") String status,
+            @Param("dataPublicacao") LocalDateTime dataPublicacao,
+            @Param("id") Long id,
+            Limit limite);
 
-    @Modifying
-    @Query("UPDATE Anuncio a SET a.statusAnuncio = :status WHERE a.id = :id")
-    void updateStatus(@Param("status") String status, @Param("id") Long id);
 
+    @Query("SELECT a.idAnuncio FROM Anuncio a WHERE a.statusAnuncio = 'PUBLICADO'")
+    List<Long> findIdsPublicados();
 
-    @Query("SELECT a FROM Anuncio a WHERE a.dataExpiracao < :now AND a.statusAnuncio = 'PUBLICADO'")
-    List<Anuncio> findAnunciosExpirados(@Param("now") LocalDateTime now);
+    // Pares [idAnuncio, idImovel] dos anúncios publicados
+    @Query("SELECT a.idAnuncio, a.imovel.id FROM Anuncio a WHERE a.statusAnuncio = 'PUBLICADO'")
+    List<Object[]> findPublicadosComImovel();
 }
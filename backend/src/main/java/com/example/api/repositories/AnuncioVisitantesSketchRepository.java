@@ -0,0 +1,22 @@
+package com.example.api.repositories;
+
+import com.example.api.entities.AnuncioVisitantesSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AnuncioVisitantesSketchRepository
+        extends JpaRepository<AnuncioVisitantesSketch, AnuncioVisitantesSketch.Chave> {
+
+    List<AnuncioVisitantesSketch> findByIdAnuncioAndDiaGreaterThanEqual(Long idAnuncio, LocalDate desde);
+
+    @Modifying
+    @Query("DELETE FROM AnuncioVisitantesSketch s WHERE s.dia < :limite")
+    int removerAnteriores(@Param("limite") LocalDate limite);
+}
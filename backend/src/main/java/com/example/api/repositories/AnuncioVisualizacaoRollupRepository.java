@@ -0,0 +1,22 @@
+package com.example.api.repositories;
+
+import com.example.api.entities.AnuncioVisualizacaoRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface AnuncioVisualizacaoRollupRepository
+        extends JpaRepository<AnuncioVisualizacaoRollup, AnuncioVisualizacaoRollup.Chave> {
+
+    List<AnuncioVisualizacaoRollup> findByGranularidadeAndInicioGreaterThanEqual(String granularidade, OffsetDateTime desde);
+
+    @Modifying
+    @Query("DELETE FROM AnuncioVisualizacaoRollup r WHERE r.granularidade = :granularidade AND r.inicio < :limite")
+    int removerAnteriores(@Param("granularidade") String granularidade, @Param("limite") OffsetDateTime limite);
+}
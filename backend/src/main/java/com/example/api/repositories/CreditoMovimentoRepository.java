@@ -0,0 +1,17 @@
+package com.example.api.repositories;
+
+import com.example.api.entities.CreditoMovimento;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CreditoMovimentoRepository extends JpaRepository<CreditoMovimento, Long> {
+
+    List<CreditoMovimento> findByIdAnuncianteOrderByIdMovimentoDesc(Long idAnunciante, Limit limite);
+
+    List<CreditoMovimento> findByIdAnuncianteAndIdMovimentoLessThanOrderByIdMovimentoDesc(
+            Long idAnunciante, Long idMovimento, Limit limite);
+}
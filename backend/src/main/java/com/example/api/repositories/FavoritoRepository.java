@@ -1,8 +1,11 @@
 package com.example.api.repositories;
+import com.example.api.dtos.FavoritoImovelDTO;
 import com.example.api.entities.Favorito;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 public interface FavoritoRepository extends JpaRepository<Favorito, Long> {
@@ -12,4 +15,22 @@ public interface FavoritoRepository extends JpaRepository<Favorito, Long> {
     boolean existsByIdVisitanteAndIdImovel(Long idVisitante, Long idImovel);
     @Query("SELECT f FROM Favorito f WHERE f.idVisitante = :idVisitante AND f.idImovel = :idImovel")
     Optional<Favorito> findFavorito(@Param("idVisitante") Long idVisitante, @Param("idImovel") Long idImovel);
+
+    // O inner join com Imovel descarta favoritos cujo imóvel já foi removido
+    String SELECT_FAVORITOS_IMOVEIS = "SELECT new com.example.api.dtos.FavoritoImovelDTO(f.idFavorito, f.dataRegistro, i, l) " +
+            "FROM Favorito f JOIN Imovel i ON i.id = f.idImovel " +
+            "LEFT JOIN Localizacao l ON l.idImovel = f.idImovel " +
+            "WHERE f.idVisitante = :idVisitante ";
+
+    @Query(SELECT_FAVORITOS_IMOVEIS + "ORDER BY f.dataRegistro DESC, f.idFavorito DESC")
+    List<FavoritoImovelDTO> findImoveisFavoritosPrimeiraPagina(@Param("idVisitante") Long idVisitante, Limit limite);
+
+    @Query(SELECT_FAVORITOS_IMOVEIS +
+            "AND (f.dataRegistro < :dataRegistro OR (f.dataRegistro = :dataRegistro AND f.idFavorito < :id)) " +
+            "ORDER BY f.dataRegistro DESC, f.idFavorito DESC")
+    List<FavoritoImovelDTO> findImoveisFavoritosApos(
+            @Param("idVisitante") Long idVisitante,
+            @Param("dataRegistro") LocalDateTime dataRegistro,
+            @Param("id") Long id,
+            Limit limite);
 }
@@ -0,0 +1,83 @@
+package com.example.api.repositories;
+
+import com.example.api.entities.ImovelCard;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface ImovelCardRepository extends JpaRepository<ImovelCard, Long> {
+
+    // O cartão é recalculado a partir das tabelas de origem numa única instrução
+    String INSERT_CARD = "INSERT INTO imovel_card (id_imovel, titulo, preco_mzn, area, finalidade, categoria, " +
+            "status_imovel, imagem_url, total_imagens, data_criacao, id_anunciante, provincia, cidade, bairro, " +
+            "latitude, longitude, id_anuncio, status_anuncio, visualizacoes, data_atualizacao) " +
+            "SELECT i.id_imovel, i.titulo, i.preco_mzn, i.area, i.finalidade, i.categoria, i.status_imovel, " +
+            "COALESCE(i.imagem_principal_url, g.imagem_url), g.total, i.data_criacao, i.id_anunciante, " +
+            "l.provincia, l.cidade, l.bairro, l.latitude, l.longitude, " +
+            "a.id_anuncio, a.status_anuncio, a.visualizacoes, now() " +
+            "FROM imovel i " +
+            "LEFT JOIN localizacao l ON l.id_imovel = i.id_imovel " +
+            "LEFT JOIN LATERAL (SELECT " +
+            "  (SELECT ii.imagem_url FROM imovel_imagem ii WHERE ii.id_imovel = i.id_imovel " +
+            "   ORDER BY ii.ordem, ii.id_imovel_imagem LIMIT 1) AS imagem_url, " +
+            "  (SELECT COUNT(*) FROM imovel_imagem ii WHERE ii.id_imovel = i.id_imovel) AS total) g ON true " +
+            "LEFT JOIN LATERAL (SELECT an.id_anuncio, an.status_anuncio, an.visualizacoes FROM anuncio an " +
+            "  WHERE an.id_imovel = i.id_imovel " +
+            "  ORDER BY (an.status_anuncio = 'PUBLICADO') DESC, an.data_publicacao DESC, an.id_anuncio DESC " +
+            "  LIMIT 1) a ON true ";
+
+    String ON_CONFLICT_CARD = " ON CONFLICT (id_imovel) DO UPDATE SET titulo = EXCLUDED.titulo, " +
+            "preco_mzn = EXCLUDED.preco_mzn, area = EXCLUDED.area, finalidade = EXCLUDED.finalidade, " +
+            "categoria = EXCLUDED.categoria, status_imovel = EXCLUDED.status_imovel, imagem_url = EXCLUDED.imagem_url, " +
+            "total_imagens = EXCLUDED.total_imagens, data_criacao = EXCLUDED.data_criacao, " +
+            "id_anunciante = EXCLUDED.id_anunciante, provincia = EXCLUDED.provincia, cidade = EXCLUDED.cidade, " +
+            "bairro = EXCLUDED.bairro, latitude = EXCLUDED.latitude, longitude = EXCLUDED.longitude, " +
+            "id_anuncio = EXCLUDED.id_anuncio, status_anuncio = EXCLUDED.status_anuncio, " +
+            "visualizacoes = EXCLUDED.visualizacoes, data_atualizacao = EXCLUDED.data_atualizacao";
+
+    @Modifying
+    @Query(value = INSERT_CARD + "WHERE i.id_imovel = :idImovel" + ON_CONFLICT_CARD, nativeQuery = true)
+    int atualizarCard(@Param("idImovel") Long idImovel);
+
+    @Modifying
+    @Query(value = INSERT_CARD + ON_CONFLICT_CARD, nativeQuery = true)
+    int reconstruirTodos();
+
+    @Modifying
+    @Query(value = "DELETE FROM imovel_card c WHERE NOT EXISTS (SELECT 1 FROM imovel i WHERE i.id_imovel = c.id_imovel)", nativeQuery = true)
+    int removerOrfaos();
+
+    @Modifying
+    @Query(value = "DELETE FROM imovel_card WHERE id_imovel = :idImovel", nativeQuery = true)
+    int removerCard(@Param("idImovel") Long idImovel);
+
+    @Query("SELECT c FROM ImovelCard c WHERE c.statusImovel = 'DISPONIVEL' ORDER BY c.dataCriacao DESC, c.idImovel DESC")
+    List<ImovelCard> findDisponiveisPrimeiraPagina(Limit limite);
+
+    @Query("SELECT c FROM ImovelCard c WHERE c.statusImovel = 'DISPONIVEL' " +
+            "AND (c.dataCriacao < :dataCriacao OR (c.dataCriacao = :dataCriacao AND c.idImovel < :id)) " +
+            "ORDER BY c.dataCriacao DESC, c.idImovel DESC")
+    List<ImovelCard> findDisponiveisApos(
+            @Param("dataCriacao") OffsetDateTime dataCriacao,
+            @Param("id") Long id,
+            Limit limite);
+
+    @Query("SELECT c FROM ImovelCard c WHERE c.idAnunciante = :idAnunciante ORDER BY c.dataCriacao DESC, c.idImovel DESC")
+    List<ImovelCard> findByAnunciantePrimeiraPagina(@Param("idAnunciante") Long idAnunciante, Limit limite);
+
+    @Query("SELECT c FROM ImovelCard c WHERE c.idAnunciante = :idAnunciante " +
+            "AND (c.dataCriacao < :dataCriacao OR (c.dataCriacao = :dataCriacao AND c.idImovel < :id)) " +
+            "ORDER BY c.dataCriacao DESC, c.idImovel DESC")
+    List<ImovelCard> findByAnuncianteApos(
+            @Param("idAnunciante") Long idAnunciante,
+            @Param("dataCriacao") OffsetDateTime dataCriacao,
+            @Param("id") Long id,
+            Limit limite);
+}
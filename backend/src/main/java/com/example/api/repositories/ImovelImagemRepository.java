@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,6 +16,12 @@ public interface ImovelImagemRepository extends JpaRepository<ImovelImagem, Long
     @Query("SELECT i FROM ImovelImagem i WHERE i.idImovel = :idImovel ORDER BY i.ordem ASC")
     List<ImovelImagem> findByImovelOrderByOrdemAsc(@Param("idImovel") Long idImovel);
 
+    @Query("SELECT i FROM ImovelImagem i WHERE i.idImovel IN :idsImovel AND i.ordem = " +
+            "(SELECT MIN(i2.ordem) FROM ImovelImagem i2 WHERE i2.idImovel = i.idImovel) ORDER BY i.id ASC")
+    List<ImovelImagem> findPrimeirasImagens(@Param("idsImovel") Collection<Long> idsImovel);
+
+    List<ImovelImagem> findByIdImovelInOrderByIdImovelAscOrdemAsc(Collection<Long> idsImovel);
+
     @Query("SELECT COUNT(i) FROM ImovelImagem i WHERE i.idImovel = :idImovel")
     Long countByImovel(@Param("idImovel") Long idImovel);
 
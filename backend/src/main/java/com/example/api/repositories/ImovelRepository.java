@@ -1,15 +1,18 @@
 package com.example.api.repositories;
 
 import com.example.api.entities.Imovel;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @Repository
-public interface ImovelRepository extends JpaRepository<Imovel, Long> {
+public interface ImovelRepository extends JpaRepository<Imovel, Long>, JpaSpecificationExecutor<Imovel> {
 
     @Query("SELECT i FROM Imovel i WHERE i.idAnunciante = :idAnunciante ORDER BY i.dataCriacao DESC")
     List<Imovel> findByAnunciante(@Param("idAnunciante") Long idAnunciante);
@@ -17,6 +20,17 @@ public interface ImovelRepository extends JpaRepository<Imovel, Long> {
     @Query("SELECT i FROM Imovel i WHERE i.statusImovel = 'DISPONIVEL' ORDER BY i.dataCriacao DESC")
     List<Imovel> findDisponiveis();
 
+    @Query("SELECT i FROM Imovel i WHERE i.statusImovel = 'DISPONIVEL' ORDER BY i.dataCriacao DESC, i.id DESC")
+    List<Imovel> findDisponiveisPrimeiraPagina(Limit limite);
+
+    @Query("SELECT i FROM Imovel i WHERE i.statusImovel = 'DISPONIVEL' " +
+            "AND (i.dataCriacao < :dataCriacao OR (i.dataCriacao = :dataCriacao AND i.id < :id)) " +
+            "ORDER BY i.dataCriacao DESC, i.id DESC")
+    List<Imovel> findDisponiveisApos(
+            @Param("dataCriacao") OffsetDateTime dataCriacao,
+            @Param("id") Long id,
+            Limit limite);
+
     @Query("SELECT i FROM Imovel i WHERE i.categoria = :categoria AND i.statusImovel = 'DISPONIVEL'")
     List<Imovel> findByCategoria(@Param("categoria") String categoria);
 
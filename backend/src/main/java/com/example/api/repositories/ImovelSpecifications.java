@@ -0,0 +1,65 @@
+package com.example.api.repositories;
+
+import com.example.api.dtos.ImovelFiltroDTO;
+import com.example.api.entities.Imovel;
+import com.example.api.entities.Localizacao;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ImovelSpecifications {
+
+    private ImovelSpecifications() {
+    }
+
+    public static Specification<Imovel> disponiveisComFiltro(ImovelFiltroDTO filtro) {
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+            predicados.add(cb.equal(root.get("statusImovel"), "DISPONIVEL"));
+
+            if (filtro.precoMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("precoMzn"), filtro.precoMin()));
+            }
+            if (filtro.precoMax() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("precoMzn"), filtro.precoMax()));
+            }
+            if (filtro.areaMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("area"), filtro.areaMin()));
+            }
+            if (filtro.areaMax() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("area"), filtro.areaMax()));
+            }
+            if (filtro.categoria() != null) {
+                predicados.add(cb.equal(root.get("categoria"), filtro.categoria()));
+            }
+            if (filtro.finalidade() != null) {
+                predicados.add(cb.equal(root.get("finalidade"), filtro.finalidade()));
+            }
+
+            // Imovel e Localizacao não têm associação JPA; o filtro por localização
+            // é um semi-join (id_imovel IN subquery) resolvido na mesma instrução SQL.
+            if (filtro.temFiltroLocalizacao()) {
+                Subquery<Long> sub = query.subquery(Long.class);
+                Root<Localizacao> loc = sub.from(Localizacao.class);
+                List<Predicate> predicadosLoc = new ArrayList<>();
+                if (filtro.provincia() != null) {
+                    predicadosLoc.add(cb.equal(loc.get("provincia"), filtro.provincia()));
+                }
+                if (filtro.cidade() != null) {
+                    predicadosLoc.add(cb.equal(loc.get("cidade"), filtro.cidade()));
+                }
+                if (filtro.bairro() != null) {
+                    predicadosLoc.add(cb.equal(loc.get("bairro"), filtro.bairro()));
+                }
+                sub.select(loc.get("idImovel")).where(predicadosLoc.toArray(new Predicate[0]));
+                predicados.add(root.get("id").in(sub));
+            }
+
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -1,13 +1,17 @@
 package com.example.api.services;
 import com.example.api.entities.Anunciante;
 import com.example.api.entities.Credito;
+import com.example.api.entities.CreditoMovimento;
 import com.example.api.entities.Pagamento;
 import com.example.api.entities.Visitante;
+import com.example.api.events.AnuncianteAlteradoEvent;
+import com.example.api.events.TipoAlteracao;
 import com.example.api.repositories.AnuncianteRepository;
 import com.example.api.repositories.CreditoRepository;
 import com.example.api.repositories.PagamentoRepository;
 import com.example.api.repositories.VisitanteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
@@ -16,17 +20,26 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 @Service
 public class AnuncianteService {
     @Autowired
     private AnuncianteRepository anuncianteRepository;
     @Autowired
+    private GeradorIdService geradorIdService;
+    @Autowired
+    private VelocidadeCompraService velocidadeCompraService;
+    @Autowired
     private CreditoRepository creditoRepository;
     @Autowired
     private VisitanteRepository visitanteRepository;
     @Autowired
     private PagamentoRepository pagamentoRepository;
+    @Autowired
+    private EntidadeCacheService entidadeCacheService;
+    @Autowired
+    private CreditoService creditoService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public Anunciante criarAnunciante(Long visitanteId) {
@@ -48,6 +61,7 @@ public class AnuncianteService {
         credito.setAnunciante(anunciante);
         credito.setSaldo(BigDecimal.ZERO);
         creditoRepository.save(credito);
+        eventPublisher.publishEvent(new AnuncianteAlteradoEvent(anunciante.getId(), TipoAlteracao.CRIADO));
         return anunciante;
     }
     public Optional<Anunciante> buscarPorVisitanteId(Long visitanteId) {
@@ -60,66 +74,63 @@ public class AnuncianteService {
         return anuncianteRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Anunciante não encontrado"));
     }
+    // Apenas leitura: a instância em cache é partilhada e não deve ser alterada
+    public Anunciante consultarPorId(Long id) {
+        return entidadeCacheService.buscarAnunciante(id)
+                .orElseThrow(() -> new RuntimeException("Anunciante não encontrado"));
+    }
     public void removerContaAnunciante(Long id) {
         anuncianteRepository.deleteById(id);
-    }
-    public Credito buscarCreditosPorAnunciante(Long anuncianteId) {
-        return creditoRepository.findByAnuncianteId(anuncianteId)
-                .orElseThrow(() -> new RuntimeException("Crédito não encontrado para o anunciante"));
+        eventPublisher.publishEvent(new AnuncianteAlteradoEvent(id, TipoAlteracao.REMOVIDO));
     }
     public List<Anunciante> listarTodos() {
         return anuncianteRepository.findAll();
     }
-    public List<Map<String, Object>> listarTodosCreditos() {
-        return creditoRepository.findAll().stream()
-                .map(credito -> Map.of(
-                    "anunciante_id", (Object) credito.getAnunciante().getId(),
-                    "anunciante_nome", (Object) credito.getAnunciante().getVisitante().getNomeCompleto(),
-                    "saldo_creditos", (Object) credito.getSaldo(),
-                    "data_atualizacao", (Object) credito.getDataAtualizacao()
-                ))
-                .collect(Collectors.toList());
-    }
-
     @Transactional
     public Map<String, Object> comprarCreditos(Long idAnunciante, BigDecimal creditosComprados) {
-        Credito credito = buscarCreditosPorAnunciante(idAnunciante);
-        BigDecimal saldoAnterior = credito.getSaldo();
-        BigDecimal novoSaldo = saldoAnterior.add(creditosComprados);
-        credito.setSaldo(novoSaldo);
-        credito.setDataAtualizacao(LocalDateTime.now());
-        creditoRepository.save(credito);
-        Map<String, Object> resultado = new HashMap<>();
-        resultado.put("saldo_anterior", saldoAnterior);
-        resultado.put("credito_adicionado", creditosComprados);
-        resultado.put("saldo_atual", novoSaldo);
-        return resultado;
+        CreditoService.Movimento movimento = creditoService.creditar(idAnunciante, creditosComprados, CreditoMovimento.COMPRA, null);
+        return resultadoCompra(movimento);
     }
 
     @Transactional
     public Map<String, Object> comprarCreditosComRegistro(Long idAnunciante, BigDecimal creditosComprados, String metodoPagamento, BigDecimal valorPago) {
         Anunciante anunciante = buscarPorId(idAnunciante);
+        VelocidadeCompraService.Avaliacao avaliacao = velocidadeCompraService.avaliar(idAnunciante, valorPago, metodoPagamento);
 
         Pagamento pagamento = new Pagamento();
         pagamento.setAnunciante(anunciante);
         pagamento.setValor(valorPago);
         pagamento.setCreditosAdquiridos(creditosComprados.intValue());
         pagamento.setMetodoPagamento(metodoPagamento);
-        pagamento.setReferencia("PAG_" + System.currentTimeMillis());
-        pagamento.setStatusPagamento("PENDENTE");
+        pagamento.setReferencia("PAG_" + geradorIdService.proximoTexto());
+        if (avaliacao.suspeita()) {
+            pagamento.setAlertaVelocidade(avaliacao.descricao());
+        }
+        if (avaliacao.reter()) {
+            // Sem crédito: libertada, segue pelo pipeline do gateway como os restantes pagamentos
+            pagamento.setStatusPagamento("RETIDO");
+            pagamentoRepository.save(pagamento);
+            Map<String, Object> resultado = new HashMap<>();
+            resultado.put("retido", true);
+            resultado.put("referencia", pagamento.getReferencia());
+            resultado.put("alerta_velocidade", pagamento.getAlertaVelocidade());
+            return resultado;
+        }
+        // Compra direta: creditada já abaixo, nunca passa pelo pipeline do gateway
+        pagamento.setStatusPagamento("CONFIRMADO");
+        pagamento.setDataConfirmacao(LocalDateTime.now());
         pagamentoRepository.save(pagamento);
 
-        Credito credito = buscarCreditosPorAnunciante(idAnunciante);
-        BigDecimal saldoAnterior = credito.getSaldo();
-        BigDecimal novoSaldo = saldoAnterior.add(creditosComprados);
-        credito.setSaldo(novoSaldo);
-        credito.setDataAtualizacao(LocalDateTime.now());
-        creditoRepository.save(credito);
+        CreditoService.Movimento movimento = creditoService.creditar(
+                idAnunciante, creditosComprados, CreditoMovimento.COMPRA, pagamento.getReferencia());
+        return resultadoCompra(movimento);
+    }
 
+    private static Map<String, Object> resultadoCompra(CreditoService.Movimento movimento) {
         Map<String, Object> resultado = new HashMap<>();
-        resultado.put("saldo_anterior", saldoAnterior);
-        resultado.put("credito_adicionado", creditosComprados);
-        resultado.put("saldo_atual", novoSaldo);
+        resultado.put("saldo_anterior", movimento.saldoAnterior());
+        resultado.put("credito_adicionado", movimento.valor());
+        resultado.put("saldo_atual", movimento.saldoAtual());
         return resultado;
     }
 
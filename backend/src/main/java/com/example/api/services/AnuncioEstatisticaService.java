@@ -0,0 +1,267 @@
+package com.example.api.services;
+
+import com.example.api.dtos.SerieVisualizacoesDTO;
+import com.example.api.entities.AnuncioVisualizacaoRollup;
+import com.example.api.repositories.AnuncioVisualizacaoRollupRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Visualizações por hora (últimas 48) e por dia (últimos 90) de cada anúncio, guardadas
+ * em buffers circulares de int[]. As visualizações só tocam na memória; os agregados
+ * horários e diários são gravados periodicamente em anuncio_visualizacao_rollup com
+ * upserts aditivos, e recarregados no arranque.
+ */
+@Service
+public class AnuncioEstatisticaService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnuncioEstatisticaService.class);
+
+    private static final int HORAS = 48;
+    private static final int DIAS = 90;
+    // Os agregados por hora ficam na base de dados este número de dias
+    static final int DIAS_RETENCAO_HORAS = 7;
+    private static final ZoneId ZONA = ZoneId.of("Africa/Maputo");
+
+    private static final String UPSERT_ROLLUP = "INSERT INTO anuncio_visualizacao_rollup " +
+            "(id_anuncio, granularidade, inicio, visualizacoes) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (id_anuncio, granularidade, inicio) DO UPDATE " +
+            "SET visualizacoes = anuncio_visualizacao_rollup.visualizacoes + EXCLUDED.visualizacoes";
+
+    @Autowired
+    private AnuncioVisualizacaoRollupRepository rollupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, Serie> series = new ConcurrentHashMap<>();
+
+    // Visualizações ainda não gravadas, por anúncio e hora (índice de hora desde a época)
+    private final Map<ChaveIntervalo, LongAdder> pendentes = new ConcurrentHashMap<>();
+
+    private record ChaveIntervalo(Long idAnuncio, long indice) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        long horaAtual = horaAtual();
+        long diaAtual = diaAtual();
+        OffsetDateTime desdeHora = inicioHora(horaAtual - HORAS + 1);
+        OffsetDateTime desdeDia = inicioDia(diaAtual - DIAS + 1);
+
+        for (AnuncioVisualizacaoRollup rollup : rollupRepository.findByGranularidadeAndInicioGreaterThanEqual(
+                AnuncioVisualizacaoRollup.HORA, desdeHora)) {
+            serie(rollup.getIdAnuncio()).carregarHora(hora(rollup.getInicio()), rollup.getVisualizacoes(), horaAtual, diaAtual);
+        }
+        for (AnuncioVisualizacaoRollup rollup : rollupRepository.findByGranularidadeAndInicioGreaterThanEqual(
+                AnuncioVisualizacaoRollup.DIA, desdeDia)) {
+            serie(rollup.getIdAnuncio()).carregarDia(dia(rollup.getInicio()), rollup.getVisualizacoes(), horaAtual, diaAtual);
+        }
+        LOG.info("Estatísticas de visualizações carregadas: {} anúncios", series.size());
+    }
+
+    public void registrar(Long idAnuncio) {
+        long hora = horaAtual();
+        serie(idAnuncio).somar(hora, diaAtual(), 1);
+        pendentes.computeIfAbsent(new ChaveIntervalo(idAnuncio, hora), chave -> new LongAdder()).increment();
+    }
+
+    public SerieVisualizacoesDTO seriePorHora(Long idAnuncio) {
+        long horaAtual = horaAtual();
+        Serie serie = series.get(idAnuncio);
+        int[] valores = serie != null ? serie.horas(horaAtual, diaAtual()) : new int[HORAS];
+        return new SerieVisualizacoesDTO("HORA", inicioHora(horaAtual - HORAS + 1), valores, soma(valores));
+    }
+
+    public SerieVisualizacoesDTO seriePorDia(Long idAnuncio) {
+        long diaAtual = diaAtual();
+        Serie serie = series.get(idAnuncio);
+        int[] valores = serie != null ? serie.dias(horaAtual(), diaAtual) : new int[DIAS];
+        return new SerieVisualizacoesDTO("DIA", inicioDia(diaAtual - DIAS + 1), valores, soma(valores));
+    }
+
+    @Scheduled(fixedDelayString = "${app.estatisticas.flush-ms:60000}")
+    public void gravar() {
+        long horaAtual = horaAtual();
+        Map<ChaveIntervalo, Long> porHora = new TreeMap<>(
+                Comparator.comparing(ChaveIntervalo::idAnuncio).thenComparingLong(ChaveIntervalo::indice));
+        for (Map.Entry<ChaveIntervalo, LongAdder> entrada : pendentes.entrySet()) {
+            long delta = entrada.getValue().sumThenReset();
+            if (delta > 0) {
+                porHora.merge(entrada.getKey(), delta, Long::sum);
+            }
+            // Só a hora corrente recebe novas visualizações; as anteriores podem sair do mapa
+            if (entrada.getKey().indice() < horaAtual - 1) {
+                pendentes.remove(entrada.getKey(), entrada.getValue());
+            }
+        }
+        if (porHora.isEmpty()) {
+            return;
+        }
+
+        Map<ChaveIntervalo, Long> porDia = new TreeMap<>(
+                Comparator.comparing(ChaveIntervalo::idAnuncio).thenComparingLong(ChaveIntervalo::indice));
+        List<Object[]> argumentos = new ArrayList<>();
+        porHora.forEach((chave, delta) -> {
+            argumentos.add(new Object[]{chave.idAnuncio(), AnuncioVisualizacaoRollup.HORA, inicioHora(chave.indice()), delta});
+            long dia = dia(inicioHora(chave.indice()));
+            porDia.merge(new ChaveIntervalo(chave.idAnuncio(), dia), delta, Long::sum);
+        });
+        porDia.forEach((chave, delta) ->
+                argumentos.add(new Object[]{chave.idAnuncio(), AnuncioVisualizacaoRollup.DIA, inicioDia(chave.indice()), delta}));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_ROLLUP, argumentos));
+        } catch (RuntimeException e) {
+            porHora.forEach((chave, delta) -> pendentes.computeIfAbsent(chave, c -> new LongAdder()).add(delta));
+            LOG.warn("Falha ao gravar agregados de visualizações, nova tentativa no próximo ciclo", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.estatisticas.limpeza-ms:21600000}", initialDelayString = "${app.estatisticas.limpeza-ms:21600000}")
+    public void limpar() {
+        transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.removerAnteriores(AnuncioVisualizacaoRollup.HORA, OffsetDateTime.now().minusDays(DIAS_RETENCAO_HORAS));
+            rollupRepository.removerAnteriores(AnuncioVisualizacaoRollup.DIA, OffsetDateTime.now().minusDays(400));
+        });
+        // Séries sem visualizações em toda a janela diária deixam de ocupar memória
+        long horaAtual = horaAtual();
+        long diaAtual = diaAtual();
+        series.entrySet().removeIf(entrada -> soma(entrada.getValue().dias(horaAtual, diaAtual)) == 0);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        gravar();
+    }
+
+    private Serie serie(Long idAnuncio) {
+        return series.computeIfAbsent(idAnuncio, id -> new Serie(horaAtual(), diaAtual()));
+    }
+
+    private static long soma(int[] valores) {
+        long total = 0;
+        for (int valor : valores) {
+            total += valor;
+        }
+        return total;
+    }
+
+    private static long horaAtual() {
+        return System.currentTimeMillis() / 3_600_000L;
+    }
+
+    private static long diaAtual() {
+        return LocalDate.now(ZONA).toEpochDay();
+    }
+
+    private static long hora(OffsetDateTime instante) {
+        return instante.toEpochSecond() / 3600;
+    }
+
+    private static long dia(OffsetDateTime instante) {
+        return instante.atZoneSameInstant(ZONA).toLocalDate().toEpochDay();
+    }
+
+    private static OffsetDateTime inicioHora(long hora) {
+        return Instant.ofEpochSecond(hora * 3600).atZone(ZONA).toOffsetDateTime();
+    }
+
+    private static OffsetDateTime inicioDia(long dia) {
+        return LocalDate.ofEpochDay(dia).atStartOfDay(ZONA).toOffsetDateTime();
+    }
+
+    /**
+     * Buffers circulares de um anúncio. A posição de uma hora (ou dia) é o seu índice
+     * absoluto módulo o tamanho; ao avançar no tempo as posições ultrapassadas são limpas.
+     */
+    private static final class Serie {
+        private final int[] horas = new int[HORAS];
+        private final int[] dias = new int[DIAS];
+        private long ultimaHora;
+        private long ultimoDia;
+
+        Serie(long horaAtual, long diaAtual) {
+            this.ultimaHora = horaAtual;
+            this.ultimoDia = diaAtual;
+        }
+
+        synchronized void somar(long hora, long dia, int quantidade) {
+            avancar(hora, dia);
+            horas[(int) (hora % HORAS)] += quantidade;
+            dias[(int) (dia % DIAS)] += quantidade;
+        }
+
+        synchronized void carregarHora(long hora, int quantidade, long horaAtual, long diaAtual) {
+            avancar(horaAtual, diaAtual);
+            if (hora > ultimaHora - HORAS && hora <= ultimaHora) {
+                horas[(int) (hora % HORAS)] += quantidade;
+            }
+        }
+
+        synchronized void carregarDia(long dia, int quantidade, long horaAtual, long diaAtual) {
+            avancar(horaAtual, diaAtual);
+            if (dia > ultimoDia - DIAS && dia <= ultimoDia) {
+                dias[(int) (dia % DIAS)] += quantidade;
+            }
+        }
+
+        synchronized int[] horas(long horaAtual, long diaAtual) {
+            avancar(horaAtual, diaAtual);
+            return ordenar(horas, ultimaHora);
+        }
+
+        synchronized int[] dias(long horaAtual, long diaAtual) {
+            avancar(horaAtual, diaAtual);
+            return ordenar(dias, ultimoDia);
+        }
+
+        private void avancar(long hora, long dia) {
+            if (hora > ultimaHora) {
+                for (long h = Math.max(ultimaHora + 1, hora - HORAS + 1); h <= hora; h++) {
+                    horas[(int) (h % HORAS)] = 0;
+                }
+                ultimaHora = hora;
+            }
+            if (dia > ultimoDia) {
+                for (long d = Math.max(ultimoDia + 1, dia - DIAS + 1); d <= dia; d++) {
+                    dias[(int) (d % DIAS)] = 0;
+                }
+                ultimoDia = dia;
+            }
+        }
+
+        // Copia o buffer do mais antigo para o mais recente
+        private static int[] ordenar(int[] buffer, long ultimo) {
+            int[] resultado = new int[buffer.length];
+            for (int i = 0; i < buffer.length; i++) {
+                long indice = ultimo - buffer.length + 1 + i;
+                resultado[i] = buffer[(int) (indice % buffer.length)];
+            }
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.api.services;
+
+import com.example.api.entities.CreditoMovimento;
+import com.example.api.events.AnuncioAlteradoEvent;
+import com.example.api.events.TipoAlteracao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renovação e expiração automática de anúncios vencidos. A fila é o próprio índice
+ * (status_anuncio, data_expiracao) da tabela anuncio: cada lote reclama os anúncios vencidos
+ * mais antigos com FOR UPDATE SKIP LOCKED, pelo que várias instâncias da aplicação podem
+ * processar a fila em paralelo sem tratar o mesmo anúncio duas vezes.
+ *
+ * Um anúncio vencido é renovado se o anunciante tiver saldo para o custo do anúncio; caso
+ * contrário passa a EXPIRADO. Débitos, movimentos de crédito e alterações de estado são
+ * escritos por lote, com uma instrução por tabela.
+ */
+@Service
+public class AnuncioExpiracaoService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnuncioExpiracaoService.class);
+
+    private static final int DURACAO_ANUNCIO_DIAS = 30;
+
+    private static final String RECLAMAR_VENCIDOS =
+            "SELECT a.id_anuncio, a.id_imovel, a.data_expiracao, a.custo_credito, i.id_anunciante " +
+            "FROM anuncio a LEFT JOIN imovel i ON i.id_imovel = a.id_imovel " +
+            "WHERE a.status_anuncio = 'PUBLICADO' AND a.data_expiracao <= ? " +
+            "ORDER BY a.data_expiracao, a.id_anuncio " +
+            "LIMIT ? FOR UPDATE OF a SKIP LOCKED";
+
+    // Ordenado por id_credito para que lotes concorrentes bloqueiem os saldos pela mesma ordem
+    private static final String BLOQUEAR_SALDOS =
+            "SELECT id_credito, id_anunciante, saldo FROM credito " +
+            "WHERE id_anunciante = ANY (?) ORDER BY id_credito FOR UPDATE";
+
+    private static final String DEBITAR_SALDOS = SaldoCacheService.comNotificacao(
+            "UPDATE credito c SET saldo = c.saldo - d.valor, data_atualizacao = ?, versao = COALESCE(c.versao, 0) + 1 " +
+            "FROM unnest(?::bigint[], ?::numeric[]) AS d(id_credito, valor) " +
+            "WHERE c.id_credito = d.id_credito RETURNING c.id_credito, c.id_anunciante, c.saldo, c.versao");
+
+    private static final String REGISTAR_RENOVACOES =
+            "INSERT INTO credito_movimento (id_anunciante, tipo, valor, saldo_apos, referencia, data_movimento) " +
+            "SELECT m.id_anunciante, '" + CreditoMovimento.RENOVACAO + "', m.valor, m.saldo_apos, m.referencia, ? " +
+            "FROM unnest(?::bigint[], ?::numeric[], ?::numeric[], ?::text[]) AS m(id_anunciante, valor, saldo_apos, referencia)";
+
+    private static final String RENOVAR =
+            "UPDATE anuncio SET data_expiracao = ? WHERE id_anuncio = ANY (?)";
+
+    private static final String EXPIRAR =
+            "UPDATE anuncio SET status_anuncio = 'EXPIRADO' WHERE id_anuncio = ANY (?)";
+
+    private static final String MAIS_ANTIGO_PENDENTE =
+            "SELECT MIN(data_expiracao) FROM anuncio WHERE status_anuncio = 'PUBLICADO' AND data_expiracao <= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SaldoCacheService saldoCacheService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.expiracao.tamanho-lote:200}")
+    private int tamanhoLote;
+
+    @Value("${app.expiracao.max-lotes-por-execucao:50}")
+    private int maxLotesPorExecucao;
+
+    private final AtomicLong execucoes = new AtomicLong();
+    private final AtomicLong totalRenovados = new AtomicLong();
+    private final AtomicLong totalExpirados = new AtomicLong();
+    private final AtomicLong totalFalhas = new AtomicLong();
+    private volatile Resumo ultimaExecucao;
+
+    private record Vencido(Long idAnuncio, Long idImovel, LocalDateTime dataExpiracao, BigDecimal custo, Long idAnunciante) {
+    }
+
+    private record Lote(int renovados, int expirados, long maiorAtrasoSegundos) {
+    }
+
+    public record Resumo(LocalDateTime inicio, long duracaoMs, int lotes, int renovados, int expirados,
+                         long maiorAtrasoSegundos) {
+
+        public int processados() {
+            return renovados + expirados;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.expiracao.intervalo-ms:60000}",
+            initialDelayString = "${app.expiracao.atraso-inicial-ms:30000}")
+    public void executar() {
+        try {
+            processarVencidos();
+        } catch (RuntimeException e) {
+            totalFalhas.incrementAndGet();
+            LOG.warn("Falha ao processar anúncios vencidos, nova tentativa no próximo ciclo", e);
+        }
+    }
+
+    /**
+     * Processa a fila de anúncios vencidos em lotes, cada um na sua transação, até a fila
+     * esvaziar ou ser atingido o limite de lotes por execução.
+     */
+    public Resumo processarVencidos() {
+        LocalDateTime inicio = LocalDateTime.now();
+        long inicioNs = System.nanoTime();
+        int lotes = 0;
+        int renovados = 0;
+        int expirados = 0;
+        long maiorAtraso = 0;
+
+        while (lotes < maxLotesPorExecucao) {
+            Lote lote = transactionTemplate.execute(status -> processarLote(LocalDateTime.now()));
+            if (lote == null || lote.renovados() + lote.expirados() == 0) {
+                break;
+            }
+            lotes++;
+            renovados += lote.renovados();
+            expirados += lote.expirados();
+            maiorAtraso = Math.max(maiorAtraso, lote.maiorAtrasoSegundos());
+            if (lote.renovados() + lote.expirados() < tamanhoLote) {
+                break;
+            }
+        }
+
+        Resumo resumo = new Resumo(inicio, (System.nanoTime() - inicioNs) / 1_000_000, lotes, renovados, expirados, maiorAtraso);
+        execucoes.incrementAndGet();
+        totalRenovados.addAndGet(renovados);
+        totalExpirados.addAndGet(expirados);
+        ultimaExecucao = resumo;
+        if (resumo.processados() > 0) {
+            LOG.info("Anúncios vencidos processados: {} renovados, {} expirados em {} ms", renovados, expirados, resumo.duracaoMs());
+        }
+        return resumo;
+    }
+
+    public Map<String, Object> estatisticas() {
+        LocalDateTime agora = LocalDateTime.now();
+        Timestamp maisAntigo = jdbcTemplate.queryForObject(MAIS_ANTIGO_PENDENTE, Timestamp.class, agora);
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("execucoes", execucoes.get());
+        resultado.put("renovados_total", totalRenovados.get());
+        resultado.put("expirados_total", totalExpirados.get());
+        resultado.put("falhas_total", totalFalhas.get());
+        // Atraso atual da fila: há quanto tempo venceu o anúncio pendente mais antigo
+        resultado.put("pendentes_atraso_segundos", maisAntigo != null
+                ? Duration.between(maisAntigo.toLocalDateTime(), agora).getSeconds() : 0);
+
+        Resumo resumo = ultimaExecucao;
+        if (resumo != null) {
+            Map<String, Object> ultima = new LinkedHashMap<>();
+            ultima.put("inicio", resumo.inicio());
+            ultima.put("duracao_ms", resumo.duracaoMs());
+            ultima.put("lotes", resumo.lotes());
+            ultima.put("renovados", resumo.renovados());
+            ultima.put("expirados", resumo.expirados());
+            ultima.put("maior_atraso_segundos", resumo.maiorAtrasoSegundos());
+            ultima.put("anuncios_por_segundo", resumo.duracaoMs() > 0
+                    ? Math.round(resumo.processados() * 1000.0 / resumo.duracaoMs()) : resumo.processados());
+            resultado.put("ultima_execucao", ultima);
+        }
+        return resultado;
+    }
+
+    private Lote processarLote(LocalDateTime agora) {
+        List<Vencido> vencidos = jdbcTemplate.query(RECLAMAR_VENCIDOS,
+                (rs, i) -> new Vencido(
+                        rs.getLong("id_anuncio"),
+                        (Long) rs.getObject("id_imovel"),
+                        rs.getTimestamp("data_expiracao").toLocalDateTime(),
+                        rs.getBigDecimal("custo_credito"),
+                        (Long) rs.getObject("id_anunciante")),
+                agora, tamanhoLote);
+        if (vencidos.isEmpty()) {
+            return new Lote(0, 0, 0);
+        }
+
+        Set<Long> anunciantes = new LinkedHashSet<>();
+        for (Vencido vencido : vencidos) {
+            if (vencido.idAnunciante() != null) {
+                anunciantes.add(vencido.idAnunciante());
+            }
+        }
+        Map<Long, Long> creditoPorAnunciante = new HashMap<>();
+        Map<Long, BigDecimal> saldos = new HashMap<>();
+        if (!anunciantes.isEmpty()) {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(BLOQUEAR_SALDOS);
+                ps.setArray(1, con.createArrayOf("bigint", anunciantes.toArray()));
+                return ps;
+            }, rs -> {
+                if (creditoPorAnunciante.putIfAbsent(rs.getLong("id_anunciante"), rs.getLong("id_credito")) == null) {
+                    saldos.put(rs.getLong("id_anunciante"), rs.getBigDecimal("saldo"));
+                }
+            });
+        }
+
+        // Os anúncios chegam do mais antigo para o mais recente: com saldo para só alguns, renovam-se esses primeiro
+        List<Long> renovar = new ArrayList<>();
+        List<Vencido> expirar = new ArrayList<>();
+        Map<Long, BigDecimal> debitos = new LinkedHashMap<>();
+        List<Object> movimentoAnunciantes = new ArrayList<>();
+        List<Object> movimentoValores = new ArrayList<>();
+        List<Object> movimentoSaldos = new ArrayList<>();
+        List<Object> movimentoReferencias = new ArrayList<>();
+        for (Vencido vencido : vencidos) {
+            BigDecimal saldo = vencido.idAnunciante() != null ? saldos.get(vencido.idAnunciante()) : null;
+            if (saldo != null && vencido.custo() != null && saldo.compareTo(vencido.custo()) >= 0) {
+                BigDecimal saldoApos = saldo.subtract(vencido.custo());
+                saldos.put(vencido.idAnunciante(), saldoApos);
+                movimentoAnunciantes.add(vencido.idAnunciante());
+                movimentoValores.add(vencido.custo().negate());
+                movimentoSaldos.add(saldoApos);
+                movimentoReferencias.add(String.valueOf(vencido.idAnuncio()));
+                debitos.merge(creditoPorAnunciante.get(vencido.idAnunciante()), vencido.custo(), BigDecimal::add);
+                renovar.add(vencido.idAnuncio());
+            } else {
+                expirar.add(vencido);
+            }
+        }
+
+        if (!debitos.isEmpty()) {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(DEBITAR_SALDOS);
+                ps.setObject(1, agora);
+                ps.setArray(2, con.createArrayOf("bigint", debitos.keySet().toArray()));
+                ps.setArray(3, con.createArrayOf("numeric", debitos.values().toArray()));
+                return ps;
+            }, rs -> {
+                saldoCacheService.atualizar(rs.getLong("id_anunciante"), new SaldoCacheService.Saldo(
+                        rs.getLong("id_credito"), rs.getBigDecimal("saldo"), agora, rs.getLong("versao")));
+            });
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(REGISTAR_RENOVACOES);
+                ps.setObject(1, agora);
+                ps.setArray(2, con.createArrayOf("bigint", movimentoAnunciantes.toArray()));
+                ps.setArray(3, con.createArrayOf("numeric", movimentoValores.toArray()));
+                ps.setArray(4, con.createArrayOf("numeric", movimentoSaldos.toArray()));
+                ps.setArray(5, con.createArrayOf("text", movimentoReferencias.toArray()));
+                return ps;
+            });
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(RENOVAR);
+                ps.setObject(1, agora.plusDays(DURACAO_ANUNCIO_DIAS));
+                ps.setArray(2, con.createArrayOf("bigint", renovar.toArray()));
+                return ps;
+            });
+        }
+        if (!expirar.isEmpty()) {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(EXPIRAR);
+                ps.setArray(1, con.createArrayOf("bigint", expirar.stream().map(Vencido::idAnuncio).toArray()));
+                return ps;
+            });
+            // A renovação não muda nada visível; só a expiração precisa de atualizar cartões e índices
+            for (Vencido vencido : expirar) {
+                eventPublisher.publishEvent(new AnuncioAlteradoEvent(
+                        vencido.idAnuncio(), vencido.idImovel(), "EXPIRADO", TipoAlteracao.ATUALIZADO));
+            }
+        }
+
+        long maiorAtraso = Duration.between(vencidos.get(0).dataExpiracao(), agora).getSeconds();
+        return new Lote(renovar.size(), expirar.size(), maiorAtraso);
+    }
+}
@@ -1,18 +1,26 @@
 package com.example.api.services;
 
+import com.example.api.dtos.AnuncioResumoDTO;
+import com.example.api.dtos.PaginaDTO;
 import com.example.api.entities.Anuncio;
-import com.example.api.entities.Credito;
+import com.example.api.entities.CreditoMovimento;
 import com.example.api.entities.Imovel;
+import com.example.api.events.AnuncioAlteradoEvent;
+import com.example.api.events.TipoAlteracao;
 import com.example.api.repositories.AnuncioRepository;
-import com.example.api.repositories.CreditoRepository;
 import com.example.api.repositories.ImovelRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -28,8 +36,25 @@ public class AnuncioService {
     private ImovelRepository imovelRepository;
 
     @Autowired
-    private CreditoRepository creditoRepository;
+    private CreditoService creditoService;
 
+    @Autowired
+    private AnuncioVisualizacaoService anuncioVisualizacaoService;
+
+    @Autowired
+    private AnuncioEstatisticaService anuncioEstatisticaService;
+
+    @Autowired
+    private AnuncioVisitantesService anuncioVisitantesService;
+
+    @Autowired
+    private AnuncioTendenciaService anuncioTendenciaService;
+
+    @Autowired
+    private AnuncioExpiracaoService anuncioExpiracaoService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
 
     @Transactional
@@ -51,10 +76,6 @@ public class AnuncioService {
             throw new RuntimeException("Este imóvel já tem um anúncio pendente ou publicado");
         }
 
-        Credito credito = verificarECalcularCreditos(imovel.getIdAnunciante(), CUSTO_ANUNCIO);
-
-        debitoCreditos(credito, CUSTO_ANUNCIO);
-
         Anuncio anuncio = new Anuncio();
         anuncio.setImovel(imovel);
         anuncio.setDataPublicacao(LocalDateTime.now());
@@ -63,42 +84,18 @@ public class AnuncioService {
         anuncio.setVisualizacoes(0);
         anuncio.setCustoCredito(CUSTO_ANUNCIO);
 
-        return anuncioRepository.save(anuncio);
-    }
-
-
-
-    private Credito verificarECalcularCreditos(Long idAnunciante, BigDecimal custoNecessario) {
-        Optional<Credito> creditoOpt = creditoRepository.findByAnuncianteId(idAnunciante);
-
-        if (creditoOpt.isEmpty()) {
-            throw new RuntimeException("Anunciante não possui registro de créditos");
-        }
-
-        Credito credito = creditoOpt.get();
-
-        if (credito.getSaldo().compareTo(custoNecessario) < 0) {
-            throw new RuntimeException(
-                    String.format("Créditos insuficientes. Possui: %.0f, Necessário: %.0f",
-                            credito.getSaldo().doubleValue(),
-                            custoNecessario.doubleValue()));
-        }
-
-        return credito;
-    }
-
-    private void debitoCreditos(Credito credito, BigDecimal valor) {
-        BigDecimal novoSaldo = credito.getSaldo().subtract(valor);
-        credito.setSaldo(novoSaldo);
-        credito.setDataAtualizacao(LocalDateTime.now());
-        creditoRepository.save(credito);
+        Anuncio salvo = anuncioRepository.save(anuncio);
+        // Débito condicional numa só instrução; sem saldo, a exceção desfaz também o anúncio
+        creditoService.debitar(imovel.getIdAnunciante(), CUSTO_ANUNCIO, CreditoMovimento.ANUNCIO, String.valueOf(salvo.getIdAnuncio()));
+        publicarAlteracao(salvo, TipoAlteracao.CRIADO);
+        return salvo;
     }
 
 
 
     @Transactional
     public Anuncio suspenderAnuncio(Long idAnuncio) {
-        Optional<Anuncio> anuncioOpt = anuncioRepository.findById(idAnuncio);
+        Optional<Anuncio> anuncioOpt = anuncioRepository.findComImovel(idAnuncio);
         if (anuncioOpt.isEmpty()) {
             throw new RuntimeException("Anúncio não encontrado");
         }
@@ -106,74 +103,105 @@ public class AnuncioService {
         Anuncio anuncio = anuncioOpt.get();
         anuncio.setStatusAnuncio("SUSPENSO");
 
-        return anuncioRepository.save(anuncio);
+        Anuncio salvo = anuncioRepository.save(anuncio);
+        publicarAlteracao(salvo, TipoAlteracao.ATUALIZADO);
+        return salvo;
     }
 
 
 
-    @Transactional
-    public void incrementarVisualizacao(Long idAnuncio) {
-        Optional<Anuncio> anuncioOpt = anuncioRepository.findById(idAnuncio);
-        if (anuncioOpt.isPresent() && "PUBLICADO".equals(anuncioOpt.get().getStatusAnuncio())) {
-            anuncioRepository.incrementarVisualizacoes(idAnuncio);
+    public void incrementarVisualizacao(Long idAnuncio, String chaveVisitante) {
+        if (anuncioVisualizacaoService.registrar(idAnuncio)) {
+            anuncioEstatisticaService.registrar(idAnuncio);
+            anuncioVisitantesService.registrar(idAnuncio, chaveVisitante);
+            anuncioTendenciaService.registrarVisualizacao(idAnuncio);
         }
     }
 
-    @Transactional
-    public void expirarAnuncios() {
-        List<Anuncio> anunciosVencidos = anuncioRepository.findAnunciosExpirados(LocalDateTime.now());
-
-        for (Anuncio anuncio : anunciosVencidos) {
-            Long idAnunciante = anuncio.getImovel() != null
-                    ? imovelRepository.findById(anuncio.getImovel().getId())
-                            .map(Imovel::getIdAnunciante)
-                            .orElse(null)
-                    : null;
-
-            if (idAnunciante != null) {
-                Credito credito = verificarECalcularCreditos(idAnunciante, CUSTO_ANUNCIO);
-
-
-                try {
-
-
-                    debitoCreditos(credito, CUSTO_ANUNCIO);
-                    anuncio.setDataExpiracao(LocalDateTime.now().plusDays(DURACAO_ANUNCIO_DIAS));
-                    anuncioRepository.save(anuncio);
-
-
+    public Map<String, Object> visitantesUnicos(Long idAnuncio) {
+        if (buscarPorId(idAnuncio).isEmpty()) {
+            throw new RuntimeException("Anúncio não encontrado");
+        }
+        return anuncioVisitantesService.visitantesUnicos(idAnuncio);
+    }
 
-                } catch (Exception e) {
+    public Map<String, Object> estatisticas(Long idAnuncio) {
+        Anuncio anuncio = buscarPorId(idAnuncio)
+                .orElseThrow(() -> new RuntimeException("Anúncio não encontrado"));
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("id_anuncio", idAnuncio);
+        resultado.put("visualizacoes_total", anuncio.getVisualizacoes());
+        resultado.put("por_hora", anuncioEstatisticaService.seriePorHora(idAnuncio));
+        resultado.put("por_dia", anuncioEstatisticaService.seriePorDia(idAnuncio));
+        return resultado;
+    }
 
-                    anuncio.setStatusAnuncio("EXPIRADO");
-                    anuncioRepository.save(anuncio);
-                }
-            } else {
+    // Também corre automaticamente (AnuncioExpiracaoService); aqui força uma passagem imediata
+    public AnuncioExpiracaoService.Resumo expirarAnuncios() {
+        return anuncioExpiracaoService.processarVencidos();
+    }
 
-                anuncio.setStatusAnuncio("EXPIRADO");
-                anuncioRepository.save(anuncio);
-            }
-        }
+    public Map<String, Object> estatisticasExpiracao() {
+        return anuncioExpiracaoService.estatisticas();
     }
 
 
 
     public List<Anuncio> listarTodos() {
-        return anuncioRepository.findAll();
+        return anuncioVisualizacaoService.aplicarPendentes(anuncioRepository.findAllComImovel());
     }
 
     public Optional<Anuncio> buscarPorId(Long id) {
-        return anuncioRepository.findById(id);
+        return anuncioRepository.findComImovel(id).map(anuncioVisualizacaoService::aplicarPendentes);
     }
 
     public List<Anuncio> buscarPorImovel(Long idImovel) {
-        return anuncioRepository.findByIdImovel(idImovel);
+        return anuncioVisualizacaoService.aplicarPendentes(anuncioRepository.findByIdImovel(idImovel));
     }
 
     public List<Anuncio> buscarPorStatus(String status) {
-        return anuncioRepository.findByStatusAnuncio(status);
+        return anuncioVisualizacaoService.aplicarPendentes(anuncioRepository.findByStatusAnuncio(status));
+    }
+
+    /**
+     * Listagem paginada por keyset (data de publicação e id, do mais recente para o mais antigo).
+     * Sem {@code incluirImovel} é uma projeção só sobre a tabela anuncio; com ele, um único join.
+     */
+    public PaginaDTO<AnuncioResumoDTO> listarPagina(String status, String cursor, Integer limite, boolean incluirImovel) {
+        int tamanho = CursorPaginacao.normalizarLimite(limite);
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+        String filtroStatus = status == null || status.isBlank() ? null : status.trim().toUpperCase();
+
+        List<AnuncioResumoDTO> anuncios;
+        if (cursor == null || cursor.isBlank()) {
+            anuncios = incluirImovel
+                    ? anuncioRepository.findResumosComImovelPrimeiraPagina(filtroStatus, limiteConsulta)
+                    : anuncioRepository.findResumosPrimeiraPagina(filtroStatus, limiteConsulta);
+        } else {
+            String[] partes = CursorPaginacao.descodificar(cursor, 2);
+            LocalDateTime dataPublicacao;
+            Long id;
+            try {
+                dataPublicacao = LocalDateTime.parse(partes[0]);
+                id = Long.valueOf(partes[1]);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+            anuncios = incluirImovel
+                    ? anuncioRepository.findResumosComImovelApos(filtroStatus, dataPublicacao, id, limiteConsulta)
+                    : anuncioRepository.findResumosApos(filtroStatus, dataPublicacao, id, limiteConsulta);
+        }
+
+        PaginaDTO<AnuncioResumoDTO> pagina = CursorPaginacao.pagina(anuncios, tamanho,
+                ultimo -> CursorPaginacao.codificar(ultimo.dataPublicacao(), ultimo.idAnuncio()));
+        List<AnuncioResumoDTO> itens = new ArrayList<>(pagina.itens().size());
+        for (AnuncioResumoDTO anuncio : pagina.itens()) {
+            itens.add(anuncio.comVisualizacoesPendentes(anuncioVisualizacaoService.pendentes(anuncio.idAnuncio())));
+        }
+        return new PaginaDTO<>(itens, pagina.proximoCursor(), pagina.hasMore());
     }
 
+    @Transactional
     public void excluirAnuncio(Long id) {
         Optional<Anuncio> anuncioOpt = anuncioRepository.findById(id);
         if (anuncioOpt.isEmpty()) {
@@ -186,9 +214,16 @@ public class AnuncioService {
 
 
         anuncioRepository.deleteById(id);
+        publicarAlteracao(anuncio, TipoAlteracao.REMOVIDO);
     }
 
     public List<Anuncio> buscarAnunciosPublicados() {
-        return anuncioRepository.findByStatusAnuncioOrderByDataPublicacaoDesc("PUBLICADO");
+        return anuncioVisualizacaoService.aplicarPendentes(
+                anuncioRepository.findByStatusAnuncioOrderByDataPublicacaoDesc("PUBLICADO"));
+    }
+
+    private void publicarAlteracao(Anuncio anuncio, TipoAlteracao tipo) {
+        Long idImovel = anuncio.getImovel() != null ? anuncio.getImovel().getId() : anuncio.getIdImovel();
+        eventPublisher.publishEvent(new AnuncioAlteradoEvent(anuncio.getIdAnuncio(), idImovel, anuncio.getStatusAnuncio(), tipo));
     }
 }
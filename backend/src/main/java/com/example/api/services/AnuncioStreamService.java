@@ -0,0 +1,252 @@
+package com.example.api.services;
+
+import com.example.api.dtos.ImovelFiltroDTO;
+import com.example.api.entities.ImovelCard;
+import com.example.api.events.AnuncioAlteradoEvent;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.repositories.ImovelCardRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difusão, por Server-Sent Events, dos anúncios acabados de publicar. As ligações ficam
+ * em modo assíncrono do servlet (sem thread por cliente); cada publicação é filtrada por uma
+ * única thread de difusão, depois do commit, que só a coloca na fila limitada de cada cliente.
+ * Os envios são feitos por um pequeno pool, no máximo um envio em curso por cliente, pelo que
+ * um cliente lento ou meio-aberto não atrasa os restantes: a sua fila enche e é desligado, tal
+ * como um cliente cujo envio fique bloqueado além de app.sse.timeout-envio-ms. Clientes
+ * desligados devem voltar a subscrever.
+ */
+@Service
+public class AnuncioStreamService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnuncioStreamService.class);
+
+    @Autowired
+    private ImovelCardRepository imovelCardRepository;
+
+    @Value("${app.sse.max-subscricoes:5000}")
+    private int maxSubscricoes;
+
+    @Value("${app.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.sse.fila-por-cliente:32}")
+    private int filaPorCliente;
+
+    @Value("${app.sse.timeout-envio-ms:10000}")
+    private long timeoutEnvioMs;
+
+    private final Map<Long, Subscricao> subscricoes = new ConcurrentHashMap<>();
+    private final AtomicLong proximoId = new AtomicLong();
+
+    private final ExecutorService difusao = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "anuncio-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService envios;
+
+    private static final class Subscricao {
+        private final Long id;
+        private final SseEmitter emitter;
+        private final ImovelFiltroDTO filtro;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> fila;
+        // Há uma tarefa de envio agendada ou em curso para este cliente
+        private final AtomicBoolean agendada = new AtomicBoolean();
+        // System.nanoTime() do início do envio em curso; 0 sem envio em curso
+        private volatile long envioDesde;
+
+        Subscricao(Long id, SseEmitter emitter, ImovelFiltroDTO filtro, int capacidadeFila) {
+            this.id = id;
+            this.emitter = emitter;
+            this.filtro = filtro;
+            this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        }
+    }
+
+    public AnuncioStreamService(@Value("${app.sse.threads-envio:4}") int threadsEnvio) {
+        AtomicInteger contador = new AtomicInteger();
+        this.envios = Executors.newFixedThreadPool(threadsEnvio, r -> {
+            Thread thread = new Thread(r, "anuncio-stream-envio-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscrever(ImovelFiltroDTO filtro) {
+        if (subscricoes.size() >= maxSubscricoes) {
+            throw new RuntimeException("Limite de subscrições atingido, tente novamente mais tarde");
+        }
+        Long id = proximoId.incrementAndGet();
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> subscricoes.remove(id));
+        emitter.onTimeout(() -> subscricoes.remove(id));
+        emitter.onError(e -> subscricoes.remove(id));
+        Subscricao subscricao = new Subscricao(id, emitter, filtro, filaPorCliente);
+        subscricoes.put(id, subscricao);
+        publicar(subscricao, SseEmitter.event().comment("subscrito"));
+        return emitter;
+    }
+
+    public int totalSubscricoes() {
+        return subscricoes.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnuncioAlterado(AnuncioAlteradoEvent evento) {
+        if (evento.tipo() != TipoAlteracao.CRIADO || !"PUBLICADO".equals(evento.statusAnuncio())
+                || evento.idImovel() == null || subscricoes.isEmpty()) {
+            return;
+        }
+        try {
+            difusao.execute(() -> difundir(evento));
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Difusão ignorada durante o encerramento: anúncio {}", evento.idAnuncio());
+        }
+    }
+
+    // Comentário SSE periódico para que proxies e o cliente não fechem ligações inativas; desliga
+    // também os clientes com um envio bloqueado há demasiado tempo
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(timeoutEnvioMs);
+        for (Subscricao subscricao : subscricoes.values()) {
+            long envioDesde = subscricao.envioDesde;
+            if (envioDesde != 0 && envioDesde - limite < 0) {
+                desligarLento(subscricao);
+            } else {
+                publicar(subscricao, SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        difusao.shutdownNow();
+        envios.shutdownNow();
+        subscricoes.values().forEach(subscricao -> subscricao.emitter.complete());
+        subscricoes.clear();
+    }
+
+    private void difundir(AnuncioAlteradoEvent evento) {
+        ImovelCard card = imovelCardRepository.findById(evento.idImovel()).orElse(null);
+        if (card == null) {
+            return;
+        }
+        for (Subscricao subscricao : subscricoes.values()) {
+            if (corresponde(subscricao.filtro, card)) {
+                publicar(subscricao, SseEmitter.event()
+                        .id(String.valueOf(evento.idAnuncio()))
+                        .name("anuncio")
+                        .data(card));
+            }
+        }
+    }
+
+    // Nunca bloqueia: coloca o evento na fila do cliente e agenda o envio se não houver um em curso
+    private void publicar(Subscricao subscricao, SseEmitter.SseEventBuilder evento) {
+        if (!subscricao.fila.offer(evento)) {
+            desligarLento(subscricao);
+            return;
+        }
+        if (subscricao.agendada.compareAndSet(false, true)) {
+            try {
+                envios.execute(() -> drenar(subscricao));
+            } catch (RejectedExecutionException e) {
+                subscricao.agendada.set(false);
+            }
+        }
+    }
+
+    private void drenar(Subscricao subscricao) {
+        while (true) {
+            SseEmitter.SseEventBuilder evento = subscricao.fila.poll();
+            if (evento == null) {
+                subscricao.agendada.set(false);
+                // Um evento pode ter entrado entre o poll e o set: retoma se ninguém o fez
+                if (subscricao.fila.isEmpty() || !subscricao.agendada.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            subscricao.envioDesde = System.nanoTime();
+            try {
+                subscricao.emitter.send(evento);
+            } catch (IOException | IllegalStateException e) {
+                desligar(subscricao, e);
+                return;
+            } finally {
+                subscricao.envioDesde = 0;
+            }
+        }
+    }
+
+    private void desligarLento(Subscricao subscricao) {
+        if (desligar(subscricao, null)) {
+            LOG.debug("Cliente SSE {} desligado por não acompanhar os envios", subscricao.id);
+        }
+    }
+
+    private boolean desligar(Subscricao subscricao, Exception erro) {
+        if (!subscricoes.remove(subscricao.id, subscricao)) {
+            return false;
+        }
+        subscricao.fila.clear();
+        try {
+            if (erro != null) {
+                subscricao.emitter.completeWithError(erro);
+            } else {
+                subscricao.emitter.complete();
+            }
+        } catch (RuntimeException e) {
+            // Ligação já fechada pelo contentor
+        }
+        return true;
+    }
+
+    static boolean corresponde(ImovelFiltroDTO filtro, ImovelCard card) {
+        return igual(filtro.categoria(), card.getCategoria())
+                && igual(filtro.finalidade(), card.getFinalidade())
+                && igual(filtro.provincia(), card.getProvincia())
+                && igual(filtro.cidade(), card.getCidade())
+                && igual(filtro.bairro(), card.getBairro())
+                && dentro(card.getPrecoMzn(), filtro.precoMin(), filtro.precoMax())
+                && dentro(card.getArea(), filtro.areaMin(), filtro.areaMax());
+    }
+
+    private static boolean igual(String esperado, String valor) {
+        return esperado == null || esperado.equalsIgnoreCase(valor);
+    }
+
+    private static boolean dentro(BigDecimal valor, BigDecimal minimo, BigDecimal maximo) {
+        if (minimo == null && maximo == null) {
+            return true;
+        }
+        return valor != null
+                && (minimo == null || valor.compareTo(minimo) >= 0)
+                && (maximo == null || valor.compareTo(maximo) <= 0);
+    }
+}
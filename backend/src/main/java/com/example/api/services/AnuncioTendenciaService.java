@@ -0,0 +1,304 @@
+package com.example.api.services;
+
+import com.example.api.dtos.AnuncioEmAltaDTO;
+import com.example.api.entities.ImovelCard;
+import com.example.api.events.AnuncioAlteradoEvent;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.repositories.AnuncioRepository;
+import com.example.api.repositories.ImovelCardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Popularidade dos anúncios publicados com decaimento exponencial (meia-vida configurável),
+ * alimentada por visualizações, favoritos e marcações de visita.
+ *
+ * As pontuações são guardadas normalizadas a um instante de referência: um evento de peso w
+ * no instante t soma w·2^((t - referencia)/meiaVida). Como todas as pontuações decaem ao mesmo
+ * ritmo, a ordem entre elas não muda com o tempo e não é preciso recalcular nada entre eventos;
+ * o valor atual é a pontuação normalizada multiplicada por 2^(-(agora - referencia)/meiaVida).
+ * A referência avança periodicamente para que os expoentes não cresçam sem limite.
+ *
+ * Os K melhores são mantidos num conjunto ordenado atualizado a cada evento, pelo que o feed
+ * é servido em O(K) sem agregar tabelas.
+ */
+@Service
+public class AnuncioTendenciaService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnuncioTendenciaService.class);
+
+    // favorito.data_registro e marcacao.data_criacao são gravados com LocalDateTime.now(), na zona da JVM
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    // Pontuações atuais abaixo deste valor são descartadas ao avançar a referência
+    private static final double PONTUACAO_MINIMA = 0.01;
+
+    // No arranque, a atividade é reposta a partir da base de dados até este número de meias-vidas atrás
+    private static final int MEIAS_VIDAS_REPOSICAO = 5;
+
+    private static final Comparator<Entrada> ORDEM = Comparator.comparingDouble(Entrada::pontuacao).reversed()
+            .thenComparing(Entrada::idAnuncio);
+
+    @Autowired
+    private AnuncioRepository anuncioRepository;
+
+    @Autowired
+    private ImovelCardRepository imovelCardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.tendencias.meia-vida-horas:24}")
+    private double meiaVidaHoras;
+
+    @Value("${app.tendencias.peso-visualizacao:1}")
+    private double pesoVisualizacao;
+
+    @Value("${app.tendencias.peso-favorito:5}")
+    private double pesoFavorito;
+
+    @Value("${app.tendencias.peso-marcacao:10}")
+    private double pesoMarcacao;
+
+    @Value("${app.tendencias.tamanho:100}")
+    private int tamanho;
+
+    // Anúncios publicados, nos dois sentidos (favoritos e marcações chegam por imóvel)
+    private final Map<Long, Long> imovelPorAnuncio = new ConcurrentHashMap<>();
+    private final Map<Long, Long> anuncioPorImovel = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Double> pontuacoes = new HashMap<>();
+    private final TreeSet<Entrada> melhores = new TreeSet<>(ORDEM);
+    private long referenciaMs = System.currentTimeMillis();
+
+    private record Entrada(Long idAnuncio, double pontuacao) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        for (Object[] par : anuncioRepository.findPublicadosComImovel()) {
+            publicar((Long) par[0], (Long) par[1]);
+        }
+
+        long agoraMs = System.currentTimeMillis();
+        long desdeMs = agoraMs - (long) (MEIAS_VIDAS_REPOSICAO * meiaVidaMs());
+        LocalDateTime desdeLocal = LocalDateTime.ofInstant(Instant.ofEpochMilli(desdeMs), ZONA);
+        // As visualizações só podem ser repostas até onde os agregados por hora são guardados; com
+        // meias-vidas longas, a parte mais antiga (já muito atenuada) fica de fora
+        long retencaoMs = Duration.ofDays(AnuncioEstatisticaService.DIAS_RETENCAO_HORAS).toMillis();
+        OffsetDateTime desde = OffsetDateTime.ofInstant(Instant.ofEpochMilli(Math.max(desdeMs, agoraMs - retencaoMs)), ZONA);
+
+        // Visualizações a partir dos agregados por hora; favoritos e marcações agrupados por hora
+        jdbcTemplate.query("SELECT id_anuncio, inicio, visualizacoes FROM anuncio_visualizacao_rollup " +
+                        "WHERE granularidade = 'H' AND inicio >= ?",
+                rs -> {
+                    adicionar(rs.getLong("id_anuncio"), pesoVisualizacao * rs.getInt("visualizacoes"),
+                            rs.getObject("inicio", OffsetDateTime.class).toInstant().toEpochMilli());
+                }, desde);
+        reporPorImovel("favorito", "data_registro", pesoFavorito, desdeLocal);
+        reporPorImovel("marcacao", "data_criacao", pesoMarcacao, desdeLocal);
+
+        LOG.info("Tendências prontas: {} anúncios publicados, {} com atividade recente",
+                imovelPorAnuncio.size(), pontuacoes.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnuncioAlterado(AnuncioAlteradoEvent evento) {
+        if (evento.tipo() != TipoAlteracao.REMOVIDO && "PUBLICADO".equals(evento.statusAnuncio())) {
+            publicar(evento.idAnuncio(), evento.idImovel());
+            return;
+        }
+        Long idImovel = imovelPorAnuncio.remove(evento.idAnuncio());
+        if (idImovel != null) {
+            anuncioPorImovel.remove(idImovel, evento.idAnuncio());
+        }
+        remover(evento.idAnuncio());
+    }
+
+    public void registrarVisualizacao(Long idAnuncio) {
+        if (idAnuncio != null && imovelPorAnuncio.containsKey(idAnuncio)) {
+            adicionar(idAnuncio, pesoVisualizacao, System.currentTimeMillis());
+        }
+    }
+
+    public void registrarFavorito(Long idImovel) {
+        registrarPorImovel(idImovel, pesoFavorito);
+    }
+
+    public void registrarMarcacao(Long idImovel) {
+        registrarPorImovel(idImovel, pesoMarcacao);
+    }
+
+    /**
+     * Anúncios em alta, do mais popular para o menos popular, com o cartão do imóvel.
+     * Anúncios cujo imóvel já não tem cartão (indisponível) são omitidos.
+     */
+    public List<AnuncioEmAltaDTO> listarEmAlta(int limite) {
+        int n = Math.max(1, Math.min(limite, tamanho));
+        List<Entrada> topo = new ArrayList<>(n);
+        long agora = System.currentTimeMillis();
+        double fatorAtual;
+
+        lock.readLock().lock();
+        try {
+            fatorAtual = fator(agora);
+            for (Entrada entrada : melhores) {
+                if (topo.size() >= n) {
+                    break;
+                }
+                topo.add(entrada);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> idsImovel = new ArrayList<>(topo.size());
+        for (Entrada entrada : topo) {
+            Long idImovel = imovelPorAnuncio.get(entrada.idAnuncio());
+            if (idImovel != null) {
+                idsImovel.add(idImovel);
+            }
+        }
+        Map<Long, ImovelCard> cards = imovelCardRepository.findAllById(idsImovel).stream()
+                .collect(Collectors.toMap(ImovelCard::getIdImovel, Function.identity()));
+
+        List<AnuncioEmAltaDTO> resultado = new ArrayList<>(topo.size());
+        for (Entrada entrada : topo) {
+            ImovelCard card = cards.get(imovelPorAnuncio.get(entrada.idAnuncio()));
+            if (card != null) {
+                resultado.add(new AnuncioEmAltaDTO(entrada.idAnuncio(), entrada.pontuacao() / fatorAtual, card));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Avança a referência para o instante atual: reescala todas as pontuações, descarta as que
+     * já decaíram abaixo do mínimo e reconstrói o conjunto dos melhores.
+     */
+    @Scheduled(fixedDelayString = "${app.tendencias.normalizacao-ms:3600000}",
+            initialDelayString = "${app.tendencias.normalizacao-ms:3600000}")
+    public void normalizar() {
+        lock.writeLock().lock();
+        try {
+            long agora = System.currentTimeMillis();
+            double escala = 1 / fator(agora);
+            pontuacoes.replaceAll((id, pontuacao) -> pontuacao * escala);
+            pontuacoes.values().removeIf(pontuacao -> pontuacao < PONTUACAO_MINIMA);
+            referenciaMs = agora;
+            reconstruirMelhores();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reporPorImovel(String tabela, String colunaData, double peso, LocalDateTime desde) {
+        jdbcTemplate.query("SELECT id_imovel, date_trunc('hour', " + colunaData + ") AS hora, COUNT(*) AS total " +
+                        "FROM " + tabela + " WHERE " + colunaData + " >= ? GROUP BY id_imovel, hora",
+                rs -> {
+                    Long idAnuncio = anuncioPorImovel.get(rs.getLong("id_imovel"));
+                    if (idAnuncio != null) {
+                        long instante = rs.getTimestamp("hora").toLocalDateTime().atZone(ZONA).toInstant().toEpochMilli();
+                        adicionar(idAnuncio, peso * rs.getLong("total"), instante);
+                    }
+                }, desde);
+    }
+
+    private void publicar(Long idAnuncio, Long idImovel) {
+        if (idAnuncio == null || idImovel == null) {
+            return;
+        }
+        imovelPorAnuncio.put(idAnuncio, idImovel);
+        anuncioPorImovel.put(idImovel, idAnuncio);
+    }
+
+    private void registrarPorImovel(Long idImovel, double peso) {
+        Long idAnuncio = idImovel != null ? anuncioPorImovel.get(idImovel) : null;
+        if (idAnuncio != null) {
+            adicionar(idAnuncio, peso, System.currentTimeMillis());
+        }
+    }
+
+    private void adicionar(Long idAnuncio, double peso, long instanteMs) {
+        if (peso <= 0 || !imovelPorAnuncio.containsKey(idAnuncio)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Double anterior = pontuacoes.get(idAnuncio);
+            double nova = (anterior != null ? anterior : 0) + peso * fator(instanteMs);
+            pontuacoes.put(idAnuncio, nova);
+            if (anterior != null) {
+                melhores.remove(new Entrada(idAnuncio, anterior));
+            }
+            // As pontuações só aumentam entre normalizações: basta comparar com o último dos melhores
+            if (melhores.size() < tamanho || nova > melhores.last().pontuacao()) {
+                melhores.add(new Entrada(idAnuncio, nova));
+                if (melhores.size() > tamanho) {
+                    melhores.pollLast();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remover(Long idAnuncio) {
+        lock.writeLock().lock();
+        try {
+            Double anterior = pontuacoes.remove(idAnuncio);
+            // Sair do topo abre uma vaga que só uma passagem pelas restantes pontuações preenche
+            if (anterior != null && melhores.remove(new Entrada(idAnuncio, anterior))) {
+                reconstruirMelhores();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reconstruirMelhores() {
+        melhores.clear();
+        for (Map.Entry<Long, Double> entrada : pontuacoes.entrySet()) {
+            if (melhores.size() < tamanho || entrada.getValue() > melhores.last().pontuacao()) {
+                melhores.add(new Entrada(entrada.getKey(), entrada.getValue()));
+                if (melhores.size() > tamanho) {
+                    melhores.pollLast();
+                }
+            }
+        }
+    }
+
+    private double fator(long instanteMs) {
+        return Math.pow(2, (instanteMs - referenciaMs) / meiaVidaMs());
+    }
+
+    private double meiaVidaMs() {
+        return meiaVidaHoras * 3_600_000;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.api.services;
+
+import com.example.api.entities.AnuncioVisitantesSketch;
+import com.example.api.repositories.AnuncioVisitantesSketchRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Visitantes únicos por anúncio, estimados com esboços HyperLogLog diários. O esboço do
+ * dia é atualizado em memória e fundido periodicamente com o gravado (máximo por
+ * registo), o que torna a gravação idempotente e segura entre várias instâncias.
+ */
+@Service
+public class AnuncioVisitantesService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnuncioVisitantesService.class);
+
+    private static final ZoneId ZONA = ZoneId.of("Africa/Maputo");
+    private static final int RETENCAO_DIAS = 35;
+
+    @Autowired
+    private AnuncioVisitantesSketchRepository sketchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Esboços com visitantes ainda não gravados
+    private final Map<Chave, HyperLogLog> pendentes = new ConcurrentHashMap<>();
+
+    private record Chave(Long idAnuncio, LocalDate dia) {
+    }
+
+    public void registrar(Long idAnuncio, String chaveVisitante) {
+        if (chaveVisitante == null || chaveVisitante.isBlank()) {
+            return;
+        }
+        long hash = HyperLogLog.hash(chaveVisitante);
+        // compute serializa com a remoção feita em gravar(), para não perder visitantes
+        pendentes.compute(new Chave(idAnuncio, LocalDate.now(ZONA)), (chave, hll) -> {
+            HyperLogLog esboco = hll != null ? hll : new HyperLogLog();
+            synchronized (esboco) {
+                esboco.adicionarHash(hash);
+            }
+            return esboco;
+        });
+    }
+
+    public Map<String, Object> visitantesUnicos(Long idAnuncio) {
+        LocalDate hoje = LocalDate.now(ZONA);
+        LocalDate inicio7 = hoje.minusDays(6);
+        LocalDate inicio30 = hoje.minusDays(29);
+
+        HyperLogLog ultimos7 = new HyperLogLog();
+        HyperLogLog ultimos30 = new HyperLogLog();
+        HyperLogLog deHoje = new HyperLogLog();
+        List<Map.Entry<LocalDate, HyperLogLog>> esbocos = new ArrayList<>();
+        for (AnuncioVisitantesSketch sketch : sketchRepository.findByIdAnuncioAndDiaGreaterThanEqual(idAnuncio, inicio30)) {
+            esbocos.add(Map.entry(sketch.getDia(), HyperLogLog.deserializar(sketch.getRegistros())));
+        }
+        for (Map.Entry<Chave, HyperLogLog> pendente : pendentes.entrySet()) {
+            if (pendente.getKey().idAnuncio().equals(idAnuncio) && !pendente.getKey().dia().isBefore(inicio30)) {
+                HyperLogLog copia;
+                synchronized (pendente.getValue()) {
+                    copia = pendente.getValue().copia();
+                }
+                esbocos.add(Map.entry(pendente.getKey().dia(), copia));
+            }
+        }
+        for (Map.Entry<LocalDate, HyperLogLog> esboco : esbocos) {
+            ultimos30.fundir(esboco.getValue());
+            if (!esboco.getKey().isBefore(inicio7)) {
+                ultimos7.fundir(esboco.getValue());
+            }
+            if (esboco.getKey().equals(hoje)) {
+                deHoje.fundir(esboco.getValue());
+            }
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("id_anuncio", idAnuncio);
+        resultado.put("hoje", deHoje.estimar());
+        resultado.put("ultimos_7_dias", ultimos7.estimar());
+        resultado.put("ultimos_30_dias", ultimos30.estimar());
+        return resultado;
+    }
+
+    @Scheduled(fixedDelayString = "${app.visitantes.flush-ms:60000}")
+    public void gravar() {
+        for (Chave chave : new ArrayList<>(pendentes.keySet())) {
+            HyperLogLog esboco = pendentes.remove(chave);
+            if (esboco == null) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> fundirGravado(chave, esboco));
+            } catch (RuntimeException e) {
+                // Volta a juntar ao esboço pendente; a fusão é idempotente
+                pendentes.merge(chave, esboco, (atual, anterior) -> {
+                    atual.fundir(anterior);
+                    return atual;
+                });
+                LOG.warn("Falha ao gravar esboço de visitantes do anúncio {}", chave.idAnuncio(), e);
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.visitantes.limpeza-ms:21600000}", initialDelayString = "${app.visitantes.limpeza-ms:21600000}")
+    public void limpar() {
+        transactionTemplate.executeWithoutResult(status ->
+                sketchRepository.removerAnteriores(LocalDate.now(ZONA).minusDays(RETENCAO_DIAS)));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        gravar();
+    }
+
+    private void fundirGravado(Chave chave, HyperLogLog esboco) {
+        int inseridos = jdbcTemplate.update(
+                "INSERT INTO anuncio_visitantes_sketch (id_anuncio, dia, registros) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (id_anuncio, dia) DO NOTHING",
+                chave.idAnuncio(), chave.dia(), esboco.serializar());
+        if (inseridos == 1) {
+            return;
+        }
+        List<byte[]> gravados = jdbcTemplate.query(
+                "SELECT registros FROM anuncio_visitantes_sketch WHERE id_anuncio = ? AND dia = ? FOR UPDATE",
+                (rs, linha) -> rs.getBytes(1), chave.idAnuncio(), chave.dia());
+        HyperLogLog fundido = esboco.copia();
+        if (!gravados.isEmpty()) {
+            fundido.fundir(HyperLogLog.deserializar(gravados.get(0)));
+        }
+        jdbcTemplate.update("UPDATE anuncio_visitantes_sketch SET registros = ? WHERE id_anuncio = ? AND dia = ?",
+                fundido.serializar(), chave.idAnuncio(), chave.dia());
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.api.services;
+
+import com.example.api.entities.Anuncio;
+import com.example.api.events.AnuncioAlteradoEvent;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.repositories.AnuncioRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de visualizações em memória. Cada visualização incrementa um LongAdder do
+ * anúncio (sem acesso à base de dados) e os totais acumulados são gravados em lote,
+ * numa só transação, a cada poucos segundos e no encerramento da aplicação.
+ *
+ * Os anúncios publicados conhecidos ficam num conjunto local (carregado no arranque e mantido
+ * pelos eventos de anúncio), para validar uma visualização sem ir à base de dados. O conjunto
+ * não vê o que as outras instâncias publicam ou expiram, por isso não é a autoridade: um id
+ * ausente é confirmado na base de dados, e a gravação só soma às linhas ainda PUBLICADO,
+ * descartando os deltas (e retirando do conjunto) os anúncios entretanto despublicados.
+ */
+@Service
+public class AnuncioVisualizacaoService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnuncioVisualizacaoService.class);
+
+    @Autowired
+    private AnuncioRepository anuncioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, LongAdder> pendentes = new ConcurrentHashMap<>();
+    private final Set<Long> publicados = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarPublicados() {
+        publicados.addAll(anuncioRepository.findIdsPublicados());
+        LOG.info("Contadores de visualizações prontos: {} anúncios publicados", publicados.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnuncioAlterado(AnuncioAlteradoEvent evento) {
+        if (evento.tipo() != TipoAlteracao.REMOVIDO && "PUBLICADO".equals(evento.statusAnuncio())) {
+            publicados.add(evento.idAnuncio());
+        } else {
+            publicados.remove(evento.idAnuncio());
+        }
+    }
+
+    /**
+     * Regista uma visualização de um anúncio publicado; devolve false se o anúncio
+     * não existir ou não estiver publicado.
+     */
+    public boolean registrar(Long idAnuncio) {
+        if (idAnuncio == null) {
+            return false;
+        }
+        if (!publicados.contains(idAnuncio)) {
+            // Pode ter sido publicado noutra instância
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM anuncio WHERE id_anuncio = ? AND status_anuncio = 'PUBLICADO')",
+                    Boolean.class, idAnuncio))) {
+                return false;
+            }
+            publicados.add(idAnuncio);
+        }
+        pendentes.computeIfAbsent(idAnuncio, id -> new LongAdder()).increment();
+        return true;
+    }
+
+    public long pendentes(Long idAnuncio) {
+        LongAdder contador = pendentes.get(idAnuncio);
+        return contador != null ? contador.sum() : 0;
+    }
+
+    // Acrescenta às entidades lidas as visualizações ainda não gravadas
+    public <T extends Collection<Anuncio>> T aplicarPendentes(T anuncios) {
+        for (Anuncio anuncio : anuncios) {
+            aplicarPendentes(anuncio);
+        }
+        return anuncios;
+    }
+
+    public Anuncio aplicarPendentes(Anuncio anuncio) {
+        if (anuncio != null) {
+            anuncio.setVisualizacoesPendentes(pendentes(anuncio.getIdAnuncio()));
+        }
+        return anuncio;
+    }
+
+    @Scheduled(fixedDelayString = "${app.visualizacoes.flush-ms:5000}")
+    public void gravar() {
+        // Ordenado por id para que gravações concorrentes bloqueiem as linhas pela mesma ordem
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (Map.Entry<Long, LongAdder> entrada : pendentes.entrySet()) {
+            long delta = entrada.getValue().sumThenReset();
+            if (delta > 0) {
+                deltas.put(entrada.getKey(), delta);
+            } else if (!publicados.contains(entrada.getKey())) {
+                pendentes.remove(entrada.getKey(), entrada.getValue());
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> argumentos = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> argumentos.add(new Object[]{delta, id}));
+        try {
+            List<Long> despublicados = transactionTemplate.execute(status -> {
+                // Expirado ou suspenso noutra instância: as visualizações desde então não contam
+                int[] atualizados = jdbcTemplate.batchUpdate(
+                        "UPDATE anuncio SET visualizacoes = COALESCE(visualizacoes, 0) + ? " +
+                        "WHERE id_anuncio = ? AND status_anuncio = 'PUBLICADO'", argumentos);
+                List<Object[]> aplicados = new ArrayList<>(argumentos.size());
+                List<Long> ignorados = new ArrayList<>();
+                for (int i = 0; i < atualizados.length; i++) {
+                    if (atualizados[i] == 0) {
+                        ignorados.add((Long) argumentos.get(i)[1]);
+                    } else {
+                        aplicados.add(argumentos.get(i));
+                    }
+                }
+                if (!aplicados.isEmpty()) {
+                    jdbcTemplate.batchUpdate(
+                            "UPDATE imovel_card SET visualizacoes = COALESCE(visualizacoes, 0) + ? WHERE id_anuncio = ?", aplicados);
+                }
+                return ignorados;
+            });
+            if (despublicados != null && !despublicados.isEmpty()) {
+                despublicados.forEach(publicados::remove);
+                LOG.debug("Visualizações descartadas de {} anúncios já não publicados", despublicados.size());
+            }
+        } catch (RuntimeException e) {
+            // Devolve os deltas aos contadores para a próxima tentativa
+            deltas.forEach((id, delta) -> pendentes.computeIfAbsent(id, chave -> new LongAdder()).add(delta));
+            LOG.warn("Falha ao gravar visualizações ({} anúncios), nova tentativa no próximo ciclo", deltas.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        gravar();
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.api.services;
 
 import com.example.api.entities.Visitante;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.events.VisitanteAlteradoEvent;
 import com.example.api.repositories.VisitanteRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -18,6 +21,9 @@ public class AuthService {
     @Autowired
     private VisitanteRepository visitanteRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     private String generateVerificationCode() {
@@ -90,6 +96,7 @@ public class AuthService {
 
         visitante.setSenhaHash(passwordEncoder.encode(novaSenha));
         visitanteRepository.save(visitante);
+        eventPublisher.publishEvent(new VisitanteAlteradoEvent(visitante.getId(), TipoAlteracao.ATUALIZADO));
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Senha atualizada com sucesso");
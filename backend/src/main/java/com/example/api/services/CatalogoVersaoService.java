@@ -0,0 +1,91 @@
+package com.example.api.services;
+
+import com.example.api.events.ImovelAlteradoEvent;
+import com.example.api.events.LocalizacaoAlteradaEvent;
+import com.example.api.events.TipoAlteracao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Gerações do catálogo, usadas como ETag das listagens completas. Vivem na tabela
+ * catalogo_versao, partilhada por todas as instâncias: uma escrita em qualquer nó muda o ETag
+ * servido pelos outros. Cada escrita incrementa a geração depois do commit, pelo que um ETag
+ * lido antes da consulta nunca é mais recente do que os dados devolvidos (no pior caso o
+ * cliente volta a descarregar). Ler a versão é uma consulta por chave primária.
+ */
+@Service
+public class CatalogoVersaoService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogoVersaoService.class);
+
+    private static final String IMOVEIS = "imoveis";
+    private static final String LOCALIZACOES = "localizacoes";
+
+    private static final String INCREMENTAR =
+            "INSERT INTO catalogo_versao (nome, versao, data_alteracao) VALUES (?, 1, ?) " +
+            "ON CONFLICT (nome) DO UPDATE SET versao = catalogo_versao.versao + 1, data_alteracao = EXCLUDED.data_alteracao";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public record Versao(String etag, long ultimaAlteracaoMs) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        OffsetDateTime agora = OffsetDateTime.now();
+        for (String nome : List.of(IMOVEIS, LOCALIZACOES)) {
+            jdbcTemplate.update("INSERT INTO catalogo_versao (nome, versao, data_alteracao) VALUES (?, 0, ?) " +
+                    "ON CONFLICT (nome) DO NOTHING", nome, agora);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImovelAlterado(ImovelAlteradoEvent evento) {
+        incrementar(IMOVEIS);
+        if (evento.tipo() == TipoAlteracao.REMOVIDO) {
+            // A localização pode ter sido removida em cascata sem evento próprio
+            incrementar(LOCALIZACOES);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocalizacaoAlterada(LocalizacaoAlteradaEvent evento) {
+        incrementar(LOCALIZACOES);
+    }
+
+    public Versao versaoImoveis() {
+        return versao(IMOVEIS);
+    }
+
+    public Versao versaoLocalizacoes() {
+        return versao(LOCALIZACOES);
+    }
+
+    private void incrementar(String nome) {
+        try {
+            jdbcTemplate.update(INCREMENTAR, nome, OffsetDateTime.now());
+        } catch (RuntimeException e) {
+            // A escrita já foi confirmada: os clientes só ficam com a versão antiga até à próxima alteração
+            LOG.warn("Falha ao incrementar a versão do catálogo {}", nome, e);
+        }
+    }
+
+    private Versao versao(String nome) {
+        List<Versao> versoes = jdbcTemplate.query(
+                "SELECT versao, data_alteracao FROM catalogo_versao WHERE nome = ?",
+                (rs, i) -> new Versao("\"" + nome + "-" + rs.getLong("versao") + "\"",
+                        rs.getTimestamp("data_alteracao").getTime()),
+                nome);
+        return versoes.isEmpty() ? new Versao("\"" + nome + "-0\"", 0) : versoes.get(0);
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.api.services;
+
+import com.example.api.dtos.CreditoSaldoDTO;
+import com.example.api.dtos.PaginaDTO;
+import com.example.api.entities.CreditoMovimento;
+import com.example.api.repositories.CreditoMovimentoRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Único ponto de escrita do saldo de créditos. Cada operação é uma só instrução
+ * UPDATE ... RETURNING: o débito só se aplica se houver saldo (WHERE saldo >= valor), pelo
+ * que compras e publicações concorrentes nunca perdem atualizações nem deixam o saldo
+ * negativo, sem ler o saldo antes nem bloquear a linha além da própria instrução.
+ * Cada alteração acrescenta uma linha ao registo credito_movimento.
+ */
+@Service
+public class CreditoService {
+
+    private static final String DEBITAR = SaldoCacheService.comNotificacao(
+            "UPDATE credito SET saldo = saldo - ?, data_atualizacao = ?, versao = COALESCE(versao, 0) + 1 " +
+            "WHERE id_anunciante = ? AND saldo >= ? RETURNING id_credito, id_anunciante, saldo, versao");
+
+    private static final String CREDITAR = SaldoCacheService.comNotificacao(
+            "UPDATE credito SET saldo = saldo + ?, data_atualizacao = ?, versao = COALESCE(versao, 0) + 1 " +
+            "WHERE id_anunciante = ? RETURNING id_credito, id_anunciante, saldo, versao");
+
+    // Uma só consulta sobre as três tabelas, sem carregar entidades
+    private static final String SELECT_SALDOS =
+            "SELECT c.id_anunciante, v.nome_completo, c.saldo, c.data_atualizacao FROM credito c " +
+            "JOIN anunciante a ON a.id_anunciante = c.id_anunciante " +
+            "JOIN visitante v ON v.id_visitante = a.id_visitante ";
+
+    private static final int TAMANHO_FETCH = 500;
+
+    private static final String INSERIR_MOVIMENTO =
+            "INSERT INTO credito_movimento (id_anunciante, tipo, valor, saldo_apos, referencia, data_movimento) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CreditoMovimentoRepository creditoMovimentoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SaldoCacheService saldoCacheService;
+
+    public record Movimento(BigDecimal saldoAnterior, BigDecimal valor, BigDecimal saldoAtual) {
+    }
+
+    @Transactional
+    public Movimento debitar(Long idAnunciante, BigDecimal valor, String tipo, String referencia) {
+        LocalDateTime agora = LocalDateTime.now();
+        List<SaldoCacheService.Saldo> saldo = jdbcTemplate.query(DEBITAR, (rs, i) -> saldo(rs, agora),
+                valor, agora, idAnunciante, valor);
+        if (saldo.isEmpty()) {
+            // Nada foi alterado: só resta saber qual das condições falhou, para a mensagem
+            BigDecimal atual = saldoAtual(idAnunciante);
+            if (atual == null) {
+                throw new RuntimeException("Anunciante não possui registro de créditos");
+            }
+            throw new RuntimeException(String.format("Créditos insuficientes. Possui: %.0f, Necessário: %.0f",
+                    atual.doubleValue(), valor.doubleValue()));
+        }
+        saldoCacheService.atualizar(idAnunciante, saldo.get(0));
+        BigDecimal saldoApos = saldo.get(0).saldo();
+        registrarMovimento(idAnunciante, tipo, valor.negate(), saldoApos, referencia, agora);
+        return new Movimento(saldoApos.add(valor), valor, saldoApos);
+    }
+
+    @Transactional
+    public Movimento creditar(Long idAnunciante, BigDecimal valor, String tipo, String referencia) {
+        LocalDateTime agora = LocalDateTime.now();
+        List<SaldoCacheService.Saldo> saldo = jdbcTemplate.query(CREDITAR, (rs, i) -> saldo(rs, agora),
+                valor, agora, idAnunciante);
+        if (saldo.isEmpty()) {
+            throw new RuntimeException("Crédito não encontrado para o anunciante");
+        }
+        saldoCacheService.atualizar(idAnunciante, saldo.get(0));
+        BigDecimal saldoApos = saldo.get(0).saldo();
+        registrarMovimento(idAnunciante, tipo, valor, saldoApos, referencia, agora);
+        return new Movimento(saldoApos.subtract(valor), valor, saldoApos);
+    }
+
+    /**
+     * Saldo atual, servido da cache de saldos (sem acesso à base de dados depois da primeira leitura).
+     */
+    public SaldoCacheService.Saldo consultarSaldo(Long idAnunciante) {
+        return saldoCacheService.consultar(idAnunciante)
+                .orElseThrow(() -> new RuntimeException("Crédito não encontrado para o anunciante"));
+    }
+
+    /**
+     * Extrato do anunciante, do movimento mais recente para o mais antigo, paginado por cursor.
+     * Cada movimento traz o saldo após a sua aplicação. O saldo do cabeçalho é lido da base de
+     * dados no mesmo snapshot que os movimentos, para coincidir com o saldo_apos do mais recente.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Map<String, Object> extrato(Long idAnunciante, String cursor, Integer limite) {
+        BigDecimal saldoAtual = saldoAtual(idAnunciante);
+        if (saldoAtual == null) {
+            throw new RuntimeException("Crédito não encontrado para o anunciante");
+        }
+
+        int tamanho = CursorPaginacao.normalizarLimite(limite);
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+        List<CreditoMovimento> movimentos;
+        if (cursor == null || cursor.isBlank()) {
+            movimentos = creditoMovimentoRepository.findByIdAnuncianteOrderByIdMovimentoDesc(idAnunciante, limiteConsulta);
+        } else {
+            Long idMovimento;
+            try {
+                idMovimento = Long.valueOf(CursorPaginacao.descodificar(cursor, 1)[0]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+            movimentos = creditoMovimentoRepository.findByIdAnuncianteAndIdMovimentoLessThanOrderByIdMovimentoDesc(
+                    idAnunciante, idMovimento, limiteConsulta);
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("anunciante_id", idAnunciante);
+        resultado.put("saldo_atual", saldoAtual);
+        resultado.put("movimentos", CursorPaginacao.pagina(movimentos, tamanho,
+                ultimo -> CursorPaginacao.codificar(ultimo.getIdMovimento())));
+        return resultado;
+    }
+
+    /**
+     * Escreve a listagem completa de saldos em JSON diretamente na resposta, à medida que as
+     * linhas chegam de um cursor JDBC (fetch size), sem as acumular em memória. O formato é o
+     * da listagem original: {"success", "creditos", "total_registros"}.
+     * A transação só-leitura é necessária para que o driver PostgreSQL use o cursor.
+     */
+    @Transactional(readOnly = true)
+    public void transmitirSaldos(OutputStream saida, String ordenar, String direcao) throws IOException {
+        Ordem ordem = Ordem.de(ordenar, direcao);
+        JsonGenerator json = objectMapper.getFactory().createGenerator(saida);
+        json.writeStartObject();
+        json.writeBooleanField("success", true);
+        int[] total = {0};
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_SALDOS + ordem.orderBy());
+                ps.setFetchSize(TAMANHO_FETCH);
+                return ps;
+            }, (ResultSet rs) -> {
+                try {
+                    if (total[0]++ == 0) {
+                        json.writeArrayFieldStart("creditos");
+                    }
+                    json.writeObject(saldo(rs));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (total[0] == 0) {
+            json.writeStringField("creditos", "Nenhum crédito encontrado");
+        } else {
+            json.writeEndArray();
+        }
+        json.writeNumberField("total_registros", total[0]);
+        json.writeEndObject();
+        json.flush();
+    }
+
+    /**
+     * Valida os parâmetros de ordenação da listagem de saldos sem consultar a base de dados.
+     */
+    public void validarOrdem(String ordenar, String direcao) {
+        Ordem.de(ordenar, direcao);
+    }
+
+    /**
+     * Saldos paginados por keyset, por anunciante ou por saldo (com o id como desempate).
+     */
+    public PaginaDTO<CreditoSaldoDTO> listarSaldos(String ordenar, String direcao, String cursor, Integer limite) {
+        Ordem ordem = Ordem.de(ordenar, direcao);
+        int tamanho = CursorPaginacao.normalizarLimite(limite);
+
+        List<Object> argumentos = new ArrayList<>();
+        String filtro = "";
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                if (ordem.porSaldo()) {
+                    String[] partes = CursorPaginacao.descodificar(cursor, 2);
+                    argumentos.add(new BigDecimal(partes[0]));
+                    argumentos.add(Long.valueOf(partes[1]));
+                    filtro = "WHERE (c.saldo, c.id_anunciante) " + (ordem.descendente() ? "<" : ">") + " (?, ?) ";
+                } else {
+                    argumentos.add(Long.valueOf(CursorPaginacao.descodificar(cursor, 1)[0]));
+                    filtro = "WHERE c.id_anunciante " + (ordem.descendente() ? "<" : ">") + " ? ";
+                }
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+        argumentos.add(tamanho + 1);
+
+        List<CreditoSaldoDTO> saldos = jdbcTemplate.query(SELECT_SALDOS + filtro + ordem.orderBy() + " LIMIT ?",
+                (rs, i) -> saldo(rs), argumentos.toArray());
+        return CursorPaginacao.pagina(saldos, tamanho, ultimo -> ordem.porSaldo()
+                ? CursorPaginacao.codificar(ultimo.saldoCreditos().toPlainString(), ultimo.anuncianteId())
+                : CursorPaginacao.codificar(ultimo.anuncianteId()));
+    }
+
+    private record Ordem(boolean porSaldo, boolean descendente) {
+
+        static Ordem de(String ordenar, String direcao) {
+            boolean porSaldo;
+            if (ordenar == null || ordenar.isBlank() || "anunciante".equalsIgnoreCase(ordenar)) {
+                porSaldo = false;
+            } else if ("saldo".equalsIgnoreCase(ordenar)) {
+                porSaldo = true;
+            } else {
+                throw new RuntimeException("Ordenação inválida. Use anunciante ou saldo");
+            }
+            boolean descendente;
+            if (direcao == null || direcao.isBlank()) {
+                // Por omissão: anunciantes por id crescente, saldos do maior para o menor
+                descendente = porSaldo;
+            } else if ("asc".equalsIgnoreCase(direcao) || "desc".equalsIgnoreCase(direcao)) {
+                descendente = "desc".equalsIgnoreCase(direcao);
+            } else {
+                throw new RuntimeException("Direção inválida. Use asc ou desc");
+            }
+            return new Ordem(porSaldo, descendente);
+        }
+
+        String orderBy() {
+            String sentido = descendente ? " DESC" : " ASC";
+            return porSaldo
+                    ? "ORDER BY c.saldo" + sentido + ", c.id_anunciante" + sentido
+                    : "ORDER BY c.id_anunciante" + sentido;
+        }
+    }
+
+    private static CreditoSaldoDTO saldo(ResultSet rs) throws SQLException {
+        Timestamp dataAtualizacao = rs.getTimestamp("data_atualizacao");
+        return new CreditoSaldoDTO(
+                rs.getLong("id_anunciante"),
+                rs.getString("nome_completo"),
+                rs.getBigDecimal("saldo"),
+                dataAtualizacao != null ? dataAtualizacao.toLocalDateTime() : null);
+    }
+
+    private BigDecimal saldoAtual(Long idAnunciante) {
+        List<BigDecimal> saldo = jdbcTemplate.queryForList(
+                "SELECT saldo FROM credito WHERE id_anunciante = ?", BigDecimal.class, idAnunciante);
+        return saldo.isEmpty() ? null : saldo.get(0);
+    }
+
+    private static SaldoCacheService.Saldo saldo(ResultSet rs, LocalDateTime dataAtualizacao) throws SQLException {
+        return new SaldoCacheService.Saldo(rs.getLong("id_credito"), rs.getBigDecimal("saldo"), dataAtualizacao, rs.getLong("versao"));
+    }
+
+    private void registrarMovimento(Long idAnunciante, String tipo, BigDecimal valor, BigDecimal saldoApos,
+                                    String referencia, LocalDateTime data) {
+        jdbcTemplate.update(INSERIR_MOVIMENTO, idAnunciante, tipo, valor, saldoApos, referencia, data);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.api.services;
+
+import com.example.api.dtos.PaginaDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Codifica e descodifica os cursores opacos usados na paginação por keyset.
+ * O cliente só vê uma string base64url; o conteúdo são os valores da última
+ * linha devolvida, separados por '|'.
+ */
+public final class CursorPaginacao {
+
+    public static final int LIMITE_PADRAO = 20;
+    public static final int LIMITE_MAXIMO = 100;
+
+    private static final String SEPARADOR = "|";
+
+    private CursorPaginacao() {
+    }
+
+    public static String codificar(Object... valores) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                sb.append(SEPARADOR);
+            }
+            sb.append(valores[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] descodificar(String cursor, int partesEsperadas) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = texto.split("\\|", -1);
+            if (partes.length != partesEsperadas) {
+                throw new IllegalArgumentException();
+            }
+            return partes;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Monta a página a partir de uma consulta que pediu tamanho + 1 linhas: a linha a mais só
+     * indica que há mais itens; o cursor seguinte é calculado a partir da última linha devolvida.
+     */
+    public static <T> PaginaDTO<T> pagina(List<T> linhas, int tamanho, Function<T, String> cursor) {
+        boolean hasMore = linhas.size() > tamanho;
+        List<T> itens = hasMore ? new ArrayList<>(linhas.subList(0, tamanho)) : linhas;
+        String proximoCursor = hasMore ? cursor.apply(itens.get(itens.size() - 1)) : null;
+        return new PaginaDTO<>(itens, proximoCursor, hasMore);
+    }
+
+    public static int normalizarLimite(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return LIMITE_PADRAO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+}
@@ -16,7 +16,6 @@ import java.nio.file.Paths;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class DocumentoImovelService {
@@ -26,6 +25,9 @@ public class DocumentoImovelService {
     @Autowired
     private DocumentoImovelRepository documentoImovelRepository;
 
+    @Autowired
+    private GeradorIdService geradorIdService;
+
     @Autowired
     private ImovelRepository imovelRepository;
 
@@ -61,7 +63,7 @@ public class DocumentoImovelService {
 
         String originalFileName = documento.getOriginalFilename();
         String fileExtension = getFileExtension(originalFileName);
-        String fileName = UUID.randomUUID().toString() + "_property_doc_" + fileExtension;
+        String fileName = geradorIdService.proximoNomeArquivo() + "_property_doc_" + fileExtension;
         Path filePath = Paths.get(DOCUMENTS_DIR + fileName);
         Files.write(filePath, documento.getBytes());
 
@@ -92,7 +94,7 @@ public class DocumentoImovelService {
 
             String originalFileName = novoDocumento.getOriginalFilename();
             String fileExtension = getFileExtension(originalFileName);
-            String fileName = UUID.randomUUID().toString() + "_property_doc_updated_" + fileExtension;
+            String fileName = geradorIdService.proximoNomeArquivo() + "_property_doc_updated_" + fileExtension;
             Path filePath = Paths.get(DOCUMENTS_DIR + fileName);
             Files.write(filePath, novoDocumento.getBytes());
 
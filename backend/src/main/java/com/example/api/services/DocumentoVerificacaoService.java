@@ -17,7 +17,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class DocumentoVerificacaoService {
@@ -27,6 +26,9 @@ public class DocumentoVerificacaoService {
     @Autowired
     private DocumentoVerificacaoRepository documentoRepository;
 
+    @Autowired
+    private GeradorIdService geradorIdService;
+
     @Autowired
     private AnuncianteRepository anuncianteRepository;
 
@@ -40,7 +42,7 @@ public class DocumentoVerificacaoService {
         Anunciante anunciante = anuncianteOpt.get();
 
 
-        String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
+        String fileName = geradorIdService.proximoNomeArquivo() + "_" + file.getOriginalFilename();
         Path filePath = Paths.get(UPLOAD_DIR + fileName);
         Files.createDirectories(filePath.getParent());
         Files.write(filePath, file.getBytes());
@@ -88,7 +90,7 @@ public class DocumentoVerificacaoService {
             Files.deleteIfExists(oldFilePath);
 
 
-            String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
+            String fileName = geradorIdService.proximoNomeArquivo() + "_" + file.getOriginalFilename();
             Path filePath = Paths.get(UPLOAD_DIR + fileName);
             Files.write(filePath, file.getBytes());
 
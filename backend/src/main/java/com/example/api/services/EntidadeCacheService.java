@@ -0,0 +1,127 @@
+package com.example.api.services;
+
+import com.example.api.entities.Anunciante;
+import com.example.api.entities.Imovel;
+import com.example.api.entities.Localizacao;
+import com.example.api.events.AnuncianteAlteradoEvent;
+import com.example.api.events.ImovelAlteradoEvent;
+import com.example.api.events.LocalizacaoAlteradaEvent;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.events.VisitanteAlteradoEvent;
+import com.example.api.repositories.AnuncianteRepository;
+import com.example.api.repositories.ImovelRepository;
+import com.example.api.repositories.LocalizacaoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache local (Caffeine, W-TinyLFU) das leituras por id mais frequentes. As entradas são
+ * invalidadas depois do commit de cada escrita, a partir dos eventos de alteração; o TTL
+ * cobre alterações feitas fora destes caminhos (p. ex. diretamente na base de dados).
+ *
+ * Os anunciantes em cache incluem o visitante associado, pelo que também são invalidados
+ * quando esse visitante é alterado.
+ *
+ * Os objetos em cache são partilhados entre pedidos e servem apenas para leitura: os
+ * caminhos de escrita continuam a carregar a entidade do repositório.
+ */
+@Service
+public class EntidadeCacheService {
+
+    @Autowired
+    private ImovelRepository imovelRepository;
+
+    @Autowired
+    private LocalizacaoRepository localizacaoRepository;
+
+    @Autowired
+    private AnuncianteRepository anuncianteRepository;
+
+    private final Cache<Long, Imovel> imoveis;
+    // Guarda também a ausência de localização, que é o caso comum em imóveis recentes
+    private final Cache<Long, Optional<Localizacao>> localizacoes;
+    private final Cache<Long, Anunciante> anunciantes;
+
+    public EntidadeCacheService(
+            @Value("${app.cache.entidades.tamanho-maximo:10000}") long tamanhoMaximo,
+            @Value("${app.cache.entidades.ttl-segundos:300}") long ttlSegundos) {
+        this.imoveis = novoCache(tamanhoMaximo, ttlSegundos);
+        this.localizacoes = novoCache(tamanhoMaximo, ttlSegundos);
+        this.anunciantes = novoCache(tamanhoMaximo, ttlSegundos);
+    }
+
+    private static <V> Cache<Long, V> novoCache(long tamanhoMaximo, long ttlSegundos) {
+        return Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Imovel> buscarImovel(Long id) {
+        return Optional.ofNullable(imoveis.get(id, chave -> imovelRepository.findById(chave).orElse(null)));
+    }
+
+    public Optional<Localizacao> buscarLocalizacaoPorImovel(Long idImovel) {
+        return localizacoes.get(idImovel, localizacaoRepository::findByIdImovel);
+    }
+
+    public Optional<Anunciante> buscarAnunciante(Long id) {
+        return Optional.ofNullable(anunciantes.get(id, chave -> anuncianteRepository.findById(chave).orElse(null)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImovelAlterado(ImovelAlteradoEvent evento) {
+        imoveis.invalidate(evento.idImovel());
+        if (evento.tipo() == TipoAlteracao.REMOVIDO) {
+            localizacoes.invalidate(evento.idImovel());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocalizacaoAlterada(LocalizacaoAlteradaEvent evento) {
+        localizacoes.invalidate(evento.idImovel());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnuncianteAlterado(AnuncianteAlteradoEvent evento) {
+        anunciantes.invalidate(evento.idAnunciante());
+    }
+
+    // O anunciante em cache inclui o visitante associado (@OneToOne), que se altera fora dos caminhos do anunciante
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVisitanteAlterado(VisitanteAlteradoEvent evento) {
+        anunciantes.asMap().values().removeIf(anunciante -> anunciante.getVisitante() != null
+                && evento.idVisitante().equals(anunciante.getVisitante().getId()));
+    }
+
+    public Map<String, Map<String, Object>> estatisticas() {
+        Map<String, Map<String, Object>> resultado = new LinkedHashMap<>();
+        resultado.put("imoveis", estatisticas(imoveis));
+        resultado.put("localizacoes", estatisticas(localizacoes));
+        resultado.put("anunciantes", estatisticas(anunciantes));
+        return resultado;
+    }
+
+    private static Map<String, Object> estatisticas(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("entradas", cache.estimatedSize());
+        resultado.put("acertos", stats.hitCount());
+        resultado.put("falhas", stats.missCount());
+        resultado.put("taxa_acerto", stats.hitRate());
+        resultado.put("remocoes", stats.evictionCount());
+        resultado.put("tempo_medio_carga_ms", stats.averageLoadPenalty() / 1_000_000.0);
+        return resultado;
+    }
+}
@@ -2,11 +2,15 @@
 package com.example.api.services;
 
 import com.example.api.dtos.FavoritoDTO;
+import com.example.api.dtos.FavoritoImovelDTO;
+import com.example.api.dtos.PaginaDTO;
 import com.example.api.entities.Favorito;
 import com.example.api.repositories.FavoritoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -17,6 +21,9 @@ public class FavoritoService {
     @Autowired
     private FavoritoRepository favoritoRepository;
 
+    @Autowired
+    private AnuncioTendenciaService anuncioTendenciaService;
+
     public FavoritoDTO adicionarFavorito(Long idVisitante, Long idImovel) {
         if (favoritoRepository.existsByIdVisitanteAndIdImovel(idVisitante, idImovel)) {
             throw new RuntimeException("Este imóvel já está nos favoritos");
@@ -26,6 +33,7 @@ public class FavoritoService {
         favorito.setIdVisitante(idVisitante);
         favorito.setIdImovel(idImovel);
         favorito = favoritoRepository.save(favorito);
+        anuncioTendenciaService.registrarFavorito(idImovel);
 
         FavoritoDTO dto = new FavoritoDTO();
         dto.setIdFavorito(favorito.getIdFavorito());
@@ -58,6 +66,30 @@ public class FavoritoService {
         }).collect(Collectors.toList());
     }
 
+    public PaginaDTO<FavoritoImovelDTO> listarImoveisFavoritos(Long idVisitante, String cursor, Integer limite) {
+        int tamanho = CursorPaginacao.normalizarLimite(limite);
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+
+        List<FavoritoImovelDTO> favoritos;
+        if (cursor == null || cursor.isBlank()) {
+            favoritos = favoritoRepository.findImoveisFavoritosPrimeiraPagina(idVisitante, limiteConsulta);
+        } else {
+            String[] partes = CursorPaginacao.descodificar(cursor, 2);
+            LocalDateTime dataRegistro;
+            Long id;
+            try {
+                dataRegistro = LocalDateTime.parse(partes[0]);
+                id = Long.valueOf(partes[1]);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+            favoritos = favoritoRepository.findImoveisFavoritosApos(idVisitante, dataRegistro, id, limiteConsulta);
+        }
+
+        return CursorPaginacao.pagina(favoritos, tamanho,
+                ultimo -> CursorPaginacao.codificar(ultimo.dataRegistro(), ultimo.idFavorito()));
+    }
+
     @Deprecated
     public FavoritoDTO createFavorito(FavoritoDTO favoritoDTO) {
         return adicionarFavorito(favoritoDTO.getIdVisitante(), favoritoDTO.getIdImovel());
@@ -0,0 +1,20 @@
+package com.example.api.services;
+
+import java.math.BigDecimal;
+
+/**
+ * Gateway de pagamentos móveis (MPESA, EMOLA). O pedido é submetido pelos workers do
+ * PagamentoPipelineService e o resultado chega mais tarde, de forma assíncrona, pelo callback
+ * (POST /api/pagamentos/callback), tratado pelo PagamentoConfirmacaoService.
+ */
+public interface GatewayPagamento {
+
+    record Pedido(String referencia, BigDecimal valor, String metodoPagamento) {
+    }
+
+    /**
+     * Submete o pedido de cobrança e devolve o identificador da transação no gateway.
+     * Pode bloquear durante a latência do gateway; nunca é chamado numa thread de pedido HTTP.
+     */
+    String submeter(Pedido pedido);
+}
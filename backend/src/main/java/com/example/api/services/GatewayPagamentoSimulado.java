@@ -0,0 +1,69 @@
+package com.example.api.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway local para desenvolvimento e testes: aceita todos os pedidos e, depois de uma
+ * latência aleatória, entrega o resultado pelo mesmo caminho que o callback HTTP.
+ * Só existe nos perfis dev e test e quando app.pagamentos.gateway=simulado; por omissão aprova
+ * todos os pagamentos (app.pagamentos.simulador.taxa-falha=0).
+ */
+@Component
+@Profile({"dev", "test"})
+@ConditionalOnProperty(name = "app.pagamentos.gateway", havingValue = "simulado")
+public class GatewayPagamentoSimulado implements GatewayPagamento {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GatewayPagamentoSimulado.class);
+
+    @Autowired
+    private PagamentoConfirmacaoService pagamentoConfirmacaoService;
+
+    @Value("${app.pagamentos.simulador.latencia-min-ms:500}")
+    private long latenciaMinMs;
+
+    @Value("${app.pagamentos.simulador.latencia-max-ms:3000}")
+    private long latenciaMaxMs;
+
+    @Value("${app.pagamentos.simulador.taxa-falha:0}")
+    private double taxaFalha;
+
+    private final ScheduledExecutorService callbacks = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "gateway-simulado");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public String submeter(Pedido pedido) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        String transacao = "SIM" + Long.toHexString(aleatorio.nextLong() & Long.MAX_VALUE).toUpperCase();
+        long latencia = latenciaMaxMs > latenciaMinMs ? aleatorio.nextLong(latenciaMinMs, latenciaMaxMs + 1) : latenciaMinMs;
+        boolean sucesso = aleatorio.nextDouble() >= taxaFalha;
+
+        callbacks.schedule(() -> {
+            try {
+                pagamentoConfirmacaoService.registrarResultado(pedido.referencia(), sucesso, transacao);
+            } catch (RuntimeException e) {
+                LOG.warn("Falha no callback simulado do pagamento {}", pedido.referencia(), e);
+            }
+        }, latencia, TimeUnit.MILLISECONDS);
+        return transacao;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        callbacks.shutdownNow();
+    }
+}
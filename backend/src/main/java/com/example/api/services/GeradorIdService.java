@@ -0,0 +1,225 @@
+package com.example.api.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gerador de identificadores ao estilo Snowflake, sem locks nem acesso à base de dados por id.
+ *
+ * Cada id é um long positivo de 63 bits: 41 bits de milissegundos desde 2024-01-01 (≈69 anos),
+ * 10 bits de nó e 12 bits de sequência (4096 ids por milissegundo por nó). O estado
+ * (milissegundo, sequência) vive num só AtomicLong atualizado por CAS, pelo que os ids de um
+ * nó são estritamente crescentes mesmo com o relógio a andar para trás ou com a sequência
+ * esgotada: nesses casos o gerador avança um milissegundo "emprestado" em vez de esperar.
+ *
+ * Formas disponíveis: o long, texto legível (base32 Crockford, 13 caracteres, mesma ordem
+ * que o long) para referências de pagamento, e binário (8 bytes big-endian) para nomes de ficheiros.
+ *
+ * O nó vem de app.ids.no ou, se não estiver definido, de uma concessão na tabela gerador_id_no:
+ * no arranque a instância reclama o menor nó livre ou expirado e renova-o periodicamente. Se a
+ * concessão expirar sem ser renovada (outra instância pode então reclamar o nó), o gerador deixa
+ * de emitir ids até obter uma nova.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class GeradorIdService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GeradorIdService.class);
+
+    private static final long EPOCA_MS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int BITS_NO = 10;
+    private static final int BITS_SEQUENCIA = 12;
+    private static final long MAX_NO = (1L << BITS_NO) - 1;
+    private static final long MASCARA_SEQUENCIA = (1L << BITS_SEQUENCIA) - 1;
+
+    // Reclama o menor nó sem concessão válida; duas instâncias a escolher o mesmo nó ao mesmo
+    // tempo resolvem-se no ON CONFLICT, e a que perde tenta de novo
+    private static final String RECLAMAR_NO =
+            "INSERT INTO gerador_id_no (id_no, instancia, expira_em) " +
+            "SELECT s.id_no, ?, ? FROM generate_series(0, " + MAX_NO + ") AS s(id_no) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM gerador_id_no g WHERE g.id_no = s.id_no AND g.expira_em >= ?) " +
+            "ORDER BY s.id_no LIMIT 1 " +
+            "ON CONFLICT (id_no) DO UPDATE SET instancia = EXCLUDED.instancia, expira_em = EXCLUDED.expira_em " +
+            "WHERE gerador_id_no.expira_em < ? " +
+            "RETURNING id_no";
+
+    private static final int TENTATIVAS_RECLAMAR = 5;
+
+    private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int TAMANHO_TEXTO = 13;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.ids.concessao-ms:300000}")
+    private long concessaoMs;
+
+    private final boolean noConfigurado;
+    private final String instancia = instancia();
+    private volatile long no;
+    // Fim da concessão do nó (epoch ms); sem limite quando o nó é configurado
+    private volatile long concessaoAteMs = Long.MAX_VALUE;
+    // (milissegundos desde a época << BITS_SEQUENCIA) | sequência do último id emitido
+    private final AtomicLong ultimo = new AtomicLong();
+
+    public GeradorIdService(@Value("${app.ids.no:-1}") long no) {
+        if (no > MAX_NO) {
+            throw new IllegalArgumentException("app.ids.no deve estar entre 0 e " + MAX_NO);
+        }
+        this.noConfigurado = no >= 0;
+        this.no = no;
+        if (!noConfigurado) {
+            // Sem nó até à concessão
+            this.concessaoAteMs = 0;
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!noConfigurado) {
+            reclamarNo();
+            LOG.info("app.ids.no não definido; concessão do nó {} obtida para {}", no, instancia);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.ids.renovacao-ms:60000}", initialDelayString = "${app.ids.renovacao-ms:60000}")
+    public void renovarConcessao() {
+        if (noConfigurado) {
+            return;
+        }
+        OffsetDateTime agora = OffsetDateTime.now();
+        OffsetDateTime expiraEm = agora.plus(Duration.ofMillis(concessaoMs));
+        try {
+            int renovadas = jdbcTemplate.update(
+                    "UPDATE gerador_id_no SET expira_em = ? WHERE id_no = ? AND instancia = ? AND expira_em >= ?",
+                    expiraEm, no, instancia, agora);
+            if (renovadas > 0) {
+                concessaoAteMs = expiraEm.toInstant().toEpochMilli();
+                return;
+            }
+            LOG.error("Concessão do nó {} perdida; a reclamar outro nó", no);
+            reclamarNo();
+        } catch (RuntimeException e) {
+            // A concessão atual continua válida até expirar; a próxima renovação tenta de novo
+            LOG.warn("Falha ao renovar a concessão do nó {}", no, e);
+        }
+    }
+
+    @PreDestroy
+    public void libertarConcessao() {
+        if (noConfigurado) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("DELETE FROM gerador_id_no WHERE id_no = ? AND instancia = ?", no, instancia);
+        } catch (RuntimeException e) {
+            LOG.warn("Falha ao libertar a concessão do nó {}", no, e);
+        }
+    }
+
+    public long proximo() {
+        long agora = System.currentTimeMillis() - EPOCA_MS;
+        if (agora + EPOCA_MS > concessaoAteMs) {
+            throw new IllegalStateException("Gerador de ids sem concessão de nó válida");
+        }
+        long anterior;
+        long proximo;
+        do {
+            anterior = ultimo.get();
+            long instante = anterior >>> BITS_SEQUENCIA;
+            if (agora > instante) {
+                proximo = agora << BITS_SEQUENCIA;
+            } else {
+                // Mesmo milissegundo ou relógio atrasado: continua a sequência; ao esgotar, o
+                // incremento passa para o milissegundo seguinte
+                proximo = anterior + 1;
+            }
+        } while (!ultimo.compareAndSet(anterior, proximo));
+
+        long instante = proximo >>> BITS_SEQUENCIA;
+        long sequencia = proximo & MASCARA_SEQUENCIA;
+        return (instante << (BITS_NO + BITS_SEQUENCIA)) | (no << BITS_SEQUENCIA) | sequencia;
+    }
+
+    /**
+     * Id em texto legível: base32 Crockford sem caracteres ambíguos, largura fixa, ordenável.
+     */
+    public String proximoTexto() {
+        return texto(proximo());
+    }
+
+    /**
+     * Id em 8 bytes big-endian: a ordem dos bytes acompanha a ordem temporal.
+     */
+    public byte[] proximoBinario() {
+        long id = proximo();
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) id;
+            id >>>= 8;
+        }
+        return bytes;
+    }
+
+    /**
+     * Prefixo único para ficheiros enviados: a forma binária em hexadecimal (16 caracteres).
+     */
+    public String proximoNomeArquivo() {
+        return HexFormat.of().formatHex(proximoBinario());
+    }
+
+    public static String texto(long id) {
+        char[] caracteres = new char[TAMANHO_TEXTO];
+        for (int i = TAMANHO_TEXTO - 1; i >= 0; i--) {
+            caracteres[i] = BASE32[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(caracteres);
+    }
+
+    public static Instant instante(long id) {
+        return Instant.ofEpochMilli((id >>> (BITS_NO + BITS_SEQUENCIA)) + EPOCA_MS);
+    }
+
+    private void reclamarNo() {
+        for (int tentativa = 0; tentativa < TENTATIVAS_RECLAMAR; tentativa++) {
+            OffsetDateTime agora = OffsetDateTime.now();
+            OffsetDateTime expiraEm = agora.plus(Duration.ofMillis(concessaoMs));
+            List<Long> nos = jdbcTemplate.queryForList(RECLAMAR_NO, Long.class, instancia, expiraEm, agora, agora);
+            if (!nos.isEmpty()) {
+                no = nos.get(0);
+                concessaoAteMs = expiraEm.toInstant().toEpochMilli();
+                return;
+            }
+        }
+        throw new IllegalStateException("Nenhum nó livre para o gerador de ids (0-" + MAX_NO + "); defina app.ids.no");
+    }
+
+    private static String instancia() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return host + ":" + ProcessHandle.current().pid() + ":" + System.currentTimeMillis();
+    }
+}
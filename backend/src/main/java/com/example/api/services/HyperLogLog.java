@@ -0,0 +1,132 @@
+package com.example.api.services;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Esboço HyperLogLog com 2^13 registos de um byte (erro padrão ~1,15%). Dois esboços
+ * fundem-se tomando o máximo de cada registo, pelo que a fusão é associativa e
+ * idempotente: serve para juntar dias, janelas e instâncias diferentes.
+ */
+public final class HyperLogLog {
+
+    static final int PRECISAO = 13;
+    static final int REGISTOS = 1 << PRECISAO;
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTOS);
+
+    // Formatos de serialização: denso (todos os registos) ou esparso (pares índice/valor)
+    private static final byte DENSO = 0;
+    private static final byte ESPARSO = 1;
+
+    private final byte[] registos;
+
+    public HyperLogLog() {
+        this.registos = new byte[REGISTOS];
+    }
+
+    private HyperLogLog(byte[] registos) {
+        this.registos = registos;
+    }
+
+    public void adicionar(String valor) {
+        adicionarHash(hash(valor));
+    }
+
+    void adicionarHash(long hash) {
+        int indice = (int) (hash >>> (64 - PRECISAO));
+        // Bit sentinela garante rho <= 64 - PRECISAO + 1 mesmo com o resto do hash a zero
+        long resto = (hash << PRECISAO) | (1L << (PRECISAO - 1));
+        byte rho = (byte) (Long.numberOfLeadingZeros(resto) + 1);
+        if (rho > registos[indice]) {
+            registos[indice] = rho;
+        }
+    }
+
+    public void fundir(HyperLogLog outro) {
+        for (int i = 0; i < REGISTOS; i++) {
+            if (outro.registos[i] > registos[i]) {
+                registos[i] = outro.registos[i];
+            }
+        }
+    }
+
+    public HyperLogLog copia() {
+        return new HyperLogLog(registos.clone());
+    }
+
+    public long estimar() {
+        double soma = 0;
+        int zeros = 0;
+        for (byte registo : registos) {
+            soma += 1.0 / (1L << registo);
+            if (registo == 0) {
+                zeros++;
+            }
+        }
+        double estimativa = ALPHA * REGISTOS * REGISTOS / soma;
+        // Contagem linear para cardinalidades pequenas, onde o estimador bruto é enviesado
+        if (estimativa <= 2.5 * REGISTOS && zeros > 0) {
+            estimativa = REGISTOS * Math.log((double) REGISTOS / zeros);
+        }
+        return Math.round(estimativa);
+    }
+
+    public byte[] serializar() {
+        int ocupados = 0;
+        for (byte registo : registos) {
+            if (registo != 0) {
+                ocupados++;
+            }
+        }
+        if (ocupados * 3 < REGISTOS) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + ocupados * 3);
+            buffer.put(ESPARSO);
+            for (int i = 0; i < REGISTOS; i++) {
+                if (registos[i] != 0) {
+                    buffer.putShort((short) i);
+                    buffer.put(registos[i]);
+                }
+            }
+            return buffer.array();
+        }
+        byte[] dados = new byte[1 + REGISTOS];
+        dados[0] = DENSO;
+        System.arraycopy(registos, 0, dados, 1, REGISTOS);
+        return dados;
+    }
+
+    public static HyperLogLog deserializar(byte[] dados) {
+        HyperLogLog hll = new HyperLogLog();
+        if (dados == null || dados.length == 0) {
+            return hll;
+        }
+        if (dados[0] == DENSO && dados.length == 1 + REGISTOS) {
+            System.arraycopy(dados, 1, hll.registos, 0, REGISTOS);
+        } else if (dados[0] == ESPARSO && (dados.length - 1) % 3 == 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(dados, 1, dados.length - 1);
+            while (buffer.hasRemaining()) {
+                int indice = Short.toUnsignedInt(buffer.getShort());
+                hll.registos[indice] = buffer.get();
+            }
+        } else {
+            throw new IllegalArgumentException("Esboço HyperLogLog inválido");
+        }
+        return hll;
+    }
+
+    // FNV-1a de 64 bits seguido do finalizador do MurmurHash3 para espalhar os bits altos
+    static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
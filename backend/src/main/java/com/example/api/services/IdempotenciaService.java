@@ -0,0 +1,259 @@
+package com.example.api.services;
+
+import com.example.api.entities.ChaveIdempotencia;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Execução idempotente de pedidos com cabeçalho Idempotency-Key.
+ *
+ * A primeira execução reclama a chave na tabela chave_idempotencia (INSERT ... ON CONFLICT),
+ * executa o pedido e guarda a resposta; as repetições recebem a resposta guardada sem voltar a
+ * executar. As respostas recentes ficam também numa cache local (Caffeine), para que a maioria
+ * das repetições não toque na base de dados. Duplicados concorrentes na mesma instância esperam
+ * pelo futuro da primeira execução; noutra instância, esperam que a linha passe a CONCLUIDO.
+ *
+ * Só as respostas 2xx são guardadas: uma falha liberta a chave para que o cliente possa repetir.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    public static final String CABECALHO = "Idempotency-Key";
+    private static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 100;
+    private static final long INTERVALO_CONSULTA_MS = 100;
+
+    // Reclama a chave; uma linha expirada é reaproveitada em vez de bloquear a chave para sempre
+    private static final String RECLAMAR =
+            "INSERT INTO chave_idempotencia (chave, hash_pedido, estado, data_criacao, expira_em) " +
+            "VALUES (?, ?, '" + ChaveIdempotencia.EM_CURSO + "', ?, ?) " +
+            "ON CONFLICT (chave) DO UPDATE SET hash_pedido = EXCLUDED.hash_pedido, estado = EXCLUDED.estado, " +
+            "status_http = NULL, corpo = NULL, data_criacao = EXCLUDED.data_criacao, expira_em = EXCLUDED.expira_em " +
+            "WHERE chave_idempotencia.expira_em < EXCLUDED.data_criacao";
+
+    private static final String CONCLUIR =
+            "UPDATE chave_idempotencia SET estado = '" + ChaveIdempotencia.CONCLUIDO + "', status_http = ?, corpo = ? " +
+            "WHERE chave = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.idempotencia.ttl-horas:24}")
+    private long ttlHoras;
+
+    @Value("${app.idempotencia.espera-ms:30000}")
+    private long esperaMs;
+
+    private final Cache<String, Resposta> respostas;
+    private final Map<String, CompletableFuture<Resposta>> emCurso = new ConcurrentHashMap<>();
+
+    private record Resposta(String hashPedido, int status, String corpo) {
+    }
+
+    public IdempotenciaService(
+            @Value("${app.idempotencia.cache-tamanho:10000}") long tamanhoCache,
+            @Value("${app.idempotencia.cache-ttl-minutos:60}") long ttlCacheMinutos) {
+        this.respostas = Caffeine.newBuilder()
+                .maximumSize(tamanhoCache)
+                .expireAfterWrite(Duration.ofMinutes(ttlCacheMinutos))
+                .build();
+    }
+
+    /**
+     * Executa {@code acao} no máximo uma vez por (operação, chave). Sem chave, executa sempre.
+     *
+     * @param operacao     identifica o endpoint, para que a mesma chave possa ser usada em operações diferentes
+     * @param chaveCliente valor do cabeçalho Idempotency-Key (pode ser null)
+     * @param parametros   parâmetros do pedido; a mesma chave com parâmetros diferentes é recusada
+     */
+    public ResponseEntity<?> executar(String operacao, String chaveCliente, Supplier<ResponseEntity<?>> acao,
+                                      Object... parametros) {
+        if (chaveCliente == null || chaveCliente.isBlank()) {
+            return acao.get();
+        }
+        if (chaveCliente.length() > TAMANHO_MAXIMO_CHAVE) {
+            return erro(HttpStatus.BAD_REQUEST, CABECALHO + " deve ter no máximo " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+        String chave = operacao + ":" + chaveCliente;
+        String hashPedido = hash(parametros);
+
+        Resposta guardada = respostas.getIfPresent(chave);
+        if (guardada != null) {
+            return repetir(guardada, hashPedido);
+        }
+
+        CompletableFuture<Resposta> futuro = new CompletableFuture<>();
+        CompletableFuture<Resposta> anterior = emCurso.putIfAbsent(chave, futuro);
+        if (anterior != null) {
+            return aguardar(anterior, hashPedido);
+        }
+        try {
+            return executarComChave(chave, hashPedido, acao, futuro);
+        } finally {
+            emCurso.remove(chave, futuro);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotencia.limpeza-ms:3600000}")
+    public void limparExpiradas() {
+        int removidas = jdbcTemplate.update("DELETE FROM chave_idempotencia WHERE expira_em < ?", OffsetDateTime.now());
+        if (removidas > 0) {
+            LOG.debug("Chaves de idempotência expiradas removidas: {}", removidas);
+        }
+    }
+
+    private ResponseEntity<?> executarComChave(String chave, String hashPedido, Supplier<ResponseEntity<?>> acao,
+                                               CompletableFuture<Resposta> futuro) {
+        long limite = System.currentTimeMillis() + esperaMs;
+        while (!reclamar(chave, hashPedido)) {
+            // Outra instância já reclamou a chave: devolve a resposta guardada ou espera que termine
+            Resposta persistida = buscar(chave);
+            if (persistida != null) {
+                respostas.put(chave, persistida);
+                futuro.complete(persistida);
+                return repetir(persistida, hashPedido);
+            }
+            if (System.currentTimeMillis() > limite) {
+                futuro.complete(null);
+                return erro(HttpStatus.CONFLICT, "Pedido com esta " + CABECALHO + " ainda em processamento");
+            }
+            try {
+                Thread.sleep(INTERVALO_CONSULTA_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futuro.complete(null);
+                return erro(HttpStatus.CONFLICT, "Pedido com esta " + CABECALHO + " ainda em processamento");
+            }
+        }
+
+        Resposta resposta;
+        ResponseEntity<?> resultado;
+        try {
+            resultado = acao.get();
+            resposta = new Resposta(hashPedido, resultado.getStatusCode().value(), serializar(resultado.getBody()));
+        } catch (RuntimeException e) {
+            libertar(chave);
+            futuro.completeExceptionally(e);
+            throw e;
+        }
+
+        if (resultado.getStatusCode().is2xxSuccessful()) {
+            try {
+                jdbcTemplate.update(CONCLUIR, resposta.status(), resposta.corpo(), chave);
+                respostas.put(chave, resposta);
+            } catch (RuntimeException e) {
+                // O pedido foi executado: a chave fica EM_CURSO até expirar, para nunca executar duas vezes
+                LOG.warn("Falha ao guardar a resposta da chave de idempotência {}", chave, e);
+            }
+        } else {
+            libertar(chave);
+        }
+        futuro.complete(resposta);
+        return resultado;
+    }
+
+    private ResponseEntity<?> aguardar(CompletableFuture<Resposta> anterior, String hashPedido) {
+        try {
+            Resposta resposta = anterior.get(esperaMs, TimeUnit.MILLISECONDS);
+            if (resposta != null) {
+                return repetir(resposta, hashPedido);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Cai no 409 abaixo
+        }
+        return erro(HttpStatus.CONFLICT, "Pedido com esta " + CABECALHO + " ainda em processamento");
+    }
+
+    private boolean reclamar(String chave, String hashPedido) {
+        OffsetDateTime agora = OffsetDateTime.now();
+        return jdbcTemplate.update(RECLAMAR, chave, hashPedido, agora, agora.plusHours(ttlHoras)) > 0;
+    }
+
+    private Resposta buscar(String chave) {
+        List<Resposta> linhas = jdbcTemplate.query(
+                "SELECT hash_pedido, status_http, corpo FROM chave_idempotencia WHERE chave = ? AND estado = ?",
+                (rs, i) -> new Resposta(rs.getString("hash_pedido"), rs.getInt("status_http"), rs.getString("corpo")),
+                chave, ChaveIdempotencia.CONCLUIDO);
+        return linhas.isEmpty() ? null : linhas.get(0);
+    }
+
+    private void libertar(String chave) {
+        try {
+            jdbcTemplate.update("DELETE FROM chave_idempotencia WHERE chave = ? AND estado = ?", chave, ChaveIdempotencia.EM_CURSO);
+        } catch (RuntimeException e) {
+            LOG.warn("Falha ao libertar a chave de idempotência {}", chave, e);
+        }
+    }
+
+    private ResponseEntity<?> repetir(Resposta resposta, String hashPedido) {
+        if (!resposta.hashPedido().equals(hashPedido)) {
+            return erro(HttpStatus.UNPROCESSABLE_ENTITY, CABECALHO + " já usada com um pedido diferente");
+        }
+        return ResponseEntity.status(resposta.status())
+                .header(CABECALHO_REPETIDA, "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(resposta.corpo());
+    }
+
+    private String serializar(Object corpo) {
+        try {
+            return objectMapper.writeValueAsString(corpo);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Falha ao serializar a resposta", e);
+        }
+    }
+
+    private static ResponseEntity<?> erro(HttpStatus status, String mensagem) {
+        return ResponseEntity.status(status).body(Map.of(
+                "success", false,
+                "error", mensagem));
+    }
+
+    private static String hash(Object... parametros) {
+        StringBuilder sb = new StringBuilder();
+        for (Object parametro : parametros) {
+            sb.append(parametro).append('\u001f');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
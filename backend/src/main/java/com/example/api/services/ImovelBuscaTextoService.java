@@ -0,0 +1,244 @@
+package com.example.api.services;
+
+import com.example.api.entities.Imovel;
+import com.example.api.events.ImovelAlteradoEvent;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.repositories.ImovelRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória sobre título e descrição dos imóveis disponíveis.
+ * As pesquisas são respondidas sem tocar na base de dados, com ranking BM25
+ * e suporte a frases entre aspas ("vista para o mar").
+ */
+@Service
+public class ImovelBuscaTextoService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImovelBuscaTextoService.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Intervalo de posições entre título e descrição para que uma frase não atravesse os dois campos
+    private static final int INTERVALO_CAMPOS = 100;
+
+    private static final Pattern FRASE = Pattern.compile("\"([^\"]+)\"");
+
+    @Autowired
+    private ImovelRepository imovelRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // termo -> (idImovel -> posições do termo no documento)
+    private Map<String, Map<Long, int[]>> postings = new HashMap<>();
+    private Map<Long, Documento> documentos = new HashMap<>();
+    private long somaComprimentos;
+
+    private record Documento(String titulo, int comprimento, Set<String> termos) {
+    }
+
+    public record ResultadoBusca(Long idImovel, String titulo, double pontuacao) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirIndice() {
+        List<Imovel> imoveis = imovelRepository.findDisponiveis();
+
+        Map<String, Map<Long, int[]>> novosPostings = new HashMap<>();
+        Map<Long, Documento> novosDocumentos = new HashMap<>();
+        long novaSoma = 0;
+        for (Imovel imovel : imoveis) {
+            novaSoma += adicionar(imovel, novosPostings, novosDocumentos);
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = novosPostings;
+            documentos = novosDocumentos;
+            somaComprimentos = novaSoma;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.info("Índice de pesquisa de texto construído: {} imóveis, {} termos", novosDocumentos.size(), novosPostings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImovelAlterado(ImovelAlteradoEvent evento) {
+        Imovel imovel = evento.imovel();
+        if (evento.tipo() == TipoAlteracao.REMOVIDO || imovel == null
+                || !"DISPONIVEL".equals(imovel.getStatusImovel())) {
+            remover(evento.idImovel());
+        } else {
+            indexar(imovel);
+        }
+    }
+
+    public void indexar(Imovel imovel) {
+        lock.writeLock().lock();
+        try {
+            removerSemLock(imovel.getId());
+            somaComprimentos += adicionar(imovel, postings, documentos);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(Long idImovel) {
+        lock.writeLock().lock();
+        try {
+            removerSemLock(idImovel);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ResultadoBusca> pesquisar(String consulta, int limite) {
+        if (consulta == null || consulta.isBlank()) {
+            return List.of();
+        }
+
+        List<List<TextoNormalizador.Token>> frases = new ArrayList<>();
+        Matcher matcher = FRASE.matcher(consulta);
+        while (matcher.find()) {
+            List<TextoNormalizador.Token> frase = TextoNormalizador.tokenizar(matcher.group(1), 0);
+            if (!frase.isEmpty()) {
+                frases.add(frase);
+            }
+        }
+        Set<String> termos = new HashSet<>();
+        for (TextoNormalizador.Token token : TextoNormalizador.tokenizar(consulta, 0)) {
+            termos.add(token.termo());
+        }
+        if (termos.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int totalDocumentos = documentos.size();
+            if (totalDocumentos == 0) {
+                return List.of();
+            }
+            double comprimentoMedio = (double) somaComprimentos / totalDocumentos;
+
+            Map<Long, Double> pontuacoes = new HashMap<>();
+            for (String termo : termos) {
+                Map<Long, int[]> lista = postings.get(termo);
+                if (lista == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (totalDocumentos - lista.size() + 0.5) / (lista.size() + 0.5));
+                for (Map.Entry<Long, int[]> entrada : lista.entrySet()) {
+                    int frequencia = entrada.getValue().length;
+                    int comprimento = documentos.get(entrada.getKey()).comprimento();
+                    double tf = (frequencia * (K1 + 1))
+                            / (frequencia + K1 * (1 - B + B * comprimento / comprimentoMedio));
+                    pontuacoes.merge(entrada.getKey(), idf * tf, Double::sum);
+                }
+            }
+
+            PriorityQueue<ResultadoBusca> melhores = new PriorityQueue<>(
+                    Comparator.comparingDouble(ResultadoBusca::pontuacao));
+            for (Map.Entry<Long, Double> entrada : pontuacoes.entrySet()) {
+                Long idImovel = entrada.getKey();
+                if (!contemFrases(idImovel, frases)) {
+                    continue;
+                }
+                melhores.offer(new ResultadoBusca(idImovel, documentos.get(idImovel).titulo(), entrada.getValue()));
+                if (melhores.size() > limite) {
+                    melhores.poll();
+                }
+            }
+
+            List<ResultadoBusca> resultado = new ArrayList<>(melhores);
+            resultado.sort(Comparator.comparingDouble(ResultadoBusca::pontuacao).reversed());
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean contemFrases(Long idImovel, List<List<TextoNormalizador.Token>> frases) {
+        for (List<TextoNormalizador.Token> frase : frases) {
+            if (!contemFrase(idImovel, frase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean contemFrase(Long idImovel, List<TextoNormalizador.Token> frase) {
+        Map<Long, int[]> primeiro = postings.get(frase.get(0).termo());
+        int[] inicios = primeiro != null ? primeiro.get(idImovel) : null;
+        if (inicios == null) {
+            return false;
+        }
+        for (int inicio : inicios) {
+            boolean encontrada = true;
+            for (int i = 1; i < frase.size() && encontrada; i++) {
+                Map<Long, int[]> lista = postings.get(frase.get(i).termo());
+                int[] posicoes = lista != null ? lista.get(idImovel) : null;
+                int esperada = inicio + frase.get(i).posicao() - frase.get(0).posicao();
+                encontrada = posicoes != null && Arrays.binarySearch(posicoes, esperada) >= 0;
+            }
+            if (encontrada) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int adicionar(Imovel imovel, Map<String, Map<Long, int[]>> postings, Map<Long, Documento> documentos) {
+        List<TextoNormalizador.Token> tokens = new ArrayList<>(TextoNormalizador.tokenizar(imovel.getTitulo(), 0));
+        int inicioDescricao = tokens.isEmpty() ? INTERVALO_CAMPOS : tokens.get(tokens.size() - 1).posicao() + INTERVALO_CAMPOS;
+        tokens.addAll(TextoNormalizador.tokenizar(imovel.getDescricao(), inicioDescricao));
+
+        Map<String, List<Integer>> posicoesPorTermo = new LinkedHashMap<>();
+        for (TextoNormalizador.Token token : tokens) {
+            posicoesPorTermo.computeIfAbsent(token.termo(), t -> new ArrayList<>()).add(token.posicao());
+        }
+        for (Map.Entry<String, List<Integer>> entrada : posicoesPorTermo.entrySet()) {
+            int[] posicoes = entrada.getValue().stream().mapToInt(Integer::intValue).toArray();
+            postings.computeIfAbsent(entrada.getKey(), t -> new HashMap<>()).put(imovel.getId(), posicoes);
+        }
+        documentos.put(imovel.getId(), new Documento(imovel.getTitulo(), tokens.size(), posicoesPorTermo.keySet()));
+        return tokens.size();
+    }
+
+    private void removerSemLock(Long idImovel) {
+        Documento documento = documentos.remove(idImovel);
+        if (documento == null) {
+            return;
+        }
+        for (String termo : documento.termos()) {
+            Map<Long, int[]> lista = postings.get(termo);
+            if (lista != null) {
+                lista.remove(idImovel);
+                if (lista.isEmpty()) {
+                    postings.remove(termo);
+                }
+            }
+        }
+        somaComprimentos -= documento.comprimento();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.api.services;
+
+import com.example.api.dtos.PaginaDTO;
+import com.example.api.entities.ImovelCard;
+import com.example.api.events.AnuncioAlteradoEvent;
+import com.example.api.events.ImovelAlteradoEvent;
+import com.example.api.events.ImovelImagemAlteradaEvent;
+import com.example.api.events.LocalizacaoAlteradaEvent;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.repositories.ImovelCardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Mantém a tabela imovel_card. Os eventos são tratados de forma síncrona, dentro da
+ * transação de quem escreveu, para que o cartão nunca fique à frente nem atrás dos dados.
+ */
+@Service
+public class ImovelCardService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImovelCardService.class);
+
+    @Autowired
+    private ImovelCardRepository imovelCardRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconstruirTodos() {
+        int atualizados = imovelCardRepository.reconstruirTodos();
+        int removidos = imovelCardRepository.removerOrfaos();
+        LOG.info("Cartões de imóveis reconstruídos: {} atualizados, {} removidos", atualizados, removidos);
+    }
+
+    @EventListener
+    @Transactional
+    public void onImovelAlterado(ImovelAlteradoEvent evento) {
+        if (evento.tipo() == TipoAlteracao.REMOVIDO) {
+            imovelCardRepository.removerCard(evento.idImovel());
+        } else {
+            atualizar(evento.idImovel());
+        }
+    }
+
+    @EventListener
+    @Transactional
+    public void onLocalizacaoAlterada(LocalizacaoAlteradaEvent evento) {
+        atualizar(evento.idImovel());
+    }
+
+    @EventListener
+    @Transactional
+    public void onImovelImagemAlterada(ImovelImagemAlteradaEvent evento) {
+        atualizar(evento.idImovel());
+    }
+
+    @EventListener
+    @Transactional
+    public void onAnuncioAlterado(AnuncioAlteradoEvent evento) {
+        atualizar(evento.idImovel());
+    }
+
+    public PaginaDTO<ImovelCard> listarDisponiveis(String cursor, Integer limite) {
+        int tamanho = CursorPaginacao.normalizarLimite(limite);
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+        List<ImovelCard> cards;
+        if (cursor == null || cursor.isBlank()) {
+            cards = imovelCardRepository.findDisponiveisPrimeiraPagina(limiteConsulta);
+        } else {
+            Posicao posicao = Posicao.de(cursor);
+            cards = imovelCardRepository.findDisponiveisApos(posicao.dataCriacao(), posicao.id(), limiteConsulta);
+        }
+        return pagina(cards, tamanho);
+    }
+
+    public PaginaDTO<ImovelCard> listarPorAnunciante(Long idAnunciante, String cursor, Integer limite) {
+        int tamanho = CursorPaginacao.normalizarLimite(limite);
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+        List<ImovelCard> cards;
+        if (cursor == null || cursor.isBlank()) {
+            cards = imovelCardRepository.findByAnunciantePrimeiraPagina(idAnunciante, limiteConsulta);
+        } else {
+            Posicao posicao = Posicao.de(cursor);
+            cards = imovelCardRepository.findByAnuncianteApos(idAnunciante, posicao.dataCriacao(), posicao.id(), limiteConsulta);
+        }
+        return pagina(cards, tamanho);
+    }
+
+    public List<ImovelCard> buscarPorImoveis(List<Long> idsImovel) {
+        return imovelCardRepository.findAllById(idsImovel);
+    }
+
+    private void atualizar(Long idImovel) {
+        if (idImovel == null) {
+            return;
+        }
+        if (imovelCardRepository.atualizarCard(idImovel) == 0) {
+            imovelCardRepository.removerCard(idImovel);
+        }
+    }
+
+    private static PaginaDTO<ImovelCard> pagina(List<ImovelCard> cards, int tamanho) {
+        return CursorPaginacao.pagina(cards, tamanho,
+                ultimo -> CursorPaginacao.codificar(ultimo.getDataCriacao(), ultimo.getIdImovel()));
+    }
+
+    private record Posicao(OffsetDateTime dataCriacao, Long id) {
+        static Posicao de(String cursor) {
+            String[] partes = CursorPaginacao.descodificar(cursor, 2);
+            try {
+                return new Posicao(OffsetDateTime.parse(partes[0]), Long.valueOf(partes[1]));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.api.services;
+
+import com.example.api.entities.Imovel;
+import com.example.api.entities.Localizacao;
+import com.example.api.events.ImovelAlteradoEvent;
+import com.example.api.events.LocalizacaoAlteradaEvent;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.repositories.ImovelRepository;
+import com.example.api.repositories.LocalizacaoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Contagens por faceta (categoria, finalidade, estado, província, cidade e faixa de preço)
+ * mantidas em memória. Cada valor de faceta guarda um BitSet com os imóveis que o têm,
+ * pelo que uma contagem com filtros ativos é a cardinalidade de uma interseção de bitsets.
+ * O estado é atualizado a cada escrita e reconciliado periodicamente com a base de dados.
+ */
+@Service
+public class ImovelFacetaService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImovelFacetaService.class);
+
+    public static final String CATEGORIA = "categoria";
+    public static final String FINALIDADE = "finalidade";
+    public static final String STATUS = "statusImovel";
+    public static final String PROVINCIA = "provincia";
+    public static final String CIDADE = "cidade";
+    public static final String FAIXA_PRECO = "faixaPreco";
+
+    private static final String[] FACETAS = {CATEGORIA, FINALIDADE, STATUS, PROVINCIA, CIDADE, FAIXA_PRECO};
+
+    private static final BigDecimal[] LIMITES_PRECO = {
+            new BigDecimal("50000"), new BigDecimal("250000"), new BigDecimal("1000000"), new BigDecimal("5000000")
+    };
+    private static final String[] FAIXAS_PRECO = {
+            "0-50000", "50000-250000", "250000-1000000", "1000000-5000000", "5000000+"
+    };
+
+    @Autowired
+    private ImovelRepository imovelRepository;
+
+    @Autowired
+    private LocalizacaoRepository localizacaoRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Estado estado = new Estado();
+
+    // Alterações recebidas enquanto uma reconstrução lê a base de dados; são reaplicadas no fim
+    private List<Consumer<Estado>> alteracoesDuranteReconstrucao;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        reconciliar();
+    }
+
+    @Scheduled(fixedDelayString = "${app.facetas.reconciliacao-ms:600000}",
+            initialDelayString = "${app.facetas.reconciliacao-ms:600000}")
+    public void reconciliar() {
+        lock.writeLock().lock();
+        try {
+            alteracoesDuranteReconstrucao = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Estado novo = new Estado();
+        try {
+            for (Imovel imovel : imovelRepository.findAll()) {
+                novo.aplicarImovel(imovel);
+            }
+            for (Localizacao localizacao : localizacaoRepository.findAll()) {
+                novo.aplicarLocalizacao(localizacao.getIdImovel(), localizacao);
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                alteracoesDuranteReconstrucao = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            alteracoesDuranteReconstrucao.forEach(alteracao -> alteracao.accept(novo));
+            alteracoesDuranteReconstrucao = null;
+            estado = novo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.debug("Facetas reconciliadas: {} imóveis", novo.ativos.cardinality());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImovelAlterado(ImovelAlteradoEvent evento) {
+        if (evento.tipo() == TipoAlteracao.REMOVIDO) {
+            aplicar(e -> e.removerImovel(evento.idImovel()));
+        } else {
+            Imovel imovel = evento.imovel();
+            aplicar(e -> e.aplicarImovel(imovel));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocalizacaoAlterada(LocalizacaoAlteradaEvent evento) {
+        Localizacao localizacao = evento.tipo() == TipoAlteracao.REMOVIDO ? null : evento.localizacao();
+        aplicar(e -> e.aplicarLocalizacao(evento.idImovel(), localizacao));
+    }
+
+    /**
+     * Devolve, para cada faceta, a contagem por valor considerando os filtros ativos.
+     * Cada faceta ignora o seu próprio filtro (faceta disjuntiva), para que o utilizador
+     * veja as alternativas ao valor que já escolheu.
+     */
+    public Map<String, Map<String, Integer>> contar(Map<String, String> filtros) {
+        lock.readLock().lock();
+        try {
+            Map<String, Map<String, Integer>> resultado = new LinkedHashMap<>();
+            for (int f = 0; f < FACETAS.length; f++) {
+                BitSet mascara = (BitSet) estado.ativos.clone();
+                for (int g = 0; g < FACETAS.length; g++) {
+                    String valorFiltro = filtros.get(FACETAS[g]);
+                    if (g == f || valorFiltro == null) {
+                        continue;
+                    }
+                    BitSet bits = estado.bitsPorFaceta.get(g).get(valorFiltro);
+                    if (bits == null) {
+                        mascara.clear();
+                        break;
+                    }
+                    mascara.and(bits);
+                }
+
+                Map<String, Integer> contagens = new TreeMap<>();
+                for (Map.Entry<String, BitSet> valor : estado.bitsPorFaceta.get(f).entrySet()) {
+                    BitSet intersecao = (BitSet) valor.getValue().clone();
+                    intersecao.and(mascara);
+                    int total = intersecao.cardinality();
+                    if (total > 0) {
+                        contagens.put(valor.getKey(), total);
+                    }
+                }
+                resultado.put(FACETAS[f], contagens);
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void aplicar(Consumer<Estado> alteracao) {
+        lock.writeLock().lock();
+        try {
+            alteracao.accept(estado);
+            if (alteracoesDuranteReconstrucao != null) {
+                alteracoesDuranteReconstrucao.add(alteracao);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static String faixaPreco(BigDecimal preco) {
+        if (preco == null) {
+            return null;
+        }
+        for (int i = 0; i < LIMITES_PRECO.length; i++) {
+            if (preco.compareTo(LIMITES_PRECO[i]) < 0) {
+                return FAIXAS_PRECO[i];
+            }
+        }
+        return FAIXAS_PRECO[FAIXAS_PRECO.length - 1];
+    }
+
+    /**
+     * Cada imóvel ocupa uma posição (slot) fixa em todos os bitsets.
+     * {@code ativos} marca os slots que correspondem a um imóvel existente.
+     */
+    private static class Estado {
+        private final Map<Long, Integer> slotPorImovel = new HashMap<>();
+        private final List<String[]> valoresPorSlot = new ArrayList<>();
+        private final Deque<Integer> slotsLivres = new ArrayDeque<>();
+        private final BitSet ativos = new BitSet();
+        private final List<Map<String, BitSet>> bitsPorFaceta = new ArrayList<>();
+
+        Estado() {
+            for (int i = 0; i < FACETAS.length; i++) {
+                bitsPorFaceta.add(new HashMap<>());
+            }
+        }
+
+        void aplicarImovel(Imovel imovel) {
+            int slot = slot(imovel.getId());
+            String[] valores = valoresPorSlot.get(slot).clone();
+            valores[0] = imovel.getCategoria();
+            valores[1] = imovel.getFinalidade();
+            valores[2] = imovel.getStatusImovel();
+            valores[5] = faixaPreco(imovel.getPrecoMzn());
+            substituir(slot, valores);
+            ativos.set(slot);
+        }
+
+        void aplicarLocalizacao(Long idImovel, Localizacao localizacao) {
+            if (idImovel == null) {
+                return;
+            }
+            int slot = slot(idImovel);
+            String[] valores = valoresPorSlot.get(slot).clone();
+            valores[3] = localizacao != null ? localizacao.getProvincia() : null;
+            valores[4] = localizacao != null ? localizacao.getCidade() : null;
+            substituir(slot, valores);
+        }
+
+        void removerImovel(Long idImovel) {
+            Integer slot = slotPorImovel.remove(idImovel);
+            if (slot == null) {
+                return;
+            }
+            substituir(slot, new String[FACETAS.length]);
+            ativos.clear(slot);
+            slotsLivres.push(slot);
+        }
+
+        private int slot(Long idImovel) {
+            Integer existente = slotPorImovel.get(idImovel);
+            if (existente != null) {
+                return existente;
+            }
+            int novo;
+            if (!slotsLivres.isEmpty()) {
+                novo = slotsLivres.pop();
+            } else {
+                novo = valoresPorSlot.size();
+                valoresPorSlot.add(new String[FACETAS.length]);
+            }
+            slotPorImovel.put(idImovel, novo);
+            return novo;
+        }
+
+        private void substituir(int slot, String[] novos) {
+            String[] antigos = valoresPorSlot.get(slot);
+            for (int f = 0; f < FACETAS.length; f++) {
+                if (antigos[f] != null) {
+                    BitSet bits = bitsPorFaceta.get(f).get(antigos[f]);
+                    bits.clear(slot);
+                    if (bits.isEmpty()) {
+                        bitsPorFaceta.get(f).remove(antigos[f]);
+                    }
+                }
+                if (novos[f] != null) {
+                    bitsPorFaceta.get(f).computeIfAbsent(novos[f], v -> new BitSet()).set(slot);
+                }
+            }
+            valoresPorSlot.set(slot, novos);
+        }
+    }
+}
@@ -1,12 +1,29 @@
 package com.example.api.services;
 
+import com.example.api.dtos.ImovelFiltroDTO;
+import com.example.api.dtos.ImovelLoteDTO;
+import com.example.api.dtos.ImovelPesquisaDTO;
+import com.example.api.dtos.LocalizacaoDTO;
+import com.example.api.dtos.MapaPontoDTO;
+import com.example.api.dtos.PaginaDTO;
 import com.example.api.entities.Anunciante;
 import com.example.api.entities.Imovel;
 import com.example.api.entities.ImovelImagem;
+import com.example.api.entities.Localizacao;
+import com.example.api.events.ImovelAlteradoEvent;
+import com.example.api.events.ImovelImagemAlteradaEvent;
+import com.example.api.events.TipoAlteracao;
 import com.example.api.repositories.AnuncianteRepository;
 import com.example.api.repositories.ImovelImagemRepository;
 import com.example.api.repositories.ImovelRepository;
+import com.example.api.repositories.ImovelSpecifications;
+import com.example.api.repositories.LocalizacaoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -18,9 +35,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ImovelService {
@@ -33,15 +54,33 @@ public class ImovelService {
             "image/jpeg", "image/jpg", "image/png", "image/gif", "image/bmp", "image/webp"
     };
 
+    // Limite de ids por pedido em lote, para manter a cláusula IN e a resposta com tamanho razoável
+    private static final int MAX_IDS_LOTE = 200;
+
     @Autowired
     private ImovelRepository imovelRepository;
 
+    @Autowired
+    private GeradorIdService geradorIdService;
+
     @Autowired
     private ImovelImagemRepository imagemRepository;
 
     @Autowired
     private AnuncianteRepository anuncianteRepository;
 
+    @Autowired
+    private LocalizacaoRepository localizacaoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private LocalizacaoGeoService localizacaoGeoService;
+
+    @Autowired
+    private EntidadeCacheService entidadeCacheService;
+
     @Transactional
     public Imovel criarImovel(String titulo, String descricao, BigDecimal precoMzn,
             BigDecimal area, String finalidade, String categoria,
@@ -68,7 +107,7 @@ public class ImovelService {
 
         String mainImageUrl = null;
         if (imagemPrincipal != null && !imagemPrincipal.isEmpty()) {
-            String fileName = UUID.randomUUID().toString() + "_main_" + imagemPrincipal.getOriginalFilename();
+            String fileName = geradorIdService.proximoNomeArquivo() + "_main_" + imagemPrincipal.getOriginalFilename();
             Path filePath = Paths.get(MAIN_IMAGES_DIR + fileName);
             Files.write(filePath, imagemPrincipal.getBytes());
             mainImageUrl = "/uploads/properties/main/" + fileName;
@@ -91,7 +130,7 @@ public class ImovelService {
         if (imagensGaleria != null && !imagensGaleria.isEmpty()) {
             for (int i = 0; i < imagensGaleria.size(); i++) {
                 MultipartFile imagem = imagensGaleria.get(i);
-                String fileName = UUID.randomUUID().toString() + "_gallery_" + imagem.getOriginalFilename();
+                String fileName = geradorIdService.proximoNomeArquivo() + "_gallery_" + imagem.getOriginalFilename();
                 Path filePath = Paths.get(GALLERY_IMAGES_DIR + fileName);
                 Files.write(filePath, imagem.getBytes());
 
@@ -103,8 +142,11 @@ public class ImovelService {
 
                 imagemRepository.save(imagemGaleria);
             }
+            eventPublisher.publishEvent(new ImovelImagemAlteradaEvent(savedImovel.getId()));
         }
 
+        eventPublisher.publishEvent(new ImovelAlteradoEvent(savedImovel.getId(), savedImovel, TipoAlteracao.CRIADO));
+
         return savedImovel;
     }
 
@@ -137,7 +179,7 @@ public class ImovelService {
                 Files.deleteIfExists(oldPath);
             }
 
-            String fileName = UUID.randomUUID().toString() + "_main_" + imagemPrincipal.getOriginalFilename();
+            String fileName = geradorIdService.proximoNomeArquivo() + "_main_" + imagemPrincipal.getOriginalFilename();
             Path filePath = Paths.get(MAIN_IMAGES_DIR + fileName);
             Files.write(filePath, imagemPrincipal.getBytes());
             imovel.setImagemPrincipalUrl("/uploads/properties/main/" + fileName);
@@ -156,7 +198,7 @@ public class ImovelService {
             Long currentCount = imagemRepository.countByImovel(id);
             for (int i = 0; i < imagensGaleria.size(); i++) {
                 MultipartFile imagem = imagensGaleria.get(i);
-                String fileName = UUID.randomUUID().toString() + "_gallery_" + imagem.getOriginalFilename();
+                String fileName = geradorIdService.proximoNomeArquivo() + "_gallery_" + imagem.getOriginalFilename();
                 Path filePath = Paths.get(GALLERY_IMAGES_DIR + fileName);
                 Files.write(filePath, imagem.getBytes());
 
@@ -168,8 +210,11 @@ public class ImovelService {
 
                 imagemRepository.save(imagemGaleria);
             }
+            eventPublisher.publishEvent(new ImovelImagemAlteradaEvent(savedImovel.getId()));
         }
 
+        eventPublisher.publishEvent(new ImovelAlteradoEvent(savedImovel.getId(), savedImovel, TipoAlteracao.ATUALIZADO));
+
         return savedImovel;
     }
 
@@ -193,6 +238,7 @@ public class ImovelService {
         imagemRepository.delete(imagem);
 
         reorderGalleryImages(imagem.getIdImovel());
+        eventPublisher.publishEvent(new ImovelImagemAlteradaEvent(imagem.getIdImovel()));
     }
 
     @Transactional
@@ -200,6 +246,7 @@ public class ImovelService {
         for (int i = 0; i < imagemIdsOrdem.size(); i++) {
             imagemRepository.updateOrdemById(i, imagemIdsOrdem.get(i));
         }
+        eventPublisher.publishEvent(new ImovelImagemAlteradaEvent(idImovel));
     }
 
     @Transactional
@@ -234,16 +281,166 @@ public class ImovelService {
 
         imagemRepository.deleteByImovel(id);
         imovelRepository.delete(imovel);
+
+        eventPublisher.publishEvent(new ImovelAlteradoEvent(id, imovel, TipoAlteracao.REMOVIDO));
     }
 
     public Optional<Imovel> buscarImovel(Long id) {
         return imovelRepository.findById(id);
     }
 
+    // Apenas leitura: a instância em cache é partilhada e não deve ser alterada
+    public Optional<Imovel> consultarImovel(Long id) {
+        return entidadeCacheService.buscarImovel(id);
+    }
+
     public List<Imovel> listarImoveis() {
         return imovelRepository.findDisponiveis();
     }
 
+    public PaginaDTO<Imovel> listarImoveisPaginado(String cursor, Integer limite) {
+        int tamanho = CursorPaginacao.normalizarLimite(limite);
+        // Pede-se uma linha a mais só para saber se existe página seguinte
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+
+        List<Imovel> imoveis;
+        if (cursor == null || cursor.isBlank()) {
+            imoveis = imovelRepository.findDisponiveisPrimeiraPagina(limiteConsulta);
+        } else {
+            String[] partes = CursorPaginacao.descodificar(cursor, 2);
+            OffsetDateTime dataCriacao;
+            Long id;
+            try {
+                dataCriacao = OffsetDateTime.parse(partes[0]);
+                id = Long.valueOf(partes[1]);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+            imoveis = imovelRepository.findDisponiveisApos(dataCriacao, id, limiteConsulta);
+        }
+
+        return CursorPaginacao.pagina(imoveis, tamanho,
+                ultimo -> CursorPaginacao.codificar(ultimo.getDataCriacao(), ultimo.getId()));
+    }
+
+    public Page<ImovelPesquisaDTO> pesquisarImoveis(ImovelFiltroDTO filtro, String ordenar, int pagina, int tamanho) {
+        PageRequest pageRequest = PageRequest.of(Math.max(pagina, 0),
+                CursorPaginacao.normalizarLimite(tamanho), ordenacaoPesquisa(ordenar));
+
+        Page<Imovel> resultado = imovelRepository.findAll(
+                ImovelSpecifications.disponiveisComFiltro(filtro), pageRequest);
+
+        List<Long> ids = resultado.getContent().stream().map(Imovel::getId).toList();
+        Map<Long, Localizacao> localizacoes = ids.isEmpty()
+                ? Map.of()
+                : localizacaoRepository.findByIdImovelIn(ids).stream()
+                        .collect(Collectors.toMap(Localizacao::getIdImovel, Function.identity()));
+
+        return resultado.map(imovel -> {
+            Localizacao localizacao = localizacoes.get(imovel.getId());
+            return new ImovelPesquisaDTO(imovel, localizacao != null ? new LocalizacaoDTO(localizacao) : null);
+        });
+    }
+
+    public record ResultadoLote(List<ImovelLoteDTO> imoveis, List<Long> naoEncontrados) {
+    }
+
+    /**
+     * Resolve vários imóveis numa só consulta IN, mantendo a ordem pedida e ignorando ids repetidos.
+     * Os ids inexistentes são devolvidos em {@code naoEncontrados} em vez de falhar o pedido.
+     */
+    public ResultadoLote buscarImoveisPorIds(List<Long> ids, boolean incluirLocalizacao, boolean incluirImagem) {
+        if (ids == null || ids.isEmpty()) {
+            throw new RuntimeException("Indique pelo menos um id de imóvel");
+        }
+        LinkedHashSet<Long> unicos = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                unicos.add(id);
+            }
+        }
+        if (unicos.size() > MAX_IDS_LOTE) {
+            throw new RuntimeException("Máximo de " + MAX_IDS_LOTE + " imóveis por pedido");
+        }
+
+        Map<Long, Imovel> imoveis = imovelRepository.findAllById(unicos).stream()
+                .collect(Collectors.toMap(Imovel::getId, Function.identity()));
+
+        Map<Long, Localizacao> localizacoes = incluirLocalizacao && !imoveis.isEmpty()
+                ? localizacaoRepository.findByIdImovelIn(imoveis.keySet()).stream()
+                        .collect(Collectors.toMap(Localizacao::getIdImovel, Function.identity()))
+                : Map.of();
+
+        Map<Long, String> imagens = new HashMap<>();
+        if (incluirImagem && !imoveis.isEmpty()) {
+            for (ImovelImagem imagem : imagemRepository.findPrimeirasImagens(imoveis.keySet())) {
+                imagens.putIfAbsent(imagem.getIdImovel(), imagem.getImagemUrl());
+            }
+        }
+
+        List<ImovelLoteDTO> encontrados = new ArrayList<>();
+        List<Long> naoEncontrados = new ArrayList<>();
+        for (Long id : unicos) {
+            Imovel imovel = imoveis.get(id);
+            if (imovel == null) {
+                naoEncontrados.add(id);
+                continue;
+            }
+            Localizacao localizacao = localizacoes.get(id);
+            encontrados.add(new ImovelLoteDTO(imovel,
+                    localizacao != null ? new LocalizacaoDTO(localizacao) : null,
+                    imagens.get(id)));
+        }
+        return new ResultadoLote(encontrados, naoEncontrados);
+    }
+
+    private Sort ordenacaoPesquisa(String ordenar) {
+        Sort desempate = Sort.by(Sort.Direction.DESC, "id");
+        if (ordenar == null) {
+            return Sort.by(Sort.Direction.DESC, "dataCriacao").and(desempate);
+        }
+        switch (ordenar) {
+            case "preco_asc":
+                return Sort.by(Sort.Direction.ASC, "precoMzn").and(desempate);
+            case "preco_desc":
+                return Sort.by(Sort.Direction.DESC, "precoMzn").and(desempate);
+            case "area_asc":
+                return Sort.by(Sort.Direction.ASC, "area").and(desempate);
+            case "area_desc":
+                return Sort.by(Sort.Direction.DESC, "area").and(desempate);
+            case "recentes":
+                return Sort.by(Sort.Direction.DESC, "dataCriacao").and(desempate);
+            default:
+                throw new RuntimeException("Ordenação inválida. Use recentes, preco_asc, preco_desc, area_asc ou area_desc");
+        }
+    }
+
+    public List<MapaPontoDTO> listarParaMapa(double latMin, double latMax, double lngMin, double lngMax, int limite) {
+        if (latMin > latMax || lngMin > lngMax) {
+            throw new RuntimeException("Retângulo inválido: os mínimos devem ser menores que os máximos");
+        }
+        List<LocalizacaoGeoService.Ponto> pontos = localizacaoGeoService.buscarNoRetangulo(
+                latMin, latMax, lngMin, lngMax, Math.min(Math.max(limite, 1), 1000));
+        if (pontos.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Imovel> imoveis = imovelRepository.findAllById(
+                pontos.stream().map(LocalizacaoGeoService.Ponto::idImovel).toList()).stream()
+                .collect(Collectors.toMap(Imovel::getId, Function.identity()));
+
+        List<MapaPontoDTO> resultado = new ArrayList<>();
+        for (LocalizacaoGeoService.Ponto ponto : pontos) {
+            Imovel imovel = imoveis.get(ponto.idImovel());
+            if (imovel != null && "DISPONIVEL".equals(imovel.getStatusImovel())) {
+                resultado.add(new MapaPontoDTO(imovel.getId(), ponto.latitude(), ponto.longitude(),
+                        imovel.getTitulo(), imovel.getPrecoMzn(), imovel.getCategoria(),
+                        imovel.getFinalidade(), imovel.getImagemPrincipalUrl()));
+            }
+        }
+        return resultado;
+    }
+
     public List<Imovel> listarImoveisPorAnunciante(Long idAnunciante) {
         return imovelRepository.findByAnunciante(idAnunciante);
     }
@@ -280,6 +477,9 @@ public class ImovelService {
     }
 
     public Imovel save(Imovel imovel) {
-        return imovelRepository.save(imovel);
+        TipoAlteracao tipo = imovel.getId() == null ? TipoAlteracao.CRIADO : TipoAlteracao.ATUALIZADO;
+        Imovel saved = imovelRepository.save(imovel);
+        eventPublisher.publishEvent(new ImovelAlteradoEvent(saved.getId(), saved, tipo));
+        return saved;
     }
 }
\ No newline at end of file
@@ -0,0 +1,274 @@
+package com.example.api.services;
+
+import com.example.api.entities.Localizacao;
+import com.example.api.events.ImovelAlteradoEvent;
+import com.example.api.events.LocalizacaoAlteradaEvent;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.repositories.LocalizacaoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice espacial em memória (grelha regular de células de 0,01°, ~1,1 km) sobre as
+ * localizações com coordenadas. Responde a consultas por retângulo, raio e k vizinhos
+ * mais próximos visitando apenas as células relevantes.
+ */
+@Service
+public class LocalizacaoGeoService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalizacaoGeoService.class);
+
+    private static final double TAMANHO_CELULA_GRAUS = 0.01;
+    private static final double KM_POR_GRAU = 111.32;
+    private static final double RAIO_TERRA_KM = 6371.0088;
+
+    // Para retângulos muito grandes é mais barato percorrer todos os pontos do que as células
+    private static final int MAX_CELULAS_POR_CONSULTA = 20_000;
+
+    @Autowired
+    private LocalizacaoRepository localizacaoRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, Ponto> pontosPorImovel = new HashMap<>();
+    private Map<Long, List<Ponto>> celulas = new HashMap<>();
+
+    public record Ponto(Long idImovel, double latitude, double longitude) {
+    }
+
+    public record PontoDistancia(Long idImovel, double latitude, double longitude, double distanciaKm) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirIndice() {
+        Map<Long, Ponto> novosPontos = new HashMap<>();
+        Map<Long, List<Ponto>> novasCelulas = new HashMap<>();
+        for (Localizacao localizacao : localizacaoRepository.findByLatitudeIsNotNullAndLongitudeIsNotNull()) {
+            Ponto ponto = new Ponto(localizacao.getIdImovel(), localizacao.getLatitude(), localizacao.getLongitude());
+            novosPontos.put(ponto.idImovel(), ponto);
+            novasCelulas.computeIfAbsent(chaveCelula(ponto.latitude(), ponto.longitude()), c -> new ArrayList<>()).add(ponto);
+        }
+
+        lock.writeLock().lock();
+        try {
+            pontosPorImovel = novosPontos;
+            celulas = novasCelulas;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.info("Índice geográfico construído: {} localizações", novosPontos.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocalizacaoAlterada(LocalizacaoAlteradaEvent evento) {
+        Localizacao localizacao = evento.localizacao();
+        if (evento.tipo() == TipoAlteracao.REMOVIDO || localizacao == null
+                || localizacao.getLatitude() == null || localizacao.getLongitude() == null) {
+            remover(evento.idImovel());
+        } else {
+            atualizar(new Ponto(evento.idImovel(), localizacao.getLatitude(), localizacao.getLongitude()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImovelAlterado(ImovelAlteradoEvent evento) {
+        if (evento.tipo() == TipoAlteracao.REMOVIDO) {
+            remover(evento.idImovel());
+        }
+    }
+
+    public List<Ponto> buscarNoRetangulo(double latMin, double latMax, double lngMin, double lngMax, int limite) {
+        lock.readLock().lock();
+        try {
+            List<Ponto> resultado = new ArrayList<>();
+            long linhaMin = indice(latMin + 90);
+            long linhaMax = indice(latMax + 90);
+            long colunaMin = indice(lngMin + 180);
+            long colunaMax = indice(lngMax + 180);
+
+            if ((linhaMax - linhaMin + 1) * (colunaMax - colunaMin + 1) > MAX_CELULAS_POR_CONSULTA) {
+                for (Ponto ponto : pontosPorImovel.values()) {
+                    if (dentro(ponto, latMin, latMax, lngMin, lngMax) && resultado.size() < limite) {
+                        resultado.add(ponto);
+                    }
+                }
+                return resultado;
+            }
+
+            for (long linha = linhaMin; linha <= linhaMax; linha++) {
+                for (long coluna = colunaMin; coluna <= colunaMax; coluna++) {
+                    List<Ponto> celula = celulas.get(chave(linha, coluna));
+                    if (celula == null) {
+                        continue;
+                    }
+                    for (Ponto ponto : celula) {
+                        if (dentro(ponto, latMin, latMax, lngMin, lngMax)) {
+                            resultado.add(ponto);
+                            if (resultado.size() >= limite) {
+                                return resultado;
+                            }
+                        }
+                    }
+                }
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<PontoDistancia> buscarNoRaio(double latitude, double longitude, double raioKm, int limite) {
+        double deltaLat = raioKm / KM_POR_GRAU;
+        double deltaLng = raioKm / (KM_POR_GRAU * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+
+        List<PontoDistancia> candidatos = new ArrayList<>();
+        for (Ponto ponto : buscarNoRetangulo(latitude - deltaLat, latitude + deltaLat,
+                longitude - deltaLng, longitude + deltaLng, Integer.MAX_VALUE)) {
+            double distancia = distanciaKm(latitude, longitude, ponto.latitude(), ponto.longitude());
+            if (distancia <= raioKm) {
+                candidatos.add(new PontoDistancia(ponto.idImovel(), ponto.latitude(), ponto.longitude(), distancia));
+            }
+        }
+        candidatos.sort(Comparator.comparingDouble(PontoDistancia::distanciaKm));
+        return candidatos.size() > limite ? new ArrayList<>(candidatos.subList(0, limite)) : candidatos;
+    }
+
+    /**
+     * k vizinhos mais próximos: percorre anéis de células à volta do ponto até que a
+     * distância mínima possível do anel seguinte exceda a k-ésima distância encontrada.
+     */
+    public List<PontoDistancia> buscarMaisProximos(double latitude, double longitude, int k) {
+        lock.readLock().lock();
+        try {
+            PriorityQueue<PontoDistancia> melhores = new PriorityQueue<>(
+                    Comparator.comparingDouble(PontoDistancia::distanciaKm).reversed());
+            if (k <= 0 || pontosPorImovel.isEmpty()) {
+                return List.of();
+            }
+
+            long linhaCentro = indice(latitude + 90);
+            long colunaCentro = indice(longitude + 180);
+            double kmPorCelula = TAMANHO_CELULA_GRAUS * KM_POR_GRAU * Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+            int celulasVisitadas = 0;
+
+            for (int anel = 0; ; anel++) {
+                if (melhores.size() >= k && (anel - 1) * kmPorCelula > melhores.peek().distanciaKm()) {
+                    break;
+                }
+                if (celulasVisitadas > MAX_CELULAS_POR_CONSULTA) {
+                    // Pontos demasiado dispersos para a grelha: percorre o conjunto completo
+                    melhores.clear();
+                    for (Ponto ponto : pontosPorImovel.values()) {
+                        oferecer(melhores, ponto, latitude, longitude, k);
+                    }
+                    break;
+                }
+                for (long linha = linhaCentro - anel; linha <= linhaCentro + anel; linha++) {
+                    for (long coluna = colunaCentro - anel; coluna <= colunaCentro + anel; coluna++) {
+                        boolean borda = Math.abs(linha - linhaCentro) == anel || Math.abs(coluna - colunaCentro) == anel;
+                        if (!borda) {
+                            continue;
+                        }
+                        celulasVisitadas++;
+                        List<Ponto> celula = celulas.get(chave(linha, coluna));
+                        if (celula != null) {
+                            for (Ponto ponto : celula) {
+                                oferecer(melhores, ponto, latitude, longitude, k);
+                            }
+                        }
+                    }
+                }
+            }
+
+            List<PontoDistancia> resultado = new ArrayList<>(melhores);
+            resultado.sort(Comparator.comparingDouble(PontoDistancia::distanciaKm));
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void atualizar(Ponto ponto) {
+        lock.writeLock().lock();
+        try {
+            removerSemLock(ponto.idImovel());
+            pontosPorImovel.put(ponto.idImovel(), ponto);
+            celulas.computeIfAbsent(chaveCelula(ponto.latitude(), ponto.longitude()), c -> new ArrayList<>()).add(ponto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remover(Long idImovel) {
+        lock.writeLock().lock();
+        try {
+            removerSemLock(idImovel);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removerSemLock(Long idImovel) {
+        Ponto anterior = pontosPorImovel.remove(idImovel);
+        if (anterior == null) {
+            return;
+        }
+        long chave = chaveCelula(anterior.latitude(), anterior.longitude());
+        List<Ponto> celula = celulas.get(chave);
+        if (celula != null) {
+            celula.removeIf(p -> p.idImovel().equals(idImovel));
+            if (celula.isEmpty()) {
+                celulas.remove(chave);
+            }
+        }
+    }
+
+    private static void oferecer(PriorityQueue<PontoDistancia> melhores, Ponto ponto, double latitude, double longitude, int k) {
+        double distancia = distanciaKm(latitude, longitude, ponto.latitude(), ponto.longitude());
+        if (melhores.size() < k) {
+            melhores.offer(new PontoDistancia(ponto.idImovel(), ponto.latitude(), ponto.longitude(), distancia));
+        } else if (distancia < melhores.peek().distanciaKm()) {
+            melhores.poll();
+            melhores.offer(new PontoDistancia(ponto.idImovel(), ponto.latitude(), ponto.longitude(), distancia));
+        }
+    }
+
+    private static boolean dentro(Ponto ponto, double latMin, double latMax, double lngMin, double lngMax) {
+        return ponto.latitude() >= latMin && ponto.latitude() <= latMax
+                && ponto.longitude() >= lngMin && ponto.longitude() <= lngMax;
+    }
+
+    private static long indice(double grausDeslocados) {
+        return (long) Math.floor(grausDeslocados / TAMANHO_CELULA_GRAUS);
+    }
+
+    private static long chaveCelula(double latitude, double longitude) {
+        return chave(indice(latitude + 90), indice(longitude + 180));
+    }
+
+    private static long chave(long linha, long coluna) {
+        return (linha << 32) | (coluna & 0xffffffffL);
+    }
+
+    static double distanciaKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * RAIO_TERRA_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.api.services;
 
 import com.example.api.entities.Localizacao;
+import com.example.api.events.LocalizacaoAlteradaEvent;
+import com.example.api.events.TipoAlteracao;
 import com.example.api.repositories.LocalizacaoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
@@ -12,7 +15,14 @@ public class LocalizacaoService {
     @Autowired
     private LocalizacaoRepository localizacaoRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntidadeCacheService entidadeCacheService;
+
     public Localizacao salvar(Localizacao localizacao) {
+        validarCoordenadas(localizacao.getLatitude(), localizacao.getLongitude());
 
         Optional<Localizacao> existente = localizacaoRepository.findByIdImovel(localizacao.getIdImovel());
 
@@ -23,11 +33,17 @@ public class LocalizacaoService {
             loc.setProvincia(localizacao.getProvincia());
             loc.setCidade(localizacao.getCidade());
             loc.setBairro(localizacao.getBairro());
-            return localizacaoRepository.save(loc);
+            loc.setLatitude(localizacao.getLatitude());
+            loc.setLongitude(localizacao.getLongitude());
+            Localizacao salva = localizacaoRepository.save(loc);
+            eventPublisher.publishEvent(new LocalizacaoAlteradaEvent(salva.getIdImovel(), salva, TipoAlteracao.ATUALIZADO));
+            return salva;
         }
 
 
-        return localizacaoRepository.save(localizacao);
+        Localizacao salva = localizacaoRepository.save(localizacao);
+        eventPublisher.publishEvent(new LocalizacaoAlteradaEvent(salva.getIdImovel(), salva, TipoAlteracao.CRIADO));
+        return salva;
     }
 
     public Optional<Localizacao> buscarPorId(Long id) {
@@ -35,7 +51,7 @@ public class LocalizacaoService {
     }
 
     public Optional<Localizacao> buscarPorImovel(Long idImovel) {
-        return localizacaoRepository.findByIdImovel(idImovel);
+        return entidadeCacheService.buscarLocalizacaoPorImovel(idImovel);
     }
 
     public List<Localizacao> listarTodos() {
@@ -43,7 +59,10 @@ public class LocalizacaoService {
     }
 
     public void deletar(Long id) {
+        Optional<Localizacao> existente = localizacaoRepository.findById(id);
         localizacaoRepository.deleteById(id);
+        existente.ifPresent(loc -> eventPublisher.publishEvent(
+                new LocalizacaoAlteradaEvent(loc.getIdImovel(), loc, TipoAlteracao.REMOVIDO)));
     }
 
     public List<Localizacao> buscarPorProvincia(String provincia) {
@@ -57,4 +76,13 @@ public class LocalizacaoService {
     public List<Localizacao> buscarPorProvinciaAndCidade(String provincia, String cidade) {
         return localizacaoRepository.findByProvinciaAndCidade(provincia, cidade);
     }
+
+    private void validarCoordenadas(Double latitude, Double longitude) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new RuntimeException("Latitude e longitude devem ser indicadas em conjunto");
+        }
+        if (latitude != null && (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180)) {
+            throw new RuntimeException("Coordenadas inválidas");
+        }
+    }
 }
@@ -19,6 +19,9 @@ public class MarcacaoService {
     @Autowired
     private ImovelRepository imovelRepository;
 
+    @Autowired
+    private AnuncioTendenciaService anuncioTendenciaService;
+
     // Criar nova marcação (sempre começa como PENDENTE)
     public MarcacaoDTO criarMarcacao(MarcacaoDTO dto) {
         // Validar se o imóvel existe
@@ -62,6 +65,7 @@ public class MarcacaoService {
         marcacao.setObservacoes(dto.getObservacoes());
 
         marcacao = marcacaoRepository.save(marcacao);
+        anuncioTendenciaService.registrarMarcacao(marcacao.getIdImovel());
         return toDTO(marcacao);
     }
 
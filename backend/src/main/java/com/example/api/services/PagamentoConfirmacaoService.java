@@ -0,0 +1,143 @@
+package com.example.api.services;
+
+import com.example.api.entities.CreditoMovimento;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aplica o resultado de um pagamento vindo do gateway (callback HTTP ou simulador).
+ * A transição de estado é uma só instrução condicional (só a partir de PENDENTE, PROCESSANDO
+ * ou SEM_RESPOSTA), pelo que callbacks repetidos ou concorrentes creditam o saldo uma única vez.
+ * SEM_RESPOSTA é o estado dado pelo pipeline quando o gateway não responde a tempo: um
+ * resultado que chegue depois ainda é aplicado.
+ */
+@Service
+public class PagamentoConfirmacaoService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PagamentoConfirmacaoService.class);
+
+    private static final String CONFIRMAR =
+            "UPDATE pagamento SET status_pagamento = 'CONFIRMADO', data_confirmacao = ?, " +
+            "transacao_gateway = COALESCE(?, transacao_gateway) " +
+            "WHERE referencia = ? AND status_pagamento IN ('PENDENTE', 'PROCESSANDO', 'SEM_RESPOSTA') " +
+            "RETURNING id_anunciante, creditos_adquiridos, data_pagamento";
+
+    private static final String FALHAR =
+            "UPDATE pagamento SET status_pagamento = 'FALHADO', data_confirmacao = ?, " +
+            "transacao_gateway = COALESCE(?, transacao_gateway) " +
+            "WHERE referencia = ? AND status_pagamento IN ('PENDENTE', 'PROCESSANDO', 'SEM_RESPOSTA') " +
+            "RETURNING data_pagamento";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CreditoService creditoService;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.pagamentos.gateway:}")
+    private String gateway;
+
+    @Value("${app.pagamentos.callback-token:}")
+    private String tokenCallback;
+
+    private final LongAdder confirmados = new LongAdder();
+    private final LongAdder falhados = new LongAdder();
+    private final LongAdder repetidos = new LongAdder();
+    // Latência desde o registo do pagamento até ao resultado do gateway
+    private final LongAdder somaLatenciaMs = new LongAdder();
+    private final LongAccumulator maxLatenciaMs = new LongAccumulator(Math::max, 0);
+    private final AtomicLong ultimaLatenciaMs = new AtomicLong();
+
+    public enum Resultado { APLICADO, JA_PROCESSADO, NAO_ENCONTRADO }
+
+    // O simulador confirma pagamentos sem cobrar nada: nunca pode servir clientes reais. Um gateway real
+    // só entrega resultados pelo callback HTTP, que sem token fica aberto a qualquer cliente
+    @PostConstruct
+    public void validarConfiguracao() {
+        if (gateway.isBlank()) {
+            throw new IllegalStateException("app.pagamentos.gateway não definido: configure o gateway de pagamentos " +
+                    "(o simulador só está disponível nos perfis dev e test)");
+        }
+        if ("simulado".equals(gateway)) {
+            if (!environment.acceptsProfiles(Profiles.of("dev | test"))) {
+                throw new IllegalStateException("app.pagamentos.gateway=simulado só é permitido nos perfis dev e test");
+            }
+            return;
+        }
+        if (tokenCallback.isBlank()) {
+            throw new IllegalStateException(
+                    "app.pagamentos.callback-token é obrigatório quando app.pagamentos.gateway=" + gateway);
+        }
+    }
+
+    @Transactional
+    public Resultado registrarResultado(String referencia, boolean sucesso, String transacaoGateway) {
+        LocalDateTime agora = LocalDateTime.now();
+        List<Map<String, Object>> linhas = jdbcTemplate.queryForList(sucesso ? CONFIRMAR : FALHAR,
+                agora, transacaoGateway, referencia);
+
+        if (linhas.isEmpty()) {
+            Integer existe = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pagamento WHERE referencia = ?", Integer.class, referencia);
+            if (existe == null || existe == 0) {
+                return Resultado.NAO_ENCONTRADO;
+            }
+            repetidos.increment();
+            return Resultado.JA_PROCESSADO;
+        }
+
+        Map<String, Object> linha = linhas.get(0);
+        if (sucesso) {
+            Long idAnunciante = ((Number) linha.get("id_anunciante")).longValue();
+            int creditos = ((Number) linha.get("creditos_adquiridos")).intValue();
+            creditoService.creditar(idAnunciante, BigDecimal.valueOf(creditos), CreditoMovimento.PAGAMENTO, referencia);
+            confirmados.increment();
+        } else {
+            falhados.increment();
+            LOG.info("Pagamento {} recusado pelo gateway", referencia);
+        }
+
+        Timestamp dataPagamento = (Timestamp) linha.get("data_pagamento");
+        if (dataPagamento != null) {
+            long latencia = Math.max(0, Duration.between(dataPagamento.toLocalDateTime(), agora).toMillis());
+            somaLatenciaMs.add(latencia);
+            maxLatenciaMs.accumulate(latencia);
+            ultimaLatenciaMs.set(latencia);
+        }
+        return Resultado.APLICADO;
+    }
+
+    public Map<String, Object> estatisticas() {
+        long total = confirmados.sum() + falhados.sum();
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("confirmados", confirmados.sum());
+        resultado.put("falhados", falhados.sum());
+        resultado.put("callbacks_repetidos", repetidos.sum());
+        resultado.put("latencia_confirmacao_media_ms", total > 0 ? somaLatenciaMs.sum() / total : 0);
+        resultado.put("latencia_confirmacao_max_ms", maxLatenciaMs.get());
+        resultado.put("latencia_confirmacao_ultima_ms", ultimaLatenciaMs.get());
+        return resultado;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.api.services;
+
+import com.example.api.events.PagamentoCriadoEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envia os pagamentos PENDENTE ao gateway fora das threads de pedido HTTP, num pool de
+ * workers com fila limitada. Cada worker reclama o pagamento (PENDENTE -> PROCESSANDO, uma
+ * instrução condicional, segura com várias instâncias) antes de o submeter.
+ *
+ * Pagamentos que não couberam na fila, ou que ficaram por enviar num reinício, são
+ * reenviados periodicamente, do mais antigo para o mais recente; os que ficam sem resposta do
+ * gateway além do prazo passam a SEM_RESPOSTA, que um callback posterior ainda pode confirmar.
+ */
+@Service
+public class PagamentoPipelineService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PagamentoPipelineService.class);
+
+    private static final int MAX_REENVIOS_POR_CICLO = 200;
+
+    private static final String RECLAMAR =
+            "UPDATE pagamento SET status_pagamento = 'PROCESSANDO', data_envio = ? " +
+            "WHERE id_pagamento = ? AND status_pagamento = 'PENDENTE' " +
+            "RETURNING referencia, valor, metodo_pagamento";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GatewayPagamento gatewayPagamento;
+
+    @Autowired
+    private PagamentoConfirmacaoService pagamentoConfirmacaoService;
+
+    @Value("${app.pagamentos.timeout-confirmacao-ms:900000}")
+    private long timeoutConfirmacaoMs;
+
+    private final ThreadPoolExecutor workers;
+    private final int capacidadeFila;
+    // Pagamentos na fila ou num worker, para que o reenvio não os volte a enfileirar
+    private final Set<Long> enfileirados = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder submetidos = new LongAdder();
+    private final LongAdder rejeitados = new LongAdder();
+    private final LongAdder falhasGateway = new LongAdder();
+    private final LongAdder semResposta = new LongAdder();
+    private final LongAdder somaLatenciaGatewayMs = new LongAdder();
+    private final LongAccumulator maxLatenciaGatewayMs = new LongAccumulator(Math::max, 0);
+
+    public PagamentoPipelineService(
+            @Value("${app.pagamentos.workers:4}") int numeroWorkers,
+            @Value("${app.pagamentos.capacidade-fila:1000}") int capacidadeFila) {
+        this.capacidadeFila = capacidadeFila;
+        AtomicInteger contador = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(numeroWorkers, numeroWorkers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila), r -> {
+                    Thread thread = new Thread(r, "pagamento-pipeline-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Antes do pipeline, as compras diretas eram creditadas de imediato mas gravadas como PENDENTE;
+    // são as PAG_ sem alerta de velocidade (as retidas e libertadas têm sempre alerta). Não podem ser reenviadas.
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliarComprasDiretas() {
+        int corrigidas = jdbcTemplate.update(
+                "UPDATE pagamento SET status_pagamento = 'CONFIRMADO', data_confirmacao = data_pagamento " +
+                "WHERE status_pagamento = 'PENDENTE' AND referencia LIKE 'PAG\\_%' AND alerta_velocidade IS NULL");
+        if (corrigidas > 0) {
+            LOG.info("{} compras diretas antigas marcadas como CONFIRMADO", corrigidas);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPagamentoCriado(PagamentoCriadoEvent evento) {
+        enfileirar(evento.idPagamento());
+    }
+
+    @Scheduled(fixedDelayString = "${app.pagamentos.reenvio-ms:15000}",
+            initialDelayString = "${app.pagamentos.reenvio-ms:15000}")
+    public void reenviarPendentes() {
+        LocalDateTime agora = LocalDateTime.now();
+        // Todos os PENDENTE, do mais antigo para o mais recente; o limite cobre os que já estão na fila
+        List<Long> pendentes = jdbcTemplate.queryForList(
+                "SELECT id_pagamento FROM pagamento WHERE status_pagamento = 'PENDENTE' " +
+                "AND COALESCE(data_liberacao, data_pagamento) < ? ORDER BY id_pagamento LIMIT ?",
+                Long.class, agora.minusSeconds(5), MAX_REENVIOS_POR_CICLO + capacidadeFila + workers.getMaximumPoolSize());
+        int reenviados = 0;
+        for (Long idPagamento : pendentes) {
+            if (enfileirados.contains(idPagamento)) {
+                continue;
+            }
+            if (!enfileirar(idPagamento) || ++reenviados >= MAX_REENVIOS_POR_CICLO) {
+                break;
+            }
+        }
+
+        // Sem resposta não quer dizer recusado: um CONFIRMADO que chegue depois ainda credita
+        int expirados = jdbcTemplate.update(
+                "UPDATE pagamento SET status_pagamento = 'SEM_RESPOSTA' " +
+                "WHERE status_pagamento = 'PROCESSANDO' AND COALESCE(data_envio, data_pagamento) < ?",
+                agora.minus(Duration.ofMillis(timeoutConfirmacaoMs)));
+        if (expirados > 0) {
+            semResposta.add(expirados);
+            LOG.warn("{} pagamentos sem resposta do gateway marcados como SEM_RESPOSTA", expirados);
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        long enviados = submetidos.sum();
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("fila", workers.getQueue().size());
+        resultado.put("capacidade_fila", capacidadeFila);
+        resultado.put("workers_ativos", workers.getActiveCount());
+        resultado.put("submetidos", enviados);
+        resultado.put("rejeitados_fila_cheia", rejeitados.sum());
+        resultado.put("falhas_gateway", falhasGateway.sum());
+        resultado.put("sem_resposta", semResposta.sum());
+        resultado.put("latencia_gateway_media_ms", enviados > 0 ? somaLatenciaGatewayMs.sum() / enviados : 0);
+        resultado.put("latencia_gateway_max_ms", maxLatenciaGatewayMs.get());
+        resultado.putAll(pagamentoConfirmacaoService.estatisticas());
+        return resultado;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        // Os pagamentos ainda na fila continuam PENDENTE e são reenviados no próximo arranque
+        workers.shutdownNow();
+    }
+
+    private boolean enfileirar(Long idPagamento) {
+        if (!enfileirados.add(idPagamento)) {
+            return true;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    submeter(idPagamento);
+                } finally {
+                    enfileirados.remove(idPagamento);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            enfileirados.remove(idPagamento);
+            rejeitados.increment();
+            return false;
+        }
+    }
+
+    private void submeter(Long idPagamento) {
+        List<GatewayPagamento.Pedido> reclamado = jdbcTemplate.query(RECLAMAR,
+                (rs, i) -> new GatewayPagamento.Pedido(
+                        rs.getString("referencia"), rs.getBigDecimal("valor"), rs.getString("metodo_pagamento")),
+                LocalDateTime.now(), idPagamento);
+        if (reclamado.isEmpty()) {
+            // Já enviado por outro worker ou instância, ou já com resultado
+            return;
+        }
+        GatewayPagamento.Pedido pedido = reclamado.get(0);
+
+        long inicio = System.nanoTime();
+        try {
+            String transacao = gatewayPagamento.submeter(pedido);
+            jdbcTemplate.update("UPDATE pagamento SET transacao_gateway = COALESCE(transacao_gateway, ?) WHERE id_pagamento = ?",
+                    transacao, idPagamento);
+            submetidos.increment();
+        } catch (RuntimeException e) {
+            falhasGateway.increment();
+            LOG.warn("Gateway recusou o pagamento {}", pedido.referencia(), e);
+            pagamentoConfirmacaoService.registrarResultado(pedido.referencia(), false, null);
+        } finally {
+            long latencia = (System.nanoTime() - inicio) / 1_000_000;
+            somaLatenciaGatewayMs.add(latencia);
+            maxLatenciaGatewayMs.accumulate(latencia);
+        }
+    }
+}
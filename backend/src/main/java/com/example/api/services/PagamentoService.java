@@ -4,18 +4,20 @@ import com.example.api.entities.Anunciante;
 import com.example.api.entities.Credito;
 import com.example.api.entities.Pagamento;
 import com.example.api.entities.Visitante;
+import com.example.api.events.PagamentoCriadoEvent;
 import com.example.api.repositories.AnuncianteRepository;
 import com.example.api.repositories.CreditoRepository;
 import com.example.api.repositories.PagamentoRepository;
 import com.example.api.repositories.VisitanteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class PagamentoService {
@@ -23,6 +25,12 @@ public class PagamentoService {
     @Autowired
     private PagamentoRepository pagamentoRepository;
 
+    @Autowired
+    private GeradorIdService geradorIdService;
+
+    @Autowired
+    private VelocidadeCompraService velocidadeCompraService;
+
     @Autowired
     private VisitanteRepository visitanteRepository;
 
@@ -32,6 +40,9 @@ public class PagamentoService {
     @Autowired
     private CreditoRepository creditoRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Transactional
     public Pagamento processarPagamento(Long visitanteId, BigDecimal valor, String metodoPagamento, String referencia) {
         Optional<Visitante> visitanteOpt = visitanteRepository.findById(visitanteId);
@@ -68,8 +79,10 @@ public class PagamentoService {
 
         int creditosAdquiridos = valor.intValue();
 
+        VelocidadeCompraService.Avaliacao avaliacao = velocidadeCompraService.avaliar(anunciante.getId(), valor, metodoPagamento);
+
         String referenciaGerada = "MZ" + metodoPagamento.substring(0, 2).toUpperCase()
-                + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+                + geradorIdService.proximoTexto();
 
         Pagamento pagamento = new Pagamento();
         pagamento.setAnunciante(anunciante);
@@ -77,20 +90,53 @@ public class PagamentoService {
         pagamento.setCreditosAdquiridos(creditosAdquiridos);
         pagamento.setMetodoPagamento(metodoPagamento);
         pagamento.setReferencia(referenciaGerada);
-        pagamento.setStatusPagamento("CONFIRMADO");
+        // Um pagamento retido só segue para o gateway quando for libertado
+        pagamento.setStatusPagamento(avaliacao.reter() ? "RETIDO" : "PENDENTE");
+        if (avaliacao.suspeita()) {
+            pagamento.setAlertaVelocidade(avaliacao.descricao());
+        }
 
         pagamento = pagamentoRepository.save(pagamento);
 
-        Optional<Credito> creditoOpt = creditoRepository.findByAnunciante(anunciante);
-        if (creditoOpt.isPresent()) {
-            Credito credito = creditoOpt.get();
-            credito.setSaldo(credito.getSaldo().add(BigDecimal.valueOf(creditosAdquiridos)));
-            creditoRepository.save(credito);
+        if (!avaliacao.reter()) {
+            // O gateway é chamado pelo pipeline depois do commit; os créditos só entram com a confirmação
+            eventPublisher.publishEvent(new PagamentoCriadoEvent(pagamento.getId()));
         }
 
         return pagamento;
     }
 
+    /**
+     * Liberta um pagamento retido pelas regras de velocidade: segue para o gateway como um pagamento novo.
+     */
+    @Transactional
+    public Pagamento liberarPagamento(Long idPagamento) {
+        Pagamento pagamento = buscarRetido(idPagamento);
+        pagamento.setStatusPagamento("PENDENTE");
+        // data_pagamento guarda o momento da compra; o prazo do gateway conta a partir do envio (data_envio)
+        pagamento.setDataLiberacao(LocalDateTime.now());
+        pagamento = pagamentoRepository.save(pagamento);
+        eventPublisher.publishEvent(new PagamentoCriadoEvent(pagamento.getId()));
+        return pagamento;
+    }
+
+    @Transactional
+    public Pagamento recusarPagamento(Long idPagamento) {
+        Pagamento pagamento = buscarRetido(idPagamento);
+        pagamento.setStatusPagamento("FALHADO");
+        pagamento.setDataConfirmacao(LocalDateTime.now());
+        return pagamentoRepository.save(pagamento);
+    }
+
+    private Pagamento buscarRetido(Long idPagamento) {
+        Pagamento pagamento = pagamentoRepository.findById(idPagamento)
+                .orElseThrow(() -> new RuntimeException("Pagamento não encontrado"));
+        if (!"RETIDO".equals(pagamento.getStatusPagamento())) {
+            throw new RuntimeException("Pagamento não está retido. Estado atual: " + pagamento.getStatusPagamento());
+        }
+        return pagamento;
+    }
+
     public List<Pagamento> listarPagamentos() {
         return pagamentoRepository.findAll();
     }
@@ -0,0 +1,284 @@
+package com.example.api.services;
+
+import com.example.api.events.AnuncianteAlteradoEvent;
+import com.example.api.events.TipoAlteracao;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache dos saldos de créditos por anunciante, atualizada em write-through.
+ *
+ * Cada escrita no saldo incrementa credito.versao e devolve (saldo, versao) na própria
+ * instrução UPDATE ... RETURNING; o novo valor entra na cache depois do commit e só substitui
+ * a entrada se a versão for mais recente. Assim, nem escritas concorrentes aplicadas fora de
+ * ordem nem uma leitura da base de dados que termine depois de uma escrita deixam na cache um
+ * saldo anterior ao último confirmado. Uma transação revertida não toca na cache.
+ *
+ * As escritas feitas noutras instâncias chegam por LISTEN/NOTIFY: cada UPDATE do saldo faz
+ * pg_notify(CANAL, 'id_anunciante:versao') na mesma instrução (ver comNotificacao), entregue no
+ * commit, e uma thread com ligação própria invalida as entradas com versão anterior. As leituras
+ * são assim só memória. Como rede de segurança, uma entrada com mais de app.cache.saldos.verificacao-ms
+ * é validada com um SELECT da versão; enquanto a ligação de notificações estiver em baixo usa-se
+ * o intervalo curto app.cache.saldos.verificacao-sem-notificacoes-ms, e ao restabelecê-la a cache
+ * é esvaziada (as notificações entretanto perdidas não são reenviadas). O TTL limita o tempo de
+ * vida de qualquer entrada.
+ */
+@Service
+public class SaldoCacheService {
+
+    private static final String SELECT_SALDO =
+            "SELECT id_credito, saldo, data_atualizacao, COALESCE(versao, 0) AS versao FROM credito WHERE id_anunciante = ?";
+
+    private static final String SELECT_VERSAO =
+            "SELECT COALESCE(versao, 0) FROM credito WHERE id_anunciante = ?";
+
+    static final String CANAL = "saldo_alterado";
+
+    private static final Logger LOG = LoggerFactory.getLogger(SaldoCacheService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${app.cache.saldos.notificacoes:true}")
+    private boolean notificacoesAtivas;
+
+    private final Cache<Long, Entrada> saldos;
+    private final long intervaloVerificacaoNs;
+    private final long intervaloSemNotificacoesNs;
+
+    private volatile boolean escutando;
+    private volatile boolean encerrando;
+    private Thread ouvinte;
+
+    private final LongAdder verificacoes = new LongAdder();
+    private final LongAdder alteradosNoutraInstancia = new LongAdder();
+    private final LongAdder notificacoes = new LongAdder();
+
+    public record Saldo(Long idCredito, BigDecimal saldo, LocalDateTime dataAtualizacao, long versao) {
+    }
+
+    // verificadaEm: System.nanoTime() da última vez que a versão foi confirmada na base de dados
+    private record Entrada(Saldo saldo, long verificadaEm) {
+    }
+
+    public SaldoCacheService(
+            @Value("${app.cache.saldos.tamanho-maximo:50000}") long tamanhoMaximo,
+            @Value("${app.cache.saldos.ttl-segundos:300}") long ttlSegundos,
+            @Value("${app.cache.saldos.verificacao-ms:60000}") long verificacaoMs,
+            @Value("${app.cache.saldos.verificacao-sem-notificacoes-ms:1000}") long verificacaoSemNotificacoesMs) {
+        this.saldos = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+        this.intervaloVerificacaoNs = TimeUnit.MILLISECONDS.toNanos(verificacaoMs);
+        this.intervaloSemNotificacoesNs = TimeUnit.MILLISECONDS.toNanos(verificacaoSemNotificacoesMs);
+    }
+
+    /**
+     * Envolve um UPDATE ... RETURNING de credito (que devolva id_anunciante e versao) para que
+     * notifique as outras instâncias da nova versão quando a transação for confirmada.
+     */
+    public static String comNotificacao(String atualizacao) {
+        return "WITH alterado AS (" + atualizacao + ") " +
+                "SELECT alterado.*, pg_notify('" + CANAL + "', alterado.id_anunciante || ':' || alterado.versao) FROM alterado";
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!notificacoesAtivas) {
+            return;
+        }
+        ouvinte = new Thread(this::escutar, "saldo-notificacoes");
+        ouvinte.setDaemon(true);
+        ouvinte.start();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        encerrando = true;
+        if (ouvinte != null) {
+            ouvinte.interrupt();
+        }
+    }
+
+    public Optional<Saldo> consultar(Long idAnunciante) {
+        Entrada entrada = saldos.get(idAnunciante, this::carregar);
+        long intervalo = escutando ? intervaloVerificacaoNs : intervaloSemNotificacoesNs;
+        if (entrada != null && System.nanoTime() - entrada.verificadaEm() > intervalo) {
+            entrada = verificar(idAnunciante, entrada);
+        }
+        return entrada == null ? Optional.empty() : Optional.of(entrada.saldo());
+    }
+
+    /**
+     * Regista o saldo resultante de uma escrita. Dentro de uma transação, só é aplicado depois do commit.
+     */
+    public void atualizar(Long idAnunciante, Saldo saldo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(idAnunciante, new Entrada(saldo, System.nanoTime()));
+                }
+            });
+        } else {
+            aplicar(idAnunciante, new Entrada(saldo, System.nanoTime()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnuncianteAlterado(AnuncianteAlteradoEvent evento) {
+        if (evento.tipo() == TipoAlteracao.REMOVIDO) {
+            saldos.invalidate(evento.idAnunciante());
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        CacheStats stats = saldos.stats();
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("entradas", saldos.estimatedSize());
+        resultado.put("acertos", stats.hitCount());
+        resultado.put("falhas", stats.missCount());
+        resultado.put("taxa_acerto", stats.hitRate());
+        resultado.put("remocoes", stats.evictionCount());
+        resultado.put("tempo_medio_carga_ms", stats.averageLoadPenalty() / 1_000_000.0);
+        resultado.put("verificacoes_versao", verificacoes.sum());
+        resultado.put("alterados_noutra_instancia", alteradosNoutraInstancia.sum());
+        resultado.put("notificacoes_recebidas", notificacoes.sum());
+        resultado.put("notificacoes_ligadas", escutando);
+        return resultado;
+    }
+
+    // Ligação JDBC própria, fora do pool: fica presa em LISTEN durante toda a vida da aplicação
+    private void escutar() {
+        long esperaMs = 1000;
+        while (!encerrando) {
+            try (Connection ligacao = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+                 Statement statement = ligacao.createStatement()) {
+                statement.execute("LISTEN " + CANAL);
+                PGConnection pg = ligacao.unwrap(PGConnection.class);
+                // O que mudou enquanto não escutávamos não será notificado
+                saldos.invalidateAll();
+                escutando = true;
+                esperaMs = 1000;
+                LOG.info("A escutar alterações de saldo no canal {}", CANAL);
+                while (!encerrando) {
+                    PGNotification[] recebidas = pg.getNotifications(10_000);
+                    if (recebidas != null) {
+                        for (PGNotification notificacao : recebidas) {
+                            aplicarNotificacao(notificacao.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!encerrando) {
+                    LOG.warn("Ligação de notificações de saldo perdida; nova tentativa em {} ms", esperaMs, e);
+                }
+            } finally {
+                escutando = false;
+            }
+            try {
+                Thread.sleep(esperaMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            esperaMs = Math.min(esperaMs * 2, 60_000);
+        }
+    }
+
+    void aplicarNotificacao(String parametro) {
+        int separador = parametro.indexOf(':');
+        if (separador < 0) {
+            return;
+        }
+        long idAnunciante;
+        long versao;
+        try {
+            idAnunciante = Long.parseLong(parametro.substring(0, separador));
+            versao = Long.parseLong(parametro.substring(separador + 1));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        notificacoes.increment();
+        // As escritas desta instância já entraram na cache com a mesma versão e ficam
+        saldos.asMap().computeIfPresent(idAnunciante, (id, entrada) -> {
+            if (entrada.saldo().versao() >= versao) {
+                return entrada;
+            }
+            alteradosNoutraInstancia.increment();
+            return null;
+        });
+    }
+
+    private Entrada verificar(Long idAnunciante, Entrada entrada) {
+        verificacoes.increment();
+        List<Long> versao = jdbcTemplate.queryForList(SELECT_VERSAO, Long.class, idAnunciante);
+        if (versao.isEmpty()) {
+            saldos.invalidate(idAnunciante);
+            return null;
+        }
+        if (versao.get(0) <= entrada.saldo().versao()) {
+            Entrada verificada = new Entrada(entrada.saldo(), System.nanoTime());
+            // Só se entretanto não entrou uma escrita local mais recente
+            saldos.asMap().replace(idAnunciante, entrada, verificada);
+            return verificada;
+        }
+        alteradosNoutraInstancia.increment();
+        Entrada atual = carregar(idAnunciante);
+        if (atual == null) {
+            saldos.invalidate(idAnunciante);
+            return null;
+        }
+        aplicar(idAnunciante, atual);
+        return atual;
+    }
+
+    private void aplicar(Long idAnunciante, Entrada entrada) {
+        saldos.asMap().merge(idAnunciante, entrada,
+                (atual, nova) -> nova.saldo().versao() > atual.saldo().versao() ? nova : atual);
+    }
+
+    // Não guarda a ausência: o registo de créditos é criado com o anunciante, fora destes caminhos
+    private Entrada carregar(Long idAnunciante) {
+        List<Saldo> linhas = jdbcTemplate.query(SELECT_SALDO, (rs, i) -> new Saldo(
+                rs.getLong("id_credito"),
+                rs.getBigDecimal("saldo"),
+                rs.getTimestamp("data_atualizacao").toLocalDateTime(),
+                rs.getLong("versao")), idAnunciante);
+        return linhas.isEmpty() ? null : new Entrada(linhas.get(0), System.nanoTime());
+    }
+}
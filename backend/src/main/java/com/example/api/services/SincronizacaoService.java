@@ -0,0 +1,239 @@
+package com.example.api.services;
+
+import com.example.api.dtos.ImovelImagemDTO;
+import com.example.api.dtos.LocalizacaoDTO;
+import com.example.api.dtos.SincronizacaoDTO;
+import com.example.api.entities.AlteracaoCatalogo;
+import com.example.api.entities.Imovel;
+import com.example.api.entities.ImovelImagem;
+import com.example.api.entities.Localizacao;
+import com.example.api.events.ImovelAlteradoEvent;
+import com.example.api.events.ImovelImagemAlteradaEvent;
+import com.example.api.events.LocalizacaoAlteradaEvent;
+import com.example.api.events.TipoAlteracao;
+import com.example.api.repositories.AlteracaoCatalogoRepository;
+import com.example.api.repositories.ImovelImagemRepository;
+import com.example.api.repositories.ImovelRepository;
+import com.example.api.repositories.LocalizacaoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sincronização incremental do catálogo. As escritas são registadas em alteracao_catalogo
+ * dentro da própria transação (listener síncrono); o cliente envia o último token e recebe
+ * o estado atual das entidades alteradas desde então, com tombstones para as removidas.
+ *
+ * O token é a posição (id_transacao, id_alteracao) da última linha entregue. Só são entregues
+ * linhas de transações anteriores ao xmin do snapshot, ou seja, já terminadas; uma transação
+ * ainda aberta tem txid >= xmin e, quando terminar, fica sempre à frente de qualquer token já
+ * emitido, por mais tempo que demore.
+ */
+@Service
+public class SincronizacaoService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SincronizacaoService.class);
+
+    private static final int LIMITE_PADRAO = 500;
+    private static final int LIMITE_MAXIMO = 1000;
+
+    @Autowired
+    private AlteracaoCatalogoRepository alteracaoCatalogoRepository;
+
+    @Autowired
+    private ImovelRepository imovelRepository;
+
+    @Autowired
+    private LocalizacaoRepository localizacaoRepository;
+
+    @Autowired
+    private ImovelImagemRepository imagemRepository;
+
+    @Value("${app.sync.retencao-dias:30}")
+    private int retencaoDias;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void registrarCatalogoInicial() {
+        if (alteracaoCatalogoRepository.count() == 0) {
+            int registadas = alteracaoCatalogoRepository.registrarCatalogoExistente();
+            LOG.info("Registo de alterações do catálogo iniciado com {} entradas", registadas);
+        }
+    }
+
+    @EventListener
+    @Transactional
+    public void onImovelAlterado(ImovelAlteradoEvent evento) {
+        if (evento.tipo() == TipoAlteracao.REMOVIDO) {
+            // O tombstone do imóvel cobre a localização e a galeria
+            alteracaoCatalogoRepository.removerAnteriores(AlteracaoCatalogo.LOCALIZACAO, evento.idImovel());
+            alteracaoCatalogoRepository.removerAnteriores(AlteracaoCatalogo.GALERIA, evento.idImovel());
+        }
+        registrar(AlteracaoCatalogo.IMOVEL, evento.idImovel(), evento.tipo());
+    }
+
+    @EventListener
+    @Transactional
+    public void onLocalizacaoAlterada(LocalizacaoAlteradaEvent evento) {
+        registrar(AlteracaoCatalogo.LOCALIZACAO, evento.idImovel(), evento.tipo());
+    }
+
+    @EventListener
+    @Transactional
+    public void onImovelImagemAlterada(ImovelImagemAlteradaEvent evento) {
+        registrar(AlteracaoCatalogo.GALERIA, evento.idImovel(), TipoAlteracao.ATUALIZADO);
+    }
+
+    @Scheduled(fixedDelayString = "${app.sync.limpeza-ms:3600000}", initialDelayString = "${app.sync.limpeza-ms:3600000}")
+    @Transactional
+    public void removerTombstonesExpirados() {
+        int removidos = alteracaoCatalogoRepository.removerTombstonesAntigos(OffsetDateTime.now().minusDays(retencaoDias));
+        if (removidos > 0) {
+            LOG.debug("Tombstones de sincronização removidos: {}", removidos);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public SincronizacaoDTO sincronizar(String since, Integer limite) {
+        long agora = System.currentTimeMillis();
+        long transacao = 0;
+        long sequencia = 0;
+        if (since != null && !since.isBlank()) {
+            String[] partes;
+            try {
+                partes = CursorPaginacao.descodificar(since, 3);
+            } catch (RuntimeException e) {
+                // Tokens anteriores (sequência|emitido) não indicam a transação: recomeça do zero
+                CursorPaginacao.descodificar(since, 2);
+                return resyncCompleto();
+            }
+            long emitidoEm;
+            try {
+                transacao = Long.parseLong(partes[0]);
+                sequencia = Long.parseLong(partes[1]);
+                emitidoEm = Long.parseLong(partes[2]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Token de sincronização inválido");
+            }
+            // Tombstones mais antigos do que a retenção já foram apagados: o token deixou de ser seguro
+            if (emitidoEm < agora - retencaoDias * 86_400_000L) {
+                return resyncCompleto();
+            }
+        }
+
+        int tamanho = limite == null ? LIMITE_PADRAO : Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+        List<AlteracaoCatalogo> alteracoes = alteracaoCatalogoRepository.findTerminadasApos(transacao, sequencia, tamanho + 1);
+        boolean hasMore = alteracoes.size() > tamanho;
+        if (hasMore) {
+            alteracoes = alteracoes.subList(0, tamanho);
+        }
+
+        Map<String, AlteracaoCatalogo> ultimas = new LinkedHashMap<>();
+        for (AlteracaoCatalogo alteracao : alteracoes) {
+            ultimas.put(alteracao.getEntidade() + ":" + alteracao.getIdImovel(), alteracao);
+        }
+        if (!alteracoes.isEmpty()) {
+            AlteracaoCatalogo ultima = alteracoes.get(alteracoes.size() - 1);
+            transacao = ultima.getIdTransacao();
+            sequencia = ultima.getIdAlteracao();
+        }
+
+        return montar(ultimas.values(), CursorPaginacao.codificar(transacao, sequencia, agora), hasMore);
+    }
+
+    private static SincronizacaoDTO resyncCompleto() {
+        return new SincronizacaoDTO(null, false, true, List.of(), List.of(), Map.of(), List.of(), List.of());
+    }
+
+    private SincronizacaoDTO montar(Iterable<AlteracaoCatalogo> alteracoes, String token, boolean hasMore) {
+        List<Long> idsImovel = new ArrayList<>();
+        for (AlteracaoCatalogo alteracao : alteracoes) {
+            idsImovel.add(alteracao.getIdImovel());
+        }
+        Map<Long, Imovel> disponiveis = imovelRepository.findAllById(idsImovel).stream()
+                .filter(imovel -> "DISPONIVEL".equals(imovel.getStatusImovel()))
+                .collect(Collectors.toMap(Imovel::getId, Function.identity()));
+
+        List<Long> idsLocalizacao = new ArrayList<>();
+        List<Long> idsGaleria = new ArrayList<>();
+        List<Imovel> imoveis = new ArrayList<>();
+        List<Long> imoveisRemovidos = new ArrayList<>();
+        for (AlteracaoCatalogo alteracao : alteracoes) {
+            Long idImovel = alteracao.getIdImovel();
+            boolean visivel = disponiveis.containsKey(idImovel);
+            switch (alteracao.getEntidade()) {
+                case AlteracaoCatalogo.IMOVEL -> {
+                    if (visivel) {
+                        imoveis.add(disponiveis.get(idImovel));
+                    } else {
+                        imoveisRemovidos.add(idImovel);
+                    }
+                }
+                case AlteracaoCatalogo.LOCALIZACAO -> {
+                    if (visivel) {
+                        idsLocalizacao.add(idImovel);
+                    }
+                }
+                case AlteracaoCatalogo.GALERIA -> {
+                    if (visivel) {
+                        idsGaleria.add(idImovel);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        Map<Long, Localizacao> localizacoesPorImovel = idsLocalizacao.isEmpty()
+                ? Map.of()
+                : localizacaoRepository.findByIdImovelIn(idsLocalizacao).stream()
+                        .collect(Collectors.toMap(Localizacao::getIdImovel, Function.identity()));
+        List<LocalizacaoDTO> localizacoes = new ArrayList<>();
+        List<Long> localizacoesRemovidas = new ArrayList<>();
+        for (Long idImovel : idsLocalizacao) {
+            Localizacao localizacao = localizacoesPorImovel.get(idImovel);
+            if (localizacao != null) {
+                localizacoes.add(new LocalizacaoDTO(localizacao));
+            } else {
+                localizacoesRemovidas.add(idImovel);
+            }
+        }
+
+        // Uma galeria alterada é enviada por inteiro (lista vazia = galeria sem imagens)
+        Map<Long, List<ImovelImagemDTO>> galerias = new LinkedHashMap<>();
+        for (Long idImovel : idsGaleria) {
+            galerias.put(idImovel, new ArrayList<>());
+        }
+        if (!idsGaleria.isEmpty()) {
+            for (ImovelImagem imagem : imagemRepository.findByIdImovelInOrderByIdImovelAscOrdemAsc(Set.copyOf(idsGaleria))) {
+                galerias.get(imagem.getIdImovel()).add(new ImovelImagemDTO(imagem));
+            }
+        }
+
+        return new SincronizacaoDTO(token, hasMore, false, imoveis, localizacoes, galerias,
+                imoveisRemovidos, localizacoesRemovidas);
+    }
+
+    private void registrar(String entidade, Long idImovel, TipoAlteracao tipo) {
+        if (idImovel == null) {
+            return;
+        }
+        alteracaoCatalogoRepository.removerAnteriores(entidade, idImovel);
+        alteracaoCatalogoRepository.save(new AlteracaoCatalogo(entidade, idImovel, tipo.name()));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.api.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenização para a pesquisa de texto: minúsculas, remoção de acentos
+ * ("condomínio" = "condominio") e um stemmer leve de português
+ * (plurais, femininos e vogal temática).
+ */
+public final class TextoNormalizador {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "e", "as", "os", "ao", "aos", "de", "da", "do", "das", "dos",
+            "em", "na", "no", "nas", "nos", "um", "uma", "uns", "umas", "com", "sem",
+            "para", "pra", "por", "que", "se", "ou", "mais", "muito");
+
+    /** Termo normalizado e a sua posição no texto original (stopwords contam posição). */
+    public record Token(String termo, int posicao) {
+    }
+
+    private TextoNormalizador() {
+    }
+
+    public static List<Token> tokenizar(String texto, int posicaoInicial) {
+        List<Token> tokens = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return tokens;
+        }
+        String dobrado = dobrarAcentos(texto);
+        int posicao = posicaoInicial;
+        int inicio = -1;
+        for (int i = 0; i <= dobrado.length(); i++) {
+            boolean letraOuDigito = i < dobrado.length() && Character.isLetterOrDigit(dobrado.charAt(i));
+            if (letraOuDigito && inicio < 0) {
+                inicio = i;
+            } else if (!letraOuDigito && inicio >= 0) {
+                String palavra = dobrado.substring(inicio, i);
+                if (!STOPWORDS.contains(palavra)) {
+                    tokens.add(new Token(reduzir(palavra), posicao));
+                }
+                posicao++;
+                inicio = -1;
+            }
+        }
+        return tokens;
+    }
+
+    public static String dobrarAcentos(String texto) {
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS_DIACRITICAS.matcher(decomposto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static String reduzir(String palavra) {
+        if (palavra.length() < 4 || !Character.isLetter(palavra.charAt(palavra.length() - 1))) {
+            return palavra;
+        }
+        String p = reduzirPlural(palavra);
+        p = reduzirFeminino(p);
+        p = reduzirSufixo(p);
+        return removerVogalFinal(p);
+    }
+
+    private static String reduzirPlural(String p) {
+        if (!p.endsWith("s") || p.length() < 4) {
+            return p;
+        }
+        if (p.endsWith("oes") || p.endsWith("aes")) {
+            return p.substring(0, p.length() - 3) + "ao";
+        }
+        if (p.endsWith("ais")) {
+            return p.substring(0, p.length() - 3) + "al";
+        }
+        if (p.endsWith("eis")) {
+            return p.substring(0, p.length() - 3) + "el";
+        }
+        if (p.endsWith("ns")) {
+            return p.substring(0, p.length() - 2) + "m";
+        }
+        if (p.endsWith("res") || p.endsWith("zes")) {
+            return p.substring(0, p.length() - 2);
+        }
+        if (p.endsWith("ss") || p.endsWith("us") || p.endsWith("is")) {
+            return p;
+        }
+        return p.substring(0, p.length() - 1);
+    }
+
+    private static String reduzirFeminino(String p) {
+        if (p.length() < 5 || !p.endsWith("a")) {
+            return p;
+        }
+        if (p.endsWith("inha")) {
+            return p.substring(0, p.length() - 4) + "inho";
+        }
+        if (p.endsWith("eira") || p.endsWith("osa") || p.endsWith("ada") || p.endsWith("ida")
+                || p.endsWith("iva") || p.endsWith("ica")) {
+            return p.substring(0, p.length() - 1) + "o";
+        }
+        if (p.endsWith("ora")) {
+            return p.substring(0, p.length() - 1);
+        }
+        return p;
+    }
+
+    private static String reduzirSufixo(String p) {
+        String[][] sufixos = {
+                {"mente", ""}, {"zinho", ""}, {"inho", ""}, {"issimo", ""}, {"idade", ""}
+        };
+        for (String[] sufixo : sufixos) {
+            if (p.endsWith(sufixo[0]) && p.length() - sufixo[0].length() >= 3) {
+                return p.substring(0, p.length() - sufixo[0].length()) + sufixo[1];
+            }
+        }
+        return p;
+    }
+
+    private static String removerVogalFinal(String p) {
+        if (p.length() > 3) {
+            char ultimo = p.charAt(p.length() - 1);
+            if (ultimo == 'a' || ultimo == 'e' || ultimo == 'o') {
+                return p.substring(0, p.length() - 1);
+            }
+        }
+        return p;
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.api.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limites de velocidade das compras de créditos e pagamentos, por anunciante, em memória.
+ *
+ * Cada anunciante tem uma janela deslizante dividida em baldes (anel de tamanho fixo) com a
+ * contagem, a soma dos valores e a contagem por método de pagamento; os totais da janela são
+ * mantidos à medida que os baldes entram e saem, pelo que cada avaliação custa O(1) e não
+ * consulta a base de dados. As regras (número de compras, valor total e métodos distintos na
+ * janela) são configuráveis; uma compra que as exceda é sinalizada ou retida, consoante app.velocidade.acao.
+ *
+ * No arranque, as janelas são reconstruídas a partir dos pagamentos recentes.
+ */
+@Service
+public class VelocidadeCompraService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VelocidadeCompraService.class);
+
+    // pagamento.data_pagamento é gravado com LocalDateTime.now(), na zona da JVM
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    public static final String REGRA_CONTAGEM = "CONTAGEM";
+    public static final String REGRA_VALOR = "VALOR";
+    public static final String REGRA_METODOS = "METODOS";
+
+    // Métodos além deste número partilham o último índice
+    private static final int MAX_METODOS = 8;
+
+    public enum Acao { SINALIZAR, RETER }
+
+    public record Avaliacao(List<String> regras, boolean reter) {
+
+        public boolean suspeita() {
+            return !regras.isEmpty();
+        }
+
+        public String descricao() {
+            return String.join(",", regras);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.velocidade.max-compras:10}")
+    private int maxCompras;
+
+    @Value("${app.velocidade.max-valor:20000}")
+    private BigDecimal maxValor;
+
+    @Value("${app.velocidade.max-metodos:2}")
+    private int maxMetodos;
+
+    @Value("${app.velocidade.acao:SINALIZAR}")
+    private Acao acao;
+
+    private final long janelaMs;
+    private final int numeroBaldes;
+    private final long baldeMs;
+
+    private final Map<Long, Janela> janelas = new ConcurrentHashMap<>();
+    private final Map<String, Integer> indicesMetodo = new ConcurrentHashMap<>();
+
+    private final LongAdder avaliadas = new LongAdder();
+    private final LongAdder sinalizadas = new LongAdder();
+    private final LongAdder retidas = new LongAdder();
+    private final Map<String, LongAdder> violacoesPorRegra = new ConcurrentHashMap<>();
+
+    public VelocidadeCompraService(
+            @Value("${app.velocidade.janela-segundos:600}") long janelaSegundos,
+            @Value("${app.velocidade.baldes:60}") int numeroBaldes) {
+        if (numeroBaldes < 1 || janelaSegundos * 1000 < numeroBaldes) {
+            throw new IllegalArgumentException("app.velocidade.baldes deve estar entre 1 e a janela em milissegundos");
+        }
+        this.janelaMs = janelaSegundos * 1000;
+        this.numeroBaldes = numeroBaldes;
+        this.baldeMs = janelaMs / numeroBaldes;
+    }
+
+    /**
+     * Regista a tentativa de compra e avalia as regras sobre a janela que a inclui.
+     * Todas as tentativas contam, incluindo as que venham a ser retidas ou recusadas.
+     */
+    public Avaliacao avaliar(Long idAnunciante, BigDecimal valor, String metodoPagamento) {
+        Totais totais = registar(idAnunciante, System.currentTimeMillis(), centavos(valor), indiceMetodo(metodoPagamento));
+        avaliadas.increment();
+
+        List<String> regras = new ArrayList<>(3);
+        if (totais.contagem() > maxCompras) {
+            regras.add(REGRA_CONTAGEM);
+        }
+        if (totais.somaCentavos() > centavos(maxValor)) {
+            regras.add(REGRA_VALOR);
+        }
+        if (totais.metodos() > maxMetodos) {
+            regras.add(REGRA_METODOS);
+        }
+        if (regras.isEmpty()) {
+            return new Avaliacao(List.of(), false);
+        }
+
+        boolean reter = acao == Acao.RETER;
+        (reter ? retidas : sinalizadas).increment();
+        for (String regra : regras) {
+            violacoesPorRegra.computeIfAbsent(regra, r -> new LongAdder()).increment();
+        }
+        LOG.warn("Compra {} do anunciante {}: {} compras, {} MZN, {} métodos na janela (regras: {})",
+                reter ? "retida" : "sinalizada", idAnunciante, totais.contagem(),
+                BigDecimal.valueOf(totais.somaCentavos(), 2), totais.metodos(), regras);
+        return new Avaliacao(List.copyOf(regras), reter);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        long desdeMs = System.currentTimeMillis() - janelaMs;
+        LocalDateTime desde = LocalDateTime.ofInstant(Instant.ofEpochMilli(desdeMs), ZONA);
+        int[] total = {0};
+        jdbcTemplate.query("SELECT id_anunciante, valor, metodo_pagamento, data_pagamento FROM pagamento " +
+                        "WHERE data_pagamento >= ? ORDER BY data_pagamento",
+                rs -> {
+                    long instante = rs.getTimestamp("data_pagamento").toLocalDateTime().atZone(ZONA).toInstant().toEpochMilli();
+                    registar(rs.getLong("id_anunciante"), instante, centavos(rs.getBigDecimal("valor")),
+                            indiceMetodo(rs.getString("metodo_pagamento")));
+                    total[0]++;
+                }, desde);
+        LOG.info("Janelas de velocidade reconstruídas: {} pagamentos, {} anunciantes", total[0], janelas.size());
+    }
+
+    // Descarta as janelas sem compras, para que a memória acompanhe só os anunciantes ativos
+    @Scheduled(fixedDelayString = "${app.velocidade.limpeza-ms:600000}")
+    public void limparInativas() {
+        long balde = System.currentTimeMillis() / baldeMs;
+        for (Long idAnunciante : janelas.keySet()) {
+            janelas.computeIfPresent(idAnunciante, (id, janela) -> {
+                synchronized (janela) {
+                    janela.avancar(balde);
+                    if (janela.contagem == 0) {
+                        janela.descartada = true;
+                        return null;
+                    }
+                    return janela;
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> regras = new LinkedHashMap<>();
+        regras.put("janela_segundos", janelaMs / 1000);
+        regras.put("baldes", numeroBaldes);
+        regras.put("max_compras", maxCompras);
+        regras.put("max_valor", maxValor);
+        regras.put("max_metodos", maxMetodos);
+        regras.put("acao", acao);
+
+        Map<String, Object> violacoes = new LinkedHashMap<>();
+        violacoesPorRegra.forEach((regra, contador) -> violacoes.put(regra, contador.sum()));
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("regras", regras);
+        resultado.put("anunciantes_ativos", janelas.size());
+        resultado.put("avaliadas", avaliadas.sum());
+        resultado.put("sinalizadas", sinalizadas.sum());
+        resultado.put("retidas", retidas.sum());
+        resultado.put("violacoes_por_regra", violacoes);
+        return resultado;
+    }
+
+    private Totais registar(Long idAnunciante, long instanteMs, long centavos, int metodo) {
+        long balde = instanteMs / baldeMs;
+        while (true) {
+            Janela janela = janelas.computeIfAbsent(idAnunciante, id -> new Janela(numeroBaldes));
+            synchronized (janela) {
+                // Removida pela limpeza entre o computeIfAbsent e o lock: usa a nova
+                if (janela.descartada) {
+                    continue;
+                }
+                janela.avancar(balde);
+                janela.adicionar(balde, centavos, metodo);
+                return new Totais(janela.contagem, janela.somaCentavos, janela.metodosDistintos);
+            }
+        }
+    }
+
+    private int indiceMetodo(String metodoPagamento) {
+        String chave = metodoPagamento == null ? "" : metodoPagamento.toUpperCase();
+        Integer indice = indicesMetodo.get(chave);
+        if (indice != null) {
+            return indice;
+        }
+        synchronized (indicesMetodo) {
+            return indicesMetodo.computeIfAbsent(chave, m -> Math.min(indicesMetodo.size(), MAX_METODOS - 1));
+        }
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor == null ? 0 : valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private record Totais(int contagem, long somaCentavos, int metodos) {
+    }
+
+    /**
+     * Anel de baldes de uma janela. O balde b ocupa a posição b % n; ao avançar, só os baldes
+     * que saem da janela são subtraídos aos totais, pelo que o custo é amortizado O(1).
+     * Acesso sempre sob o lock da própria janela. Package-private para os testes.
+     */
+    static final class Janela {
+
+        private final int n;
+        private final int[] contagens;
+        private final long[] somas;
+        private final int[][] porMetodo;
+        private final int[] totalPorMetodo = new int[MAX_METODOS];
+
+        private long ultimoBalde = Long.MIN_VALUE;
+        int contagem;
+        long somaCentavos;
+        int metodosDistintos;
+        boolean descartada;
+
+        Janela(int n) {
+            this.n = n;
+            this.contagens = new int[n];
+            this.somas = new long[n];
+            this.porMetodo = new int[n][MAX_METODOS];
+        }
+
+        void avancar(long balde) {
+            if (balde <= ultimoBalde) {
+                return;
+            }
+            if (ultimoBalde == Long.MIN_VALUE || balde - ultimoBalde >= n) {
+                limpar();
+            } else {
+                for (long b = ultimoBalde + 1; b <= balde; b++) {
+                    esvaziar((int) Math.floorMod(b, (long) n));
+                }
+            }
+            ultimoBalde = balde;
+        }
+
+        void adicionar(long balde, long centavos, int metodo) {
+            // Um instante anterior ao balde corrente (relógio atrasado) conta no balde corrente
+            int posicao = (int) Math.floorMod(Math.max(balde, ultimoBalde), (long) n);
+            contagens[posicao]++;
+            somas[posicao] += centavos;
+            porMetodo[posicao][metodo]++;
+            contagem++;
+            somaCentavos += centavos;
+            if (totalPorMetodo[metodo]++ == 0) {
+                metodosDistintos++;
+            }
+        }
+
+        private void esvaziar(int posicao) {
+            contagem -= contagens[posicao];
+            somaCentavos -= somas[posicao];
+            for (int m = 0; m < MAX_METODOS; m++) {
+                int quantidade = porMetodo[posicao][m];
+                if (quantidade > 0) {
+                    totalPorMetodo[m] -= quantidade;
+                    if (totalPorMetodo[m] == 0) {
+                        metodosDistintos--;
+                    }
+                    porMetodo[posicao][m] = 0;
+                }
+            }
+            contagens[posicao] = 0;
+            somas[posicao] = 0;
+        }
+
+        private void limpar() {
+            Arrays.fill(contagens, 0);
+            Arrays.fill(somas, 0);
+            for (int[] metodos : porMetodo) {
+                Arrays.fill(metodos, 0);
+            }
+            Arrays.fill(totalPorMetodo, 0);
+            contagem = 0;
+            somaCentavos = 0;
+            metodosDistintos = 0;
+        }
+    }
+}
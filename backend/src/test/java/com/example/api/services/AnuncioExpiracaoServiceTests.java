@@ -0,0 +1,171 @@
+package com.example.api.services;
+
+import com.example.api.entities.CreditoMovimento;
+import com.example.api.entities.Visitante;
+import com.example.api.repositories.VisitanteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Renovação e expiração em lote contra um PostgreSQL real (Testcontainers); ignorado sem Docker.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class AnuncioExpiracaoServiceTests {
+
+	@Container
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@DynamicPropertySource
+	static void baseDeDados(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+		registry.add("spring.datasource.username", POSTGRES::getUsername);
+		registry.add("spring.datasource.password", POSTGRES::getPassword);
+		registry.add("spring.jpa.show-sql", () -> "false");
+		// O teste chama processarVencidos diretamente
+		registry.add("app.expiracao.atraso-inicial-ms", () -> "3600000");
+	}
+
+	@Autowired
+	private AnuncioExpiracaoService anuncioExpiracaoService;
+
+	@Autowired
+	private AnuncianteService anuncianteService;
+
+	@Autowired
+	private CreditoService creditoService;
+
+	@Autowired
+	private VisitanteRepository visitanteRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void loteMistoRenovaComSaldoEExpiraOsRestantes() {
+		LocalDateTime agora = LocalDateTime.now();
+		// A: saldo para dois dos três anúncios vencidos; B: sem saldo; C: saldo para o único anúncio
+		Long a = novoAnunciante(new BigDecimal("120"));
+		Long b = novoAnunciante(new BigDecimal("10"));
+		Long c = novoAnunciante(new BigDecimal("100"));
+
+		Long a1 = novoAnuncio(a, agora.minusHours(3), new BigDecimal("50"));
+		Long a2 = novoAnuncio(a, agora.minusHours(2), new BigDecimal("50"));
+		Long a3 = novoAnuncio(a, agora.minusHours(1), new BigDecimal("50"));
+		Long aFuturo = novoAnuncio(a, agora.plusDays(3), new BigDecimal("50"));
+		Long b1 = novoAnuncio(b, agora.minusHours(2), new BigDecimal("50"));
+		Long c1 = novoAnuncio(c, agora.minusMinutes(30), new BigDecimal("30"));
+
+		AnuncioExpiracaoService.Resumo resumo = anuncioExpiracaoService.processarVencidos();
+
+		assertThat(resumo.renovados()).isEqualTo(3);
+		assertThat(resumo.expirados()).isEqualTo(2);
+
+		// Os mais antigos são renovados primeiro
+		assertThat(estado(a1)).isEqualTo("PUBLICADO");
+		assertThat(estado(a2)).isEqualTo("PUBLICADO");
+		assertThat(estado(a3)).isEqualTo("EXPIRADO");
+		assertThat(estado(aFuturo)).isEqualTo("PUBLICADO");
+		assertThat(estado(b1)).isEqualTo("EXPIRADO");
+		assertThat(estado(c1)).isEqualTo("PUBLICADO");
+		for (Long renovado : List.of(a1, a2, c1)) {
+			assertThat(dataExpiracao(renovado)).isAfter(agora.plusDays(29));
+		}
+		assertThat(dataExpiracao(aFuturo)).isBefore(agora.plusDays(4));
+
+		assertThat(saldo(a)).isEqualByComparingTo("20");
+		assertThat(saldo(b)).isEqualByComparingTo("10");
+		assertThat(saldo(c)).isEqualByComparingTo("70");
+
+		assertThat(renovacoes(a)).containsExactly(
+				Map.of("valor", new BigDecimal("-50.00"), "saldo_apos", new BigDecimal("70.00"), "referencia", a1.toString()),
+				Map.of("valor", new BigDecimal("-50.00"), "saldo_apos", new BigDecimal("20.00"), "referencia", a2.toString()));
+		assertThat(renovacoes(b)).isEmpty();
+		assertThat(renovacoes(c)).containsExactly(
+				Map.of("valor", new BigDecimal("-30.00"), "saldo_apos", new BigDecimal("70.00"), "referencia", c1.toString()));
+
+		for (Long anunciante : List.of(a, b, c)) {
+			verificarCadeia(anunciante);
+			assertThat(creditoService.consultarSaldo(anunciante).saldo()).isEqualByComparingTo(saldo(anunciante));
+		}
+
+		// Nada mais vencido: uma segunda execução não debita nem expira
+		AnuncioExpiracaoService.Resumo repetida = anuncioExpiracaoService.processarVencidos();
+		assertThat(repetida.processados()).isZero();
+		assertThat(saldo(a)).isEqualByComparingTo("20");
+	}
+
+	// Cada movimento parte do saldo_apos do anterior e o último coincide com o saldo
+	private void verificarCadeia(Long idAnunciante) {
+		List<Map<String, Object>> movimentos = jdbcTemplate.queryForList(
+				"SELECT valor, saldo_apos FROM credito_movimento WHERE id_anunciante = ? ORDER BY id_movimento", idAnunciante);
+		BigDecimal acumulado = BigDecimal.ZERO;
+		for (Map<String, Object> movimento : movimentos) {
+			acumulado = acumulado.add((BigDecimal) movimento.get("valor"));
+			assertThat((BigDecimal) movimento.get("saldo_apos")).isEqualByComparingTo(acumulado);
+		}
+		assertThat(acumulado).isEqualByComparingTo(saldo(idAnunciante));
+	}
+
+	private List<Map<String, Object>> renovacoes(Long idAnunciante) {
+		return jdbcTemplate.query(
+				"SELECT valor, saldo_apos, referencia FROM credito_movimento WHERE id_anunciante = ? AND tipo = ? ORDER BY id_movimento",
+				(rs, i) -> Map.<String, Object>of(
+						"valor", rs.getBigDecimal("valor").setScale(2),
+						"saldo_apos", rs.getBigDecimal("saldo_apos").setScale(2),
+						"referencia", rs.getString("referencia")),
+				idAnunciante, CreditoMovimento.RENOVACAO);
+	}
+
+	private BigDecimal saldo(Long idAnunciante) {
+		return jdbcTemplate.queryForObject("SELECT saldo FROM credito WHERE id_anunciante = ?", BigDecimal.class, idAnunciante);
+	}
+
+	private String estado(Long idAnuncio) {
+		return jdbcTemplate.queryForObject("SELECT status_anuncio FROM anuncio WHERE id_anuncio = ?", String.class, idAnuncio);
+	}
+
+	private LocalDateTime dataExpiracao(Long idAnuncio) {
+		return jdbcTemplate.queryForObject("SELECT data_expiracao FROM anuncio WHERE id_anuncio = ?", LocalDateTime.class, idAnuncio);
+	}
+
+	private Long novoAnunciante(BigDecimal saldoInicial) {
+		Visitante visitante = new Visitante();
+		visitante.setNomeCompleto("Teste Expiração");
+		visitante.setEmail("expiracao-" + System.nanoTime() + "@teste.local");
+		visitante.setTelefone("840000000");
+		visitante.setSenhaHash("x");
+		visitante.setStatusConta("ATIVO");
+		visitante = visitanteRepository.save(visitante);
+		Long idAnunciante = anuncianteService.criarAnunciante(visitante.getId()).getId();
+		creditoService.creditar(idAnunciante, saldoInicial, CreditoMovimento.COMPRA, "teste");
+		return idAnunciante;
+	}
+
+	private Long novoAnuncio(Long idAnunciante, LocalDateTime dataExpiracao, BigDecimal custo) {
+		Long idImovel = jdbcTemplate.queryForObject(
+				"INSERT INTO imovel (titulo, preco_mzn, finalidade, status_imovel, data_criacao, id_anunciante, categoria) " +
+				"VALUES ('Teste', 1000, 'VENDA', 'DISPONIVEL', now(), ?, 'Casa') RETURNING id_imovel",
+				Long.class, idAnunciante);
+		return jdbcTemplate.queryForObject(
+				"INSERT INTO anuncio (id_imovel, data_publicacao, status_anuncio, custo_credito, data_expiracao) " +
+				"VALUES (?, ?, 'PUBLICADO', ?, ?) RETURNING id_anuncio",
+				Long.class, idImovel, dataExpiracao.minusDays(30), custo, dataExpiracao);
+	}
+}
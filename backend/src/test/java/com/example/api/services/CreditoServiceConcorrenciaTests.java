@@ -0,0 +1,133 @@
+package com.example.api.services;
+
+import com.example.api.entities.Anunciante;
+import com.example.api.entities.CreditoMovimento;
+import com.example.api.entities.Visitante;
+import com.example.api.repositories.VisitanteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Débitos condicionais concorrentes contra um PostgreSQL real (Testcontainers); ignorado sem Docker.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class CreditoServiceConcorrenciaTests {
+
+	private static final int THREADS = 16;
+	private static final int TENTATIVAS_POR_THREAD = 25;
+	private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000");
+	private static final BigDecimal VALOR_DEBITO = new BigDecimal("7");
+
+	@Container
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@DynamicPropertySource
+	static void baseDeDados(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+		registry.add("spring.datasource.username", POSTGRES::getUsername);
+		registry.add("spring.datasource.password", POSTGRES::getPassword);
+		registry.add("spring.jpa.show-sql", () -> "false");
+	}
+
+	@Autowired
+	private CreditoService creditoService;
+
+	@Autowired
+	private AnuncianteService anuncianteService;
+
+	@Autowired
+	private VisitanteRepository visitanteRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void debitosConcorrentesNuncaDeixamOSaldoNegativo() throws Exception {
+		Long idAnunciante = novoAnunciante();
+		creditoService.creditar(idAnunciante, SALDO_INICIAL, CreditoMovimento.COMPRA, "teste");
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch partida = new CountDownLatch(1);
+		try {
+			List<Future<Integer>> resultados = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				resultados.add(executor.submit(() -> {
+					partida.await();
+					int aceites = 0;
+					for (int i = 0; i < TENTATIVAS_POR_THREAD; i++) {
+						try {
+							creditoService.debitar(idAnunciante, VALOR_DEBITO, CreditoMovimento.ANUNCIO, "teste");
+							aceites++;
+						} catch (RuntimeException e) {
+							assertThat(e).hasMessageStartingWith("Créditos insuficientes");
+						}
+					}
+					return aceites;
+				}));
+			}
+			partida.countDown();
+
+			int aceites = 0;
+			for (Future<Integer> resultado : resultados) {
+				aceites += resultado.get();
+			}
+
+			// A procura total excede o saldo: todos os débitos possíveis passam e nenhum a mais
+			int possiveis = SALDO_INICIAL.divideToIntegralValue(VALOR_DEBITO).intValueExact();
+			assertThat(aceites).isEqualTo(possiveis);
+
+			BigDecimal saldoFinal = jdbcTemplate.queryForObject(
+					"SELECT saldo FROM credito WHERE id_anunciante = ?", BigDecimal.class, idAnunciante);
+			assertThat(saldoFinal).isNotNegative();
+			assertThat(saldoFinal).isEqualByComparingTo(SALDO_INICIAL.subtract(VALOR_DEBITO.multiply(BigDecimal.valueOf(aceites))));
+
+			// Cada movimento parte do saldo_apos do anterior e o último coincide com o saldo final
+			List<Map<String, Object>> movimentos = jdbcTemplate.queryForList(
+					"SELECT valor, saldo_apos FROM credito_movimento WHERE id_anunciante = ? ORDER BY id_movimento",
+					idAnunciante);
+			assertThat(movimentos).hasSize(aceites + 1);
+			BigDecimal saldo = BigDecimal.ZERO;
+			for (Map<String, Object> movimento : movimentos) {
+				saldo = saldo.add((BigDecimal) movimento.get("valor"));
+				assertThat((BigDecimal) movimento.get("saldo_apos")).isEqualByComparingTo(saldo).isNotNegative();
+			}
+			assertThat(saldo).isEqualByComparingTo(saldoFinal);
+			assertThat(creditoService.consultarSaldo(idAnunciante).saldo()).isEqualByComparingTo(saldoFinal);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Long novoAnunciante() {
+		Visitante visitante = new Visitante();
+		visitante.setNomeCompleto("Teste Concorrência");
+		visitante.setEmail("concorrencia-" + System.nanoTime() + "@teste.local");
+		visitante.setTelefone("840000000");
+		visitante.setSenhaHash("x");
+		visitante.setStatusConta("ATIVO");
+		visitante = visitanteRepository.save(visitante);
+		Anunciante anunciante = anuncianteService.criarAnunciante(visitante.getId());
+		return anunciante.getId();
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.api.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeradorIdServiceTests {
+
+	private static final int THREADS = 8;
+	private static final int IDS_POR_THREAD = 50_000;
+
+	@Test
+	void idsEstritamenteCrescentesEUnicosSobConcorrencia() throws Exception {
+		GeradorIdService gerador = new GeradorIdService(5);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch partida = new CountDownLatch(1);
+		try {
+			List<Future<long[]>> resultados = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				resultados.add(executor.submit(() -> {
+					partida.await();
+					long[] ids = new long[IDS_POR_THREAD];
+					for (int i = 0; i < ids.length; i++) {
+						ids[i] = gerador.proximo();
+					}
+					return ids;
+				}));
+			}
+			partida.countDown();
+
+			Set<Long> todos = new HashSet<>();
+			for (Future<long[]> resultado : resultados) {
+				long[] ids = resultado.get();
+				for (int i = 0; i < ids.length; i++) {
+					assertThat(ids[i]).isPositive();
+					if (i > 0) {
+						assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+					}
+					todos.add(ids[i]);
+				}
+			}
+			assertThat(todos).hasSize(THREADS * IDS_POR_THREAD);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void textoOrdenaComoOId() {
+		GeradorIdService gerador = new GeradorIdService(1023);
+		long[] ids = new long[10_000];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = gerador.proximo();
+		}
+		// Inclui extremos para cobrir todos os caracteres de largura fixa
+		long[] extremos = {0L, 1L, 31L, 32L, Long.MAX_VALUE - 1, Long.MAX_VALUE};
+
+		List<Long> todos = new ArrayList<>();
+		Arrays.stream(ids).forEach(todos::add);
+		Arrays.stream(extremos).forEach(todos::add);
+		todos.sort(null);
+
+		List<String> textos = todos.stream().map(GeradorIdService::texto).toList();
+		assertThat(textos).allSatisfy(texto -> assertThat(texto).hasSize(13));
+		assertThat(textos).isSorted();
+		assertThat(new HashSet<>(textos)).hasSize(new HashSet<>(todos).size());
+	}
+
+	@Test
+	void instanteRecuperaOMomentoDaGeracao() {
+		GeradorIdService gerador = new GeradorIdService(0);
+		Instant antes = Instant.now();
+		long id = gerador.proximo();
+		Instant depois = Instant.now();
+
+		// A sequência esgotada pode emprestar milissegundos seguintes
+		assertThat(GeradorIdService.instante(id))
+				.isBetween(antes.minusMillis(1), depois.plus(Duration.ofSeconds(1)));
+	}
+}
@@ -0,0 +1,101 @@
+package com.example.api.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTests {
+
+	// Erro padrão ~1,15%: quatro desvios padrão
+	private static final double ERRO_MAXIMO = 0.046;
+
+	@Test
+	void estimativaDentroDoErroEsperado() {
+		for (int cardinalidade : new int[] {10, 1_000, 10_000, 100_000, 1_000_000}) {
+			HyperLogLog hll = esboco("visitante-", 0, cardinalidade);
+			assertThat((double) hll.estimar())
+					.as("cardinalidade %d", cardinalidade)
+					.isCloseTo(cardinalidade, within(Math.max(1.0, cardinalidade * ERRO_MAXIMO)));
+		}
+	}
+
+	@Test
+	void repetidosNaoAlteramAEstimativa() {
+		HyperLogLog hll = esboco("visitante-", 0, 5_000);
+		long estimativa = hll.estimar();
+		for (int i = 0; i < 5_000; i++) {
+			hll.adicionar("visitante-" + i);
+		}
+		assertThat(hll.estimar()).isEqualTo(estimativa);
+	}
+
+	@Test
+	void fusaoEstimaAUniao() {
+		HyperLogLog a = esboco("visitante-", 0, 60_000);
+		HyperLogLog b = esboco("visitante-", 40_000, 100_000);
+
+		HyperLogLog uniao = a.copia();
+		uniao.fundir(b);
+		assertThat((double) uniao.estimar()).isCloseTo(100_000, within(100_000 * ERRO_MAXIMO));
+
+		// Idempotente
+		uniao.fundir(b);
+		assertThat(uniao.serializar()).isEqualTo(referencia(a, b).serializar());
+	}
+
+	@Test
+	void serializacaoEsparsaIdaEVolta() {
+		HyperLogLog hll = esboco("visitante-", 0, 200);
+		byte[] dados = hll.serializar();
+
+		assertThat(dados[0]).isEqualTo((byte) 1);
+		assertThat(dados.length).isLessThan(1 + HyperLogLog.REGISTOS);
+
+		HyperLogLog lido = HyperLogLog.deserializar(dados);
+		assertThat(lido.serializar()).isEqualTo(dados);
+		assertThat(lido.estimar()).isEqualTo(hll.estimar());
+	}
+
+	@Test
+	void serializacaoDensaIdaEVolta() {
+		HyperLogLog hll = esboco("visitante-", 0, 50_000);
+		byte[] dados = hll.serializar();
+
+		assertThat(dados[0]).isEqualTo((byte) 0);
+		assertThat(dados).hasSize(1 + HyperLogLog.REGISTOS);
+
+		HyperLogLog lido = HyperLogLog.deserializar(dados);
+		assertThat(lido.serializar()).isEqualTo(dados);
+		assertThat(lido.estimar()).isEqualTo(hll.estimar());
+	}
+
+	@Test
+	void esbocoVazioEDadosInvalidos() {
+		assertThat(HyperLogLog.deserializar(null).estimar()).isZero();
+		assertThat(HyperLogLog.deserializar(new byte[0]).estimar()).isZero();
+		assertThat(HyperLogLog.deserializar(new HyperLogLog().serializar()).estimar()).isZero();
+
+		assertThatThrownBy(() -> HyperLogLog.deserializar(new byte[] {0, 1, 2}))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> HyperLogLog.deserializar(new byte[] {1, 0}))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> HyperLogLog.deserializar(new byte[] {7}))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static HyperLogLog esboco(String prefixo, int de, int ate) {
+		HyperLogLog hll = new HyperLogLog();
+		for (int i = de; i < ate; i++) {
+			hll.adicionar(prefixo + i);
+		}
+		return hll;
+	}
+
+	private static HyperLogLog referencia(HyperLogLog a, HyperLogLog b) {
+		HyperLogLog resultado = b.copia();
+		resultado.fundir(a);
+		return resultado;
+	}
+}
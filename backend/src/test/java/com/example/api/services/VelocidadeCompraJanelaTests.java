@@ -0,0 +1,100 @@
+package com.example.api.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VelocidadeCompraJanelaTests {
+
+	private static final int BALDES = 4;
+
+	@Test
+	void baldesSaemDaJanelaAoAvancar() {
+		VelocidadeCompraService.Janela janela = new VelocidadeCompraService.Janela(BALDES);
+		registar(janela, 0, 100, 0);
+		registar(janela, 2, 250, 0);
+
+		janela.avancar(3);
+		assertThat(janela.contagem).isEqualTo(2);
+		assertThat(janela.somaCentavos).isEqualTo(350);
+
+		// Janela 1..4: o balde 0 sai
+		janela.avancar(4);
+		assertThat(janela.contagem).isEqualTo(1);
+		assertThat(janela.somaCentavos).isEqualTo(250);
+
+		// Janela 3..6: o balde 2 sai
+		janela.avancar(6);
+		assertThat(janela.contagem).isZero();
+		assertThat(janela.somaCentavos).isZero();
+	}
+
+	@Test
+	void saltoMaiorQueAJanelaEsvaziaTudo() {
+		VelocidadeCompraService.Janela janela = new VelocidadeCompraService.Janela(BALDES);
+		registar(janela, 5, 100, 0);
+		registar(janela, 6, 100, 1);
+		registar(janela, 7, 100, 2);
+
+		janela.avancar(100);
+		assertThat(janela.contagem).isZero();
+		assertThat(janela.somaCentavos).isZero();
+		assertThat(janela.metodosDistintos).isZero();
+
+		registar(janela, 101, 40, 3);
+		assertThat(janela.contagem).isEqualTo(1);
+		assertThat(janela.somaCentavos).isEqualTo(40);
+		assertThat(janela.metodosDistintos).isEqualTo(1);
+	}
+
+	@Test
+	void metodosDistintosContamCadaMetodoUmaVez() {
+		VelocidadeCompraService.Janela janela = new VelocidadeCompraService.Janela(BALDES);
+		registar(janela, 0, 100, 0);
+		registar(janela, 0, 100, 0);
+		registar(janela, 1, 100, 1);
+		registar(janela, 2, 100, 0);
+		assertThat(janela.metodosDistintos).isEqualTo(2);
+
+		// Sai o balde 0, mas o método 0 continua no balde 2
+		janela.avancar(4);
+		assertThat(janela.metodosDistintos).isEqualTo(2);
+
+		// Sai o balde 1, com a única compra do método 1
+		janela.avancar(5);
+		assertThat(janela.metodosDistintos).isEqualTo(1);
+
+		janela.avancar(6);
+		assertThat(janela.metodosDistintos).isZero();
+	}
+
+	@Test
+	void instanteAtrasadoContaNoBaldeCorrente() {
+		VelocidadeCompraService.Janela janela = new VelocidadeCompraService.Janela(BALDES);
+		registar(janela, 10, 100, 0);
+
+		// Relógio atrasado: o balde 8 é anterior ao corrente e não faz recuar a janela
+		registar(janela, 8, 300, 1);
+		assertThat(janela.contagem).isEqualTo(2);
+		assertThat(janela.somaCentavos).isEqualTo(400);
+		assertThat(janela.metodosDistintos).isEqualTo(2);
+
+		// Se tivesse ficado no balde 8, já teria saído da janela 9..12
+		janela.avancar(12);
+		assertThat(janela.contagem).isEqualTo(2);
+
+		janela.avancar(13);
+		assertThat(janela.contagem).isEqualTo(2);
+
+		// Janela 11..14: sai o balde 10, com as duas compras
+		janela.avancar(14);
+		assertThat(janela.contagem).isZero();
+		assertThat(janela.somaCentavos).isZero();
+		assertThat(janela.metodosDistintos).isZero();
+	}
+
+	private static void registar(VelocidadeCompraService.Janela janela, long balde, long centavos, int metodo) {
+		janela.avancar(balde);
+		janela.adicionar(balde, centavos, metodo);
+	}
+}